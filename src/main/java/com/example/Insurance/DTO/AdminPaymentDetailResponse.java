@@ -0,0 +1,11 @@
+package com.example.Insurance.DTO;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+// Single-payment admin view: the list fields plus the action flags, flattened into one object
+public record AdminPaymentDetailResponse(
+        @JsonUnwrapped AdminPaymentResponse payment,
+        boolean canApprove,
+        boolean canReject,
+        boolean isExpired) {
+}
@@ -0,0 +1,84 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.Enums.PaymentMethod;
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.entity.OnlinePaymentDetails;
+import com.example.Insurance.entity.Payment;
+import com.example.Insurance.entity.Policy;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Payment as shown on the admin dashboard. The card number is masked to its last four digits.
+ * canEdit and timeRemaining are evaluated against the supplied clock reading.
+ */
+public record AdminPaymentResponse(
+        Long paymentId,
+        Long userId,
+        String userName,
+        String userEmail,
+        PolicyRef policy,
+        String paymentMonth,
+        BigDecimal amount,
+        PaymentMethod paymentMethod,
+        PaymentStatus status,
+        LocalDateTime submittedDate,
+        LocalDateTime approvedDate,
+        LocalDateTime expiryTime,
+        String adminComments,
+        @JsonInclude(JsonInclude.Include.NON_NULL) BankSlipView bankSlipDetails,
+        @JsonInclude(JsonInclude.Include.NON_NULL) OnlineDetails onlinePaymentDetails,
+        boolean canEdit,
+        boolean isPending,
+        String timeRemaining) {
+
+    public record PolicyRef(Long id, String policyNumber, String name, String vehicleType) {
+    }
+
+    public record OnlineDetails(String cardholderName, String cardNumber, String transactionId, Boolean paymentSuccessful) {
+    }
+
+    public static AdminPaymentResponse from(Payment payment, boolean canEdit, LocalDateTime now) {
+        Policy policy = payment.getPolicy();
+        OnlinePaymentDetails online = payment.getOnlinePaymentDetails();
+        return new AdminPaymentResponse(
+                payment.getPaymentId(),
+                payment.getUserId(),
+                payment.getUserName(),
+                payment.getUserEmail(),
+                policy != null ? new PolicyRef(policy.getId(), "POL-" + policy.getId(), policy.getName(), policy.getVehicleType()) : null,
+                payment.getPaymentMonth(),
+                payment.getAmount(),
+                payment.getPaymentMethod(),
+                payment.getStatus(),
+                payment.getSubmittedDate(),
+                payment.getApprovedDate(),
+                payment.getExpiryTime(),
+                payment.getAdminComments(),
+                BankSlipView.from(payment.getBankSlipDetails()),
+                online != null ? new OnlineDetails(online.getCardholderName(), mask(online.getCardNumber()),
+                        online.getTransactionId(), online.getPaymentSuccessful()) : null,
+                canEdit,
+                payment.getStatus() == PaymentStatus.PENDING,
+                canEdit ? timeRemaining(payment.getExpiryTime(), now) : "Expired");
+    }
+
+    private static String mask(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        return "****" + cardNumber.substring(Math.max(0, cardNumber.length() - 4));
+    }
+
+    // hh:mm:ss until expiry
+    private static String timeRemaining(LocalDateTime expiryTime, LocalDateTime now) {
+        if (expiryTime == null) return "N/A";
+        if (now.isAfter(expiryTime)) return "Expired";
+
+        Duration duration = Duration.between(now, expiryTime);
+        return String.format("%02d:%02d:%02d", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+}
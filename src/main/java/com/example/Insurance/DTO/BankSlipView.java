@@ -0,0 +1,18 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.entity.BankSlipDetails;
+
+import java.time.LocalDate;
+
+// Bank slip fields shown to users and admins (the stored image is served separately)
+public record BankSlipView(String bankName, String branch, LocalDate depositDate,
+                           String referenceNumber, String depositorName) {
+
+    public static BankSlipView from(BankSlipDetails slip) {
+        if (slip == null) {
+            return null;
+        }
+        return new BankSlipView(slip.getBankName(), slip.getBranch(), slip.getDepositDate(),
+                slip.getReferenceNumber(), slip.getDepositorName());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.Enums.BulkApprovalOutcome;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Per-payment outcome of a bulk approval, plus running totals. Also used as the progress
+// snapshot of a background bulk approval job.
+public class BulkApprovalReport {
+    private String jobId;
+    private String state;
+    private int totalRequested;
+    private int processed;
+    private int approvedCount;
+    private int alreadyProcessedCount;
+    private int notFoundCount;
+    private String error;
+    private Map<Long, BulkApprovalOutcome> outcomes = new LinkedHashMap<>();
+
+    // Default constructor
+    public BulkApprovalReport() {}
+
+    public void record(Long paymentId, BulkApprovalOutcome outcome) {
+        outcomes.put(paymentId, outcome);
+        processed++;
+        switch (outcome) {
+            case APPROVED -> approvedCount++;
+            case ALREADY_PROCESSED -> alreadyProcessedCount++;
+            case NOT_FOUND -> notFoundCount++;
+        }
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public int getTotalRequested() { return totalRequested; }
+    public void setTotalRequested(int totalRequested) { this.totalRequested = totalRequested; }
+
+    public int getProcessed() { return processed; }
+    public void setProcessed(int processed) { this.processed = processed; }
+
+    public int getApprovedCount() { return approvedCount; }
+    public void setApprovedCount(int approvedCount) { this.approvedCount = approvedCount; }
+
+    public int getAlreadyProcessedCount() { return alreadyProcessedCount; }
+    public void setAlreadyProcessedCount(int alreadyProcessedCount) { this.alreadyProcessedCount = alreadyProcessedCount; }
+
+    public int getNotFoundCount() { return notFoundCount; }
+    public void setNotFoundCount(int notFoundCount) { this.notFoundCount = notFoundCount; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public Map<Long, BulkApprovalOutcome> getOutcomes() { return outcomes; }
+    public void setOutcomes(Map<Long, BulkApprovalOutcome> outcomes) { this.outcomes = outcomes; }
+}
@@ -23,6 +23,8 @@ public class ClaimDTO {
     private LocalDateTime submittedDate;
     private LocalDateTime processedDate;
     private Boolean isDuplicate;
+    private Double duplicateScore;
+    private Long duplicateOfId;
 
     // Constructors
     public ClaimDTO() {}
@@ -81,4 +83,10 @@ public class ClaimDTO {
 
     public Boolean getIsDuplicate() { return isDuplicate; }
     public void setIsDuplicate(Boolean isDuplicate) { this.isDuplicate = isDuplicate; }
+
+    public Double getDuplicateScore() { return duplicateScore; }
+    public void setDuplicateScore(Double duplicateScore) { this.duplicateScore = duplicateScore; }
+
+    public Long getDuplicateOfId() { return duplicateOfId; }
+    public void setDuplicateOfId(Long duplicateOfId) { this.duplicateOfId = duplicateOfId; }
 }
@@ -0,0 +1,17 @@
+package com.example.Insurance.DTO;
+
+import java.time.LocalDateTime;
+
+// Projection of a claim with just what duplicate detection matches and scores on
+public record ClaimFingerprint(Long id, String claimNumber, String vehicleKey, String chassisKey, String nicKey,
+                               LocalDateTime incidentDate, LocalDateTime submittedDate,
+                               Boolean isDuplicate, Double duplicateScore, Long duplicateOfId) {
+
+    // Whether this claim was submitted before the other one (ties broken by ID)
+    public boolean isBefore(ClaimFingerprint other) {
+        if (submittedDate != null && other.submittedDate != null && !submittedDate.equals(other.submittedDate)) {
+            return submittedDate.isBefore(other.submittedDate);
+        }
+        return id < other.id;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.Enums.ClaimImportOutcome;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Result of a CSV claim import: totals per outcome plus one entry per data row, in file order.
+// Imported rows carry their new claim number; rows flagged as duplicates also name the claim they
+// resemble, and invalid or failed rows say why.
+public class ClaimImportReport {
+    private String fileName;
+    private int rows;
+    private Map<ClaimImportOutcome, Integer> outcomeCounts = new EnumMap<>(ClaimImportOutcome.class);
+    private List<Row> results = new ArrayList<>();
+    private long elapsedMs;
+
+    public record Row(int line, ClaimImportOutcome outcome, Long claimId, String claimNumber,
+                      String duplicateOf, Double duplicateScore, String message) {
+    }
+
+    // Default constructor
+    public ClaimImportReport() {}
+
+    public void add(Row row) {
+        results.add(row);
+        outcomeCounts.merge(row.outcome(), 1, Integer::sum);
+        rows++;
+    }
+
+    // Getters and Setters
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public int getRows() { return rows; }
+    public void setRows(int rows) { this.rows = rows; }
+
+    public int getImported() {
+        return outcomeCounts.getOrDefault(ClaimImportOutcome.IMPORTED, 0)
+                + outcomeCounts.getOrDefault(ClaimImportOutcome.IMPORTED_DUPLICATE, 0);
+    }
+
+    public Map<ClaimImportOutcome, Integer> getOutcomeCounts() { return outcomeCounts; }
+    public void setOutcomeCounts(Map<ClaimImportOutcome, Integer> outcomeCounts) { this.outcomeCounts = outcomeCounts; }
+
+    public List<Row> getResults() { return results; }
+    public void setResults(List<Row> results) { this.results = results; }
+
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+}
@@ -0,0 +1,70 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.Enums.PhotoPreviewStatus;
+
+import java.time.LocalDateTime;
+
+// Claim photo metadata for review grids; the URLs are relative to the API root and the
+// thumbnail/preview URLs are null until those have been generated
+public class ClaimPhotoDTO {
+    private Long id;
+    private Long claimId;
+    private String fileName;
+    private String description;
+    private String contentType;
+    private Long sizeBytes;
+    private Integer width;
+    private Integer height;
+    private String sha256;
+    private LocalDateTime uploadedAt;
+    private PhotoPreviewStatus previewStatus;
+    private String originalUrl;
+    private String thumbnailUrl;
+    private String previewUrl;
+
+    // Default constructor
+    public ClaimPhotoDTO() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getClaimId() { return claimId; }
+    public void setClaimId(Long claimId) { this.claimId = claimId; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+    public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+
+    public PhotoPreviewStatus getPreviewStatus() { return previewStatus; }
+    public void setPreviewStatus(PhotoPreviewStatus previewStatus) { this.previewStatus = previewStatus; }
+
+    public String getOriginalUrl() { return originalUrl; }
+    public void setOriginalUrl(String originalUrl) { this.originalUrl = originalUrl; }
+
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+
+    public String getPreviewUrl() { return previewUrl; }
+    public void setPreviewUrl(String previewUrl) { this.previewUrl = previewUrl; }
+}
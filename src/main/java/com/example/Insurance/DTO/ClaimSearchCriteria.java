@@ -0,0 +1,43 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.entity.Claim;
+
+import java.time.LocalDateTime;
+
+// Admin claim search filters. Null fields are not applied.
+// submittedFrom is inclusive, submittedTo is exclusive. vehicleNumber and nic match in any
+// spelling that normalises to the same key (spacing, dashes, old/new NIC format).
+public class ClaimSearchCriteria {
+    private Claim.ClaimStatus status;
+    private Boolean isDuplicate;
+    private String incidentType;
+    private LocalDateTime submittedFrom;
+    private LocalDateTime submittedTo;
+    private String vehicleNumber;
+    private String nic;
+
+    // Default constructor
+    public ClaimSearchCriteria() {}
+
+    // Getters and Setters
+    public Claim.ClaimStatus getStatus() { return status; }
+    public void setStatus(Claim.ClaimStatus status) { this.status = status; }
+
+    public Boolean getIsDuplicate() { return isDuplicate; }
+    public void setIsDuplicate(Boolean isDuplicate) { this.isDuplicate = isDuplicate; }
+
+    public String getIncidentType() { return incidentType; }
+    public void setIncidentType(String incidentType) { this.incidentType = incidentType; }
+
+    public LocalDateTime getSubmittedFrom() { return submittedFrom; }
+    public void setSubmittedFrom(LocalDateTime submittedFrom) { this.submittedFrom = submittedFrom; }
+
+    public LocalDateTime getSubmittedTo() { return submittedTo; }
+    public void setSubmittedTo(LocalDateTime submittedTo) { this.submittedTo = submittedTo; }
+
+    public String getVehicleNumber() { return vehicleNumber; }
+    public void setVehicleNumber(String vehicleNumber) { this.vehicleNumber = vehicleNumber; }
+
+    public String getNic() { return nic; }
+    public void setNic(String nic) { this.nic = nic; }
+}
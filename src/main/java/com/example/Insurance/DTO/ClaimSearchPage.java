@@ -0,0 +1,26 @@
+package com.example.Insurance.DTO;
+
+import java.util.List;
+
+// One keyset page of admin claim search results. nextCursor is null on the last page.
+public class ClaimSearchPage {
+    private List<ClaimSummary> claims;
+    private String nextCursor;
+
+    // Default constructor
+    public ClaimSearchPage() {}
+
+    public ClaimSearchPage(List<ClaimSummary> claims, String nextCursor) {
+        this.claims = claims;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<ClaimSummary> getClaims() { return claims; }
+    public void setClaims(List<ClaimSummary> claims) { this.claims = claims; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+}
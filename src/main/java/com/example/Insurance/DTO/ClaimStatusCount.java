@@ -0,0 +1,7 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.entity.Claim;
+
+// One row of the claim statistics aggregate: how many claims have this status and duplicate flag
+public record ClaimStatusCount(Claim.ClaimStatus status, Boolean isDuplicate, long count) {
+}
@@ -0,0 +1,12 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.entity.Claim;
+
+import java.time.LocalDateTime;
+
+// Row of the admin claims list: the claim without its description, photos or user
+public record ClaimSummary(Long id, String claimNumber, String fullName, String nic, String phone,
+                           String vehicleNumber, String vehicleModel, String incidentType, LocalDateTime incidentDate,
+                           Claim.ClaimStatus status, LocalDateTime submittedDate, LocalDateTime processedDate,
+                           Boolean isDuplicate, Double duplicateScore, Long duplicateOfId) {
+}
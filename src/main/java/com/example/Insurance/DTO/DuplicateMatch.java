@@ -0,0 +1,5 @@
+package com.example.Insurance.DTO;
+
+// An existing claim that a claim resembles, with the similarity score (0..1)
+public record DuplicateMatch(Long claimId, String claimNumber, double score) {
+}
@@ -0,0 +1,55 @@
+package com.example.Insurance.DTO;
+
+import java.time.LocalDateTime;
+
+// Progress and totals of a background duplicate re-scan over the whole claims table
+public class DuplicateRescanReport {
+    private String jobId;
+    private String state;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int keysBackfilled;
+    private int scanned;
+    private int flagged;
+    private int newlyFlagged;
+    private int cleared;
+    private int updated;
+    private String error;
+
+    // Default constructor
+    public DuplicateRescanReport() {}
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public int getKeysBackfilled() { return keysBackfilled; }
+    public void setKeysBackfilled(int keysBackfilled) { this.keysBackfilled = keysBackfilled; }
+
+    public int getScanned() { return scanned; }
+    public void setScanned(int scanned) { this.scanned = scanned; }
+
+    public int getFlagged() { return flagged; }
+    public void setFlagged(int flagged) { this.flagged = flagged; }
+
+    public int getNewlyFlagged() { return newlyFlagged; }
+    public void setNewlyFlagged(int newlyFlagged) { this.newlyFlagged = newlyFlagged; }
+
+    public int getCleared() { return cleared; }
+    public void setCleared(int cleared) { this.cleared = cleared; }
+
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,28 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.entity.Payment;
+
+import java.util.List;
+
+// One keyset page of a user's payment history. nextCursor is null on the last page.
+public class PaymentHistoryPage {
+    private List<Payment> payments;
+    private String nextCursor;
+
+    // Default constructor
+    public PaymentHistoryPage() {}
+
+    public PaymentHistoryPage(List<Payment> payments, String nextCursor) {
+        this.payments = payments;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<Payment> getPayments() { return payments; }
+    public void setPayments(List<Payment> payments) { this.payments = payments; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,38 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.Enums.PaymentStatus;
+
+import java.time.LocalDateTime;
+
+// Admin payment search filters. Null fields are not applied.
+// submittedFrom is inclusive, submittedTo is exclusive.
+public class PaymentSearchCriteria {
+    private Long userId;
+    private Long policyId;
+    private String paymentMonth;
+    private PaymentStatus status;
+    private LocalDateTime submittedFrom;
+    private LocalDateTime submittedTo;
+
+    // Default constructor
+    public PaymentSearchCriteria() {}
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getPolicyId() { return policyId; }
+    public void setPolicyId(Long policyId) { this.policyId = policyId; }
+
+    public String getPaymentMonth() { return paymentMonth; }
+    public void setPaymentMonth(String paymentMonth) { this.paymentMonth = paymentMonth; }
+
+    public PaymentStatus getStatus() { return status; }
+    public void setStatus(PaymentStatus status) { this.status = status; }
+
+    public LocalDateTime getSubmittedFrom() { return submittedFrom; }
+    public void setSubmittedFrom(LocalDateTime submittedFrom) { this.submittedFrom = submittedFrom; }
+
+    public LocalDateTime getSubmittedTo() { return submittedTo; }
+    public void setSubmittedTo(LocalDateTime submittedTo) { this.submittedTo = submittedTo; }
+}
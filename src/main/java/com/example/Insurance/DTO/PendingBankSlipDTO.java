@@ -0,0 +1,9 @@
+package com.example.Insurance.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Projection of a pending bank-slip payment for statement reconciliation
+public record PendingBankSlipDTO(Long paymentId, BigDecimal amount, String referenceNumber,
+                                 LocalDate depositDate, String depositorName) {
+}
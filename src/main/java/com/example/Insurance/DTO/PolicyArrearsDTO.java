@@ -0,0 +1,44 @@
+package com.example.Insurance.DTO;
+
+import java.util.List;
+
+// A policy with unpaid months that are already due in the given year
+public class PolicyArrearsDTO {
+    private Long policyId;
+    private String policyNumber;
+    private String policyName;
+    private int year;
+    private int paidMask;
+    private List<String> overdueMonths;
+
+    // Default constructor
+    public PolicyArrearsDTO() {}
+
+    public PolicyArrearsDTO(Long policyId, String policyNumber, String policyName, int year, int paidMask, List<String> overdueMonths) {
+        this.policyId = policyId;
+        this.policyNumber = policyNumber;
+        this.policyName = policyName;
+        this.year = year;
+        this.paidMask = paidMask;
+        this.overdueMonths = overdueMonths;
+    }
+
+    // Getters and Setters
+    public Long getPolicyId() { return policyId; }
+    public void setPolicyId(Long policyId) { this.policyId = policyId; }
+
+    public String getPolicyNumber() { return policyNumber; }
+    public void setPolicyNumber(String policyNumber) { this.policyNumber = policyNumber; }
+
+    public String getPolicyName() { return policyName; }
+    public void setPolicyName(String policyName) { this.policyName = policyName; }
+
+    public int getYear() { return year; }
+    public void setYear(int year) { this.year = year; }
+
+    public int getPaidMask() { return paidMask; }
+    public void setPaidMask(int paidMask) { this.paidMask = paidMask; }
+
+    public List<String> getOverdueMonths() { return overdueMonths; }
+    public void setOverdueMonths(List<String> overdueMonths) { this.overdueMonths = overdueMonths; }
+}
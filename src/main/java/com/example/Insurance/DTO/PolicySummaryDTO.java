@@ -0,0 +1,33 @@
+package com.example.Insurance.DTO;
+
+// Lightweight policy projection for payment views - avoids loading the eager benefits collection
+public class PolicySummaryDTO {
+    private Long id;
+    private String name;
+    private String vehicleType;
+    private Double premiumAmount;
+
+    // Default constructor
+    public PolicySummaryDTO() {}
+
+    // Used by JPQL constructor expressions
+    public PolicySummaryDTO(Long id, String name, String vehicleType, Double premiumAmount) {
+        this.id = id;
+        this.name = name;
+        this.vehicleType = vehicleType;
+        this.premiumAmount = premiumAmount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getVehicleType() { return vehicleType; }
+    public void setVehicleType(String vehicleType) { this.vehicleType = vehicleType; }
+
+    public Double getPremiumAmount() { return premiumAmount; }
+    public void setPremiumAmount(Double premiumAmount) { this.premiumAmount = premiumAmount; }
+}
@@ -0,0 +1,71 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.Enums.ReconciliationOutcome;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Result of reconciling a bank statement against pending bank-slip payments. Exact, unambiguous
+// matches are listed in matchedPaymentIds (and approved when requested); every other pending
+// payment appears in mismatches with the statement lines that share its reference, if any.
+public class ReconciliationReport {
+    private int statementLines;
+    private int parsedLines;
+    private int rejectedLineCount;
+    private List<String> rejectedLines = new ArrayList<>();
+    private int pendingPayments;
+    private List<Long> matchedPaymentIds = new ArrayList<>();
+    private Map<ReconciliationOutcome, Integer> outcomeCounts = new EnumMap<>(ReconciliationOutcome.class);
+    private List<Mismatch> mismatches = new ArrayList<>();
+    private int unmatchedStatementLineCount;
+    private List<Integer> unmatchedStatementLines = new ArrayList<>();
+    private BulkApprovalReport approval;
+    private long elapsedMs;
+
+    public record Mismatch(Long paymentId, ReconciliationOutcome outcome, String detail, List<Integer> statementLines) {
+    }
+
+    // Default constructor
+    public ReconciliationReport() {}
+
+    // Getters and Setters
+    public int getStatementLines() { return statementLines; }
+    public void setStatementLines(int statementLines) { this.statementLines = statementLines; }
+
+    public int getParsedLines() { return parsedLines; }
+    public void setParsedLines(int parsedLines) { this.parsedLines = parsedLines; }
+
+    public int getRejectedLineCount() { return rejectedLineCount; }
+    public void setRejectedLineCount(int rejectedLineCount) { this.rejectedLineCount = rejectedLineCount; }
+
+    public List<String> getRejectedLines() { return rejectedLines; }
+    public void setRejectedLines(List<String> rejectedLines) { this.rejectedLines = rejectedLines; }
+
+    public int getPendingPayments() { return pendingPayments; }
+    public void setPendingPayments(int pendingPayments) { this.pendingPayments = pendingPayments; }
+
+    public int getMatchedCount() { return matchedPaymentIds.size(); }
+
+    public List<Long> getMatchedPaymentIds() { return matchedPaymentIds; }
+    public void setMatchedPaymentIds(List<Long> matchedPaymentIds) { this.matchedPaymentIds = matchedPaymentIds; }
+
+    public Map<ReconciliationOutcome, Integer> getOutcomeCounts() { return outcomeCounts; }
+    public void setOutcomeCounts(Map<ReconciliationOutcome, Integer> outcomeCounts) { this.outcomeCounts = outcomeCounts; }
+
+    public List<Mismatch> getMismatches() { return mismatches; }
+    public void setMismatches(List<Mismatch> mismatches) { this.mismatches = mismatches; }
+
+    public int getUnmatchedStatementLineCount() { return unmatchedStatementLineCount; }
+    public void setUnmatchedStatementLineCount(int unmatchedStatementLineCount) { this.unmatchedStatementLineCount = unmatchedStatementLineCount; }
+
+    public List<Integer> getUnmatchedStatementLines() { return unmatchedStatementLines; }
+    public void setUnmatchedStatementLines(List<Integer> unmatchedStatementLines) { this.unmatchedStatementLines = unmatchedStatementLines; }
+
+    public BulkApprovalReport getApproval() { return approval; }
+    public void setApproval(BulkApprovalReport approval) { this.approval = approval; }
+
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+}
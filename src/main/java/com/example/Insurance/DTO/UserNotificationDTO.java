@@ -31,8 +31,15 @@ public class UserNotificationDTO {
     private LocalDateTime expiryDate;
 
     private Boolean isArchived;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime archivedAt;
+
     private Boolean isDeleted;
 
+    // Broadcast to many users (an admin notification stored once); its id is -adminNotificationId
+    private Boolean broadcast;
+
     // Constructors
     public UserNotificationDTO() {}
 
@@ -162,6 +169,22 @@ public class UserNotificationDTO {
         this.isArchived = isArchived;
     }
 
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    public Boolean getBroadcast() {
+        return broadcast;
+    }
+
+    public void setBroadcast(Boolean broadcast) {
+        this.broadcast = broadcast;
+    }
+
     public Boolean getIsDeleted() {
         return isDeleted;
     }
@@ -0,0 +1,71 @@
+package com.example.Insurance.DTO;
+
+import com.example.Insurance.entity.OnlinePaymentDetails;
+import com.example.Insurance.entity.Payment;
+import com.example.Insurance.entity.Policy;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Payment as returned by the user payment endpoints. Field names and formats match the
+ * map the controller used to build (dates and enums as strings, "N/A" placeholders).
+ */
+public record UserPaymentResponse(
+        Long paymentId,
+        Long userId,
+        String userName,
+        String userEmail,
+        String paymentMonth,
+        BigDecimal amount,
+        String status,
+        String paymentMethod,
+        String submittedDate,
+        String expiryTime,
+        String adminComments,
+        String approvedDate,
+        PolicyRef policy,
+        @JsonInclude(JsonInclude.Include.NON_NULL) BankSlipView bankSlipDetails,
+        @JsonInclude(JsonInclude.Include.NON_NULL) OnlineDetails onlinePaymentDetails,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Boolean canEdit) {
+
+    public record PolicyRef(Long id, String policyNumber) {
+        static final PolicyRef NONE = new PolicyRef(null, "N/A");
+    }
+
+    public record OnlineDetails(String cardholderName, String cardNumber, String expirationDate) {
+    }
+
+    public static UserPaymentResponse from(Payment payment) {
+        Policy policy = payment.getPolicy();
+        OnlinePaymentDetails online = payment.getOnlinePaymentDetails();
+        return new UserPaymentResponse(
+                payment.getPaymentId(),
+                payment.getUserId(),
+                payment.getUserName() != null ? payment.getUserName() : "N/A",
+                payment.getUserEmail() != null ? payment.getUserEmail() : "N/A",
+                payment.getPaymentMonth(),
+                payment.getAmount(),
+                payment.getStatus() != null ? payment.getStatus().name() : "UNKNOWN",
+                payment.getPaymentMethod() != null ? payment.getPaymentMethod().name() : "UNKNOWN",
+                format(payment.getSubmittedDate()),
+                format(payment.getExpiryTime()),
+                payment.getAdminComments(),
+                format(payment.getApprovedDate()),
+                policy != null && policy.getId() != null ? new PolicyRef(policy.getId(), "POL-" + policy.getId()) : PolicyRef.NONE,
+                BankSlipView.from(payment.getBankSlipDetails()),
+                online != null ? new OnlineDetails(online.getCardholderName(), online.getCardNumber(), online.getExpirationDate()) : null,
+                null);
+    }
+
+    public UserPaymentResponse withCanEdit(boolean canEdit) {
+        return new UserPaymentResponse(paymentId, userId, userName, userEmail, paymentMonth, amount, status,
+                paymentMethod, submittedDate, expiryTime, adminComments, approvedDate, policy, bankSlipDetails,
+                onlinePaymentDetails, canEdit);
+    }
+
+    private static String format(LocalDateTime value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -10,8 +10,10 @@ public class UserPolicyPaymentDTO {
     private String vehicle;
     private BigDecimal monthlyPremium;
     private String status;
+    private Integer coverageYear;
     private List<String> paidMonths;
     private List<String> pendingMonths;
+    private List<String> overdueMonths;
     private List<PaymentHistoryDTO> paymentHistory;
 
     // Default constructor
@@ -36,12 +38,18 @@ public class UserPolicyPaymentDTO {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    public Integer getCoverageYear() { return coverageYear; }
+    public void setCoverageYear(Integer coverageYear) { this.coverageYear = coverageYear; }
+
     public List<String> getPaidMonths() { return paidMonths; }
     public void setPaidMonths(List<String> paidMonths) { this.paidMonths = paidMonths; }
 
     public List<String> getPendingMonths() { return pendingMonths; }
     public void setPendingMonths(List<String> pendingMonths) { this.pendingMonths = pendingMonths; }
 
+    public List<String> getOverdueMonths() { return overdueMonths; }
+    public void setOverdueMonths(List<String> overdueMonths) { this.overdueMonths = overdueMonths; }
+
     public List<PaymentHistoryDTO> getPaymentHistory() { return paymentHistory; }
     public void setPaymentHistory(List<PaymentHistoryDTO> paymentHistory) { this.paymentHistory = paymentHistory; }
 }
@@ -0,0 +1,7 @@
+package com.example.Insurance.Enums;
+
+public enum BulkApprovalOutcome {
+    APPROVED,
+    ALREADY_PROCESSED,
+    NOT_FOUND
+}
@@ -0,0 +1,8 @@
+package com.example.Insurance.Enums;
+
+public enum ClaimImportOutcome {
+    IMPORTED,
+    IMPORTED_DUPLICATE,
+    INVALID,
+    FAILED
+}
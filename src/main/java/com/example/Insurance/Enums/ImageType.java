@@ -0,0 +1,58 @@
+package com.example.Insurance.Enums;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Accepted claim photo formats, recognised from their leading bytes rather than the declared
+// Content-Type or file name. decodable = ImageIO can read it (so previews can be generated).
+public enum ImageType {
+    JPEG("image/jpeg", true),
+    PNG("image/png", true),
+    GIF("image/gif", true),
+    WEBP("image/webp", false),
+    HEIC("image/heic", false);
+
+    // Bytes needed by detect()
+    public static final int HEADER_LENGTH = 12;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final String contentType;
+    private final boolean decodable;
+
+    ImageType(String contentType, boolean decodable) {
+        this.contentType = contentType;
+        this.decodable = decodable;
+    }
+
+    public String getContentType() { return contentType; }
+    public boolean isDecodable() { return decodable; }
+
+    // The image type the header starts with, or null when it is not one of the accepted formats
+    public static ImageType detect(byte[] header) {
+        if (header.length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return JPEG;
+        }
+        if (header.length >= 8 && Arrays.equals(header, 0, 8, PNG_SIGNATURE, 0, 8)) {
+            return PNG;
+        }
+        if (header.length >= 6 && (ascii(header, 0, 6).equals("GIF87a") || ascii(header, 0, 6).equals("GIF89a"))) {
+            return GIF;
+        }
+        if (header.length >= 12 && ascii(header, 0, 4).equals("RIFF") && ascii(header, 8, 4).equals("WEBP")) {
+            return WEBP;
+        }
+        if (header.length >= 12 && ascii(header, 4, 4).equals("ftyp")) {
+            String brand = ascii(header, 8, 4);
+            if (brand.equals("heic") || brand.equals("heix") || brand.equals("hevc") || brand.equals("hevx")
+                    || brand.equals("mif1") || brand.equals("msf1")) {
+                return HEIC;
+            }
+        }
+        return null;
+    }
+
+    private static String ascii(byte[] bytes, int offset, int length) {
+        return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.Insurance.Enums;
 
 public enum PaymentStatus {
+    // Online payment waiting for the gateway; becomes PENDING (admin review) once the charge result is in
+    PROCESSING,
     PENDING,
     APPROVED,
     REJECTED
@@ -0,0 +1,10 @@
+package com.example.Insurance.Enums;
+
+// Thumbnail/preview generation state of a claim photo
+public enum PhotoPreviewStatus {
+    PENDING,
+    READY,
+    FAILED,
+    // Format ImageIO cannot decode (WebP, HEIC); only the original is available
+    UNSUPPORTED
+}
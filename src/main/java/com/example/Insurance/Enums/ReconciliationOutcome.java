@@ -0,0 +1,9 @@
+package com.example.Insurance.Enums;
+
+public enum ReconciliationOutcome {
+    MATCHED,
+    AMBIGUOUS,
+    AMOUNT_MISMATCH,
+    DATE_MISMATCH,
+    NOT_FOUND
+}
@@ -20,6 +20,12 @@ public class CorsClaimsConfig {
         config.addAllowedOriginPattern("*");
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        config.addExposedHeader("X-Next-Cursor");
+        config.addExposedHeader("ETag");
+        config.addExposedHeader("Content-Range");
+        config.addExposedHeader("Accept-Ranges");
+        config.addExposedHeader("Idempotent-Replayed");
+        config.addExposedHeader("Content-Disposition");
 
         source.registerCorsConfiguration("/api/**", config);
         return new CorsFilter(source);
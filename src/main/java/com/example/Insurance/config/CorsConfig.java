@@ -18,6 +18,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOriginPatterns("*") // Allow all origins for development
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Next-Cursor", "ETag", "Content-Range", "Accept-Ranges", "Idempotent-Replayed", "Content-Disposition")
                 .allowCredentials(false) // Must be false when using allowedOriginPatterns("*")
                 .maxAge(3600);
     }
@@ -36,7 +37,8 @@ class ProductionCorsConfig implements WebMvcConfigurer {
         registry.addMapping("/api/**")
                 .allowedOrigins(allowedOrigins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("Authorization", "Content-Type", "X-Requested-With")
+                .allowedHeaders("Authorization", "Content-Type", "X-Requested-With", "Range", "If-None-Match", "If-Range", "Idempotency-Key")
+                .exposedHeaders("X-Next-Cursor", "ETag", "Content-Range", "Accept-Ranges", "Idempotent-Replayed", "Content-Disposition")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -0,0 +1,55 @@
+package com.example.Insurance.config;
+
+import com.example.Insurance.id.BusinessIds;
+import com.example.Insurance.id.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+
+// Business ID generator for this instance. app.ids.node-id must differ between instances sharing a
+// database: a node ID derived from host and process could collide and duplicate claim and policy
+// numbers, so it is never guessed. application.properties falls back to node 0 when APP_IDS_NODE_ID is
+// unset, which is only safe for a single instance and is logged as a warning.
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    private static final String NODE_ID_PROPERTY = "app.ids.node-id";
+    private static final String NODE_ID_VARIABLE = "APP_IDS_NODE_ID";
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(@Value("${app.ids.node-id:-1}") long nodeId,
+                                                     ConfigurableEnvironment environment) {
+        if (nodeId < 0 || nodeId > SnowflakeIdGenerator.MAX_NODE_ID) {
+            throw new IllegalStateException("app.ids.node-id must be set to a node ID between 0 and "
+                    + SnowflakeIdGenerator.MAX_NODE_ID + ", unique among instances sharing the database (was " + nodeId + ")");
+        }
+        if (usesDefaultNodeId(environment)) {
+            logger.warn("APP_IDS_NODE_ID is not set; generating business IDs as node {}. Give every instance "
+                    + "sharing the database its own node ID or their claim and policy numbers can collide", nodeId);
+        }
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(nodeId);
+        BusinessIds.install(generator);
+        logger.info("Business IDs generated as node {}", nodeId);
+        return generator;
+    }
+
+    // True when the node ID came from the APP_IDS_NODE_ID placeholder default in application.properties
+    private static boolean usesDefaultNodeId(ConfigurableEnvironment environment) {
+        if (environment.containsProperty(NODE_ID_VARIABLE)) {
+            return false;
+        }
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            Object raw = source.getProperty(NODE_ID_PROPERTY);
+            if (raw != null) {
+                return raw.toString().contains("${" + NODE_ID_VARIABLE);
+            }
+        }
+        return false;
+    }
+}
@@ -2,11 +2,15 @@ package com.example.Insurance.controller;
 
 
 import com.example.Insurance.DTO.ApplicationStatsDTO;
+import com.example.Insurance.Enums.ApplicationStatus;
+import com.example.Insurance.Enums.ExportFormat;
 import com.example.Insurance.entity.PolicyApplication;
+import com.example.Insurance.service.ExportService;
 import com.example.Insurance.service.PolicyApplicationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -18,12 +22,29 @@ public class AdminApplicationController {
     @Autowired
     private PolicyApplicationService applicationService;
 
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping
     public ResponseEntity<List<PolicyApplication>> getAllApplications() {
         List<PolicyApplication> applications = applicationService.getAllApplications();
         return ResponseEntity.ok(applications);
     }
 
+    // Export applications as CSV or NDJSON, streamed from the database (optionally gzip-encoded)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportApplications(@RequestParam(defaultValue = "csv") String format,
+                                                                    @RequestParam(required = false) String status,
+                                                                    @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            ExportFormat exportFormat = ExportFormat.valueOf(format.trim().toUpperCase());
+            ApplicationStatus applicationStatus = status != null && !status.isBlank() ? ApplicationStatus.valueOf(status.trim().toUpperCase()) : null;
+            return exportService.exportApplications(applicationStatus, exportFormat, gzip);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/pending")
     public ResponseEntity<List<PolicyApplication>> getPendingApplications() {
         List<PolicyApplication> pendingApplications = applicationService.getPendingApplications();
@@ -2,13 +2,34 @@ package com.example.Insurance.controller;
 
 
 import com.example.Insurance.DTO.ClaimDTO;
+import com.example.Insurance.DTO.ClaimPhotoDTO;
+import com.example.Insurance.DTO.ClaimSearchCriteria;
+import com.example.Insurance.DTO.ClaimSearchPage;
+import com.example.Insurance.DTO.DuplicateMatch;
+import com.example.Insurance.Enums.ExportFormat;
 import com.example.Insurance.entity.Claim;
-import com.example.Insurance.entity.ClaimPhoto;
 import com.example.Insurance.service.AdminClaimsService;
+import com.example.Insurance.service.ClaimDuplicateService;
+import com.example.Insurance.service.ClaimImportService;
+import com.example.Insurance.service.ClaimPhotoService;
+import com.example.Insurance.service.ExportService;
+import com.example.Insurance.service.StatusConflictException;
+import com.example.Insurance.storage.FileDownloadSupport;
+import com.example.Insurance.storage.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -17,9 +38,26 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class AdminClaimsController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private AdminClaimsService adminClaimsService;
 
+    @Autowired
+    private FileDownloadSupport fileDownloadSupport;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ClaimDuplicateService claimDuplicateService;
+
+    @Autowired
+    private ClaimPhotoService claimPhotoService;
+
+    @Autowired
+    private ClaimImportService claimImportService;
+
     // Get all claims
     @GetMapping
     public ResponseEntity<List<ClaimDTO>> getAllClaims() {
@@ -39,6 +77,20 @@ public class AdminClaimsController {
         }
     }
 
+    // Export claims as CSV or NDJSON, streamed from the database (optionally gzip-encoded)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportClaims(@RequestParam(defaultValue = "csv") String format,
+                                                              @RequestParam(required = false) String status,
+                                                              @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            ExportFormat exportFormat = ExportFormat.valueOf(format.trim().toUpperCase());
+            Claim.ClaimStatus claimStatus = status != null && !status.isBlank() ? Claim.ClaimStatus.valueOf(status.trim().toUpperCase()) : null;
+            return exportService.exportClaims(claimStatus, exportFormat, gzip);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Get duplicate claims
     @GetMapping("/duplicates")
     public ResponseEntity<List<ClaimDTO>> getDuplicateClaims() {
@@ -46,6 +98,82 @@ public class AdminClaimsController {
         return ResponseEntity.ok(duplicateClaims);
     }
 
+    // Re-score every claim in the background (202 + jobId, poll /duplicates/rescan/{jobId})
+    @PostMapping("/duplicates/rescan")
+    public ResponseEntity<?> rescanDuplicates() {
+        try {
+            String jobId = claimDuplicateService.submitRescan();
+            return ResponseEntity.accepted().body(Map.of(
+                    "jobId", jobId,
+                    "progressUrl", "/api/admin/claims/duplicates/rescan/" + jobId
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Progress and totals of a duplicate re-scan
+    @GetMapping("/duplicates/rescan/{jobId}")
+    public ResponseEntity<?> getRescanProgress(@PathVariable String jobId) {
+        return claimDuplicateService.getRescan(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                        "error", "Duplicate re-scan " + jobId + " not found or expired"
+                )));
+    }
+
+    // Duplicate index settings, cache and key-filter counters
+    @GetMapping("/duplicates/index-stats")
+    public ResponseEntity<Map<String, Object>> getDuplicateIndexStats() {
+        return ResponseEntity.ok(claimDuplicateService.getIndexStats());
+    }
+
+    // Existing claims resembling this one, with similarity scores
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<List<DuplicateMatch>> getDuplicateMatches(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(adminClaimsService.getDuplicateMatches(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Search claims, newest first - filters run in the database; fromDate/toDate are inclusive ISO
+    // dates (yyyy-MM-dd) or date-times. The body is the page of claims (without descriptions); when
+    // more rows exist the cursor for the next page is returned in the X-Next-Cursor header.
+    @GetMapping("/search")
+    public ResponseEntity<?> searchClaims(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean duplicate,
+            @RequestParam(required = false) String incidentType,
+            @RequestParam(required = false) String fromDate,
+            @RequestParam(required = false) String toDate,
+            @RequestParam(required = false) String vehicleNumber,
+            @RequestParam(required = false) String nic,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AdminClaimsService.DEFAULT_SEARCH_PAGE_SIZE) int limit
+    ) {
+        try {
+            ClaimSearchCriteria criteria = new ClaimSearchCriteria();
+            criteria.setStatus(status != null && !status.isBlank() ? Claim.ClaimStatus.valueOf(status.trim().toUpperCase()) : null);
+            criteria.setIsDuplicate(duplicate);
+            criteria.setIncidentType(blankToNull(incidentType));
+            criteria.setSubmittedFrom(parseFromDate(fromDate));
+            criteria.setSubmittedTo(parseToDate(toDate));
+            criteria.setVehicleNumber(blankToNull(vehicleNumber));
+            criteria.setNic(blankToNull(nic));
+
+            ClaimSearchPage page = adminClaimsService.searchClaims(criteria, cursor, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.hasMore()) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getClaims());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid search filter: " + e.getMessage()));
+        }
+    }
+
     // Get claim by ID
     @GetMapping("/{id}")
     public ResponseEntity<ClaimDTO> getClaimById(@PathVariable Long id) {
@@ -70,11 +198,15 @@ public class AdminClaimsController {
 
     // Approve claim
     @PutMapping("/{id}/approve")
-    public ResponseEntity<ClaimDTO> approveClaim(@PathVariable Long id, @RequestBody Map<String, String> request) {
+    public ResponseEntity<?> approveClaim(@PathVariable Long id, @RequestBody Map<String, String> request) {
         try {
             String adminReason = request.get("reason");
-            ClaimDTO approvedClaim = adminClaimsService.approveClaim(id, adminReason);
+            ClaimDTO approvedClaim = adminClaimsService.approveClaim(id, adminReason, expectedStatus(request));
             return ResponseEntity.ok(approvedClaim);
+        } catch (StatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid expectedStatus: " + request.get("expectedStatus")));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -82,16 +214,53 @@ public class AdminClaimsController {
 
     // Reject claim
     @PutMapping("/{id}/reject")
-    public ResponseEntity<ClaimDTO> rejectClaim(@PathVariable Long id, @RequestBody Map<String, String> request) {
+    public ResponseEntity<?> rejectClaim(@PathVariable Long id, @RequestBody Map<String, String> request) {
         try {
             String adminReason = request.get("reason");
-            ClaimDTO rejectedClaim = adminClaimsService.rejectClaim(id, adminReason);
+            ClaimDTO rejectedClaim = adminClaimsService.rejectClaim(id, adminReason, expectedStatus(request));
             return ResponseEntity.ok(rejectedClaim);
+        } catch (StatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid expectedStatus: " + request.get("expectedStatus")));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    // Approve or reject several claims at once: {"ids": [..], "reason": ".."}
+    @PutMapping("/bulk/{decision:approve|reject}")
+    public ResponseEntity<?> decideClaims(@PathVariable String decision, @RequestBody Map<String, Object> request) {
+        if (!(request.get("ids") instanceof List<?> rawIds) || rawIds.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "ids is required"));
+        }
+        try {
+            List<Long> ids = rawIds.stream().map(id -> Long.valueOf(String.valueOf(id))).toList();
+            Object reason = request.get("reason");
+            Claim.ClaimStatus to = decision.equals("approve") ? Claim.ClaimStatus.APPROVED : Claim.ClaimStatus.REJECTED;
+            return ResponseEntity.ok(adminClaimsService.decideClaims(ids, to, reason != null ? reason.toString() : null));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "ids must be numeric"));
+        }
+    }
+
+    // Import claims from a CSV file (header row required); reports the outcome of every row
+    @PostMapping("/import")
+    public ResponseEntity<?> importClaims(@RequestParam("file") MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Import file is required"));
+        }
+        try (InputStream csv = file.getInputStream()) {
+            return ResponseEntity.ok(claimImportService.importCsv(csv, file.getOriginalFilename()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            System.err.println("❌ Error reading claim import: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to read import file: " + e.getMessage()));
+        }
+    }
+
     // Get claim statistics
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Long>> getClaimStatistics() {
@@ -128,10 +297,51 @@ public class AdminClaimsController {
         }
     }
 
-    // Get photos for claim
+    // Get photos for claim, with links to the original and (once generated) its thumbnail and preview
     @GetMapping("/{id}/photos")
-    public ResponseEntity<List<ClaimPhoto>> getClaimPhotos(@PathVariable Long id) {
-        List<ClaimPhoto> photos = adminClaimsService.getClaimPhotos(id);
+    public ResponseEntity<List<ClaimPhotoDTO>> getClaimPhotos(@PathVariable Long id) {
+        List<ClaimPhotoDTO> photos = claimPhotoService.getPhotos(id);
         return ResponseEntity.ok(photos);
     }
+
+    // Download a claim photo, its thumbnail or its preview (supports Range, ETag/If-None-Match)
+    @GetMapping("/{id}/photos/{photoId}/{variant:content|thumbnail|preview}")
+    public void downloadClaimPhoto(@PathVariable Long id, @PathVariable Long photoId, @PathVariable String variant,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredFile file;
+        try {
+            file = claimPhotoService.getPhotoFile(id, photoId, variant);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            return;
+        }
+        fileDownloadSupport.send(file, request, response);
+    }
+
+    // The status the admin saw when deciding; PENDING unless they are correcting an earlier decision
+    private Claim.ClaimStatus expectedStatus(Map<String, String> request) {
+        String value = request.get("expectedStatus");
+        return value != null && !value.isBlank() ? Claim.ClaimStatus.valueOf(value.trim().toUpperCase()) : Claim.ClaimStatus.PENDING;
+    }
+
+    private String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value.trim() : null;
+    }
+
+    private LocalDateTime parseFromDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.contains("T") ? LocalDateTime.parse(trimmed) : LocalDate.parse(trimmed).atStartOfDay();
+    }
+
+    // A bare date includes the whole day; a date-time is treated as an inclusive instant
+    private LocalDateTime parseToDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.contains("T") ? LocalDateTime.parse(trimmed).plusNanos(1) : LocalDate.parse(trimmed).plusDays(1).atStartOfDay();
+    }
 }
@@ -1,17 +1,43 @@
 package com.example.Insurance.controller;
 
+import com.example.Insurance.DTO.AdminPaymentDetailResponse;
+import com.example.Insurance.DTO.AdminPaymentResponse;
+import com.example.Insurance.DTO.BulkApprovalReport;
+import com.example.Insurance.DTO.PaymentSearchCriteria;
+import com.example.Insurance.DTO.PolicyArrearsDTO;
+import com.example.Insurance.DTO.ReconciliationReport;
+import com.example.Insurance.Enums.BulkApprovalOutcome;
+import com.example.Insurance.Enums.ExportFormat;
 import com.example.Insurance.entity.Payment;
 import com.example.Insurance.entity.Policy;
 import com.example.Insurance.repository.PaymentRepository;
+import com.example.Insurance.service.BankStatementReconciliationService;
+import com.example.Insurance.service.ExportService;
+import com.example.Insurance.service.PaymentBulkApprovalService;
+import com.example.Insurance.service.PaymentCoverageService;
 import com.example.Insurance.service.PaymentService;
+import com.example.Insurance.service.StatusConflictException;
+import com.example.Insurance.storage.FileDownloadSupport;
+import com.example.Insurance.storage.StoredFile;
 import com.example.Insurance.Enums.PaymentStatus;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin/payments")
@@ -24,6 +50,21 @@ public class AdminPaymentController {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private PaymentBulkApprovalService bulkApprovalService;
+
+    @Autowired
+    private FileDownloadSupport fileDownloadSupport;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private PaymentCoverageService paymentCoverageService;
+
+    @Autowired
+    private BankStatementReconciliationService reconciliationService;
+
     // Test connection
     @GetMapping("/test-connection")
     public ResponseEntity<String> testConnection() {
@@ -36,27 +77,16 @@ public class AdminPaymentController {
         try {
             System.out.println("=== AdminController: Getting all payments for admin dashboard ===");
 
-            List<Payment> allPayments = paymentRepository.findAll();
-
-            // Convert to admin-friendly format
-            List<Map<String, Object>> adminPayments = allPayments.stream()
-                    .map(this::convertToAdminPaymentDTO)
-                    .sorted((p1, p2) -> {
-                        // Sort by submitted date (newest first)
-                        LocalDateTime date1 = (LocalDateTime) p1.get("submittedDate");
-                        LocalDateTime date2 = (LocalDateTime) p2.get("submittedDate");
-                        if (date1 == null) return 1;
-                        if (date2 == null) return -1;
-                        return date2.compareTo(date1);
-                    })
-                    .collect(Collectors.toList());
+            // Already newest first from the database
+            List<Payment> allPayments = paymentRepository.findAllDetailedNewestFirst();
+            List<AdminPaymentResponse> adminPayments = toAdminResponses(allPayments);
 
             System.out.println("Admin dashboard returning " + adminPayments.size() + " payments");
 
             return ResponseEntity.ok(Map.of(
                     "totalPayments", allPayments.size(),
                     "payments", adminPayments,
-                    "stats", calculatePaymentStats(allPayments)
+                    "stats", paymentService.getPaymentStatistics()
             ));
 
         } catch (Exception e) {
@@ -85,15 +115,13 @@ public class AdminPaymentController {
             List<Payment> payments;
 
             if ("all".equalsIgnoreCase(status)) {
-                payments = paymentRepository.findAll();
+                payments = paymentRepository.findAllDetailedNewestFirst();
             } else {
                 PaymentStatus paymentStatus = PaymentStatus.valueOf(status.toUpperCase());
-                payments = paymentRepository.findByStatusOrderBySubmittedDateDesc(paymentStatus);
+                payments = paymentRepository.findDetailedByStatusNewestFirst(paymentStatus);
             }
 
-            List<Map<String, Object>> adminPayments = payments.stream()
-                    .map(this::convertToAdminPaymentDTO)
-                    .collect(Collectors.toList());
+            List<AdminPaymentResponse> adminPayments = toAdminResponses(payments);
 
             System.out.println("Found " + payments.size() + " payments with status: " + status);
 
@@ -114,17 +142,29 @@ public class AdminPaymentController {
         }
     }
 
+    // Export payments as CSV or NDJSON, streamed from the database (optionally gzip-encoded)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(@RequestParam(defaultValue = "csv") String format,
+                                                                @RequestParam(required = false) String status,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            ExportFormat exportFormat = ExportFormat.valueOf(format.trim().toUpperCase());
+            PaymentStatus paymentStatus = status != null && !status.isBlank() ? PaymentStatus.valueOf(status.trim().toUpperCase()) : null;
+            return exportService.exportPayments(paymentStatus, exportFormat, gzip);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Get pending payments
     @GetMapping("/pending")
     public ResponseEntity<?> getPendingPayments() {
         try {
             System.out.println("=== AdminController: Getting pending payments ===");
 
-            List<Payment> pendingPayments = paymentRepository.findByStatusOrderBySubmittedDateDesc(PaymentStatus.PENDING);
+            List<Payment> pendingPayments = paymentRepository.findDetailedByStatusNewestFirst(PaymentStatus.PENDING);
 
-            List<Map<String, Object>> adminPayments = pendingPayments.stream()
-                    .map(this::convertToAdminPaymentDTO)
-                    .collect(Collectors.toList());
+            List<AdminPaymentResponse> adminPayments = toAdminResponses(pendingPayments);
 
             System.out.println("Found " + pendingPayments.size() + " pending payments");
 
@@ -152,16 +192,22 @@ public class AdminPaymentController {
 
             String adminComments = request.getOrDefault("adminComments", "Payment approved by admin");
 
-            Payment approvedPayment = paymentService.approvePayment(paymentId, adminComments);
+            Payment approvedPayment = paymentService.approvePayment(paymentId, adminComments, expectedStatus(request));
 
             System.out.println("✅ Payment " + paymentId + " approved successfully");
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Payment approved successfully",
-                    "payment", convertToAdminPaymentDTO(approvedPayment)
+                    "payment", toAdminResponse(approvedPayment)
             ));
 
+        } catch (StatusConflictException e) {
+            System.err.println("❌ Conflicting decision for payment " + paymentId + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
         } catch (Exception e) {
             System.err.println("❌ Error approving payment " + paymentId + ": " + e.getMessage());
             e.printStackTrace();
@@ -186,16 +232,22 @@ public class AdminPaymentController {
                 ));
             }
 
-            Payment rejectedPayment = paymentService.rejectPayment(paymentId, adminComments);
+            Payment rejectedPayment = paymentService.rejectPayment(paymentId, adminComments, expectedStatus(request));
 
             System.out.println("❌ Payment " + paymentId + " rejected successfully");
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Payment rejected successfully",
-                    "payment", convertToAdminPaymentDTO(rejectedPayment)
+                    "payment", toAdminResponse(rejectedPayment)
             ));
 
+        } catch (StatusConflictException e) {
+            System.err.println("❌ Conflicting decision for payment " + paymentId + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
         } catch (Exception e) {
             System.err.println("❌ Error rejecting payment " + paymentId + ": " + e.getMessage());
             e.printStackTrace();
@@ -206,6 +258,20 @@ public class AdminPaymentController {
         }
     }
 
+    // Download the bank slip image (supports Range, ETag/If-None-Match)
+    @GetMapping("/{paymentId}/bank-slip")
+    public void downloadBankSlip(@PathVariable Long paymentId, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        StoredFile file;
+        try {
+            file = paymentService.getBankSlipFile(paymentId);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            return;
+        }
+        fileDownloadSupport.send(file, request, response);
+    }
+
     // Get payment details for admin
     @GetMapping("/{paymentId}")
     public ResponseEntity<?> getPaymentDetails(@PathVariable Long paymentId) {
@@ -213,12 +279,9 @@ public class AdminPaymentController {
             System.out.println("=== AdminController: Getting payment details for " + paymentId + " ===");
 
             Payment payment = paymentService.getPaymentById(paymentId);
-            Map<String, Object> detailedPayment = convertToAdminPaymentDTO(payment);
-
-            // Add additional admin-specific details
-            detailedPayment.put("canApprove", payment.getStatus() == PaymentStatus.PENDING);
-            detailedPayment.put("canReject", payment.getStatus() == PaymentStatus.PENDING);
-            detailedPayment.put("isExpired", !paymentService.canEditPayment(payment));
+            boolean pending = payment.getStatus() == PaymentStatus.PENDING;
+            AdminPaymentDetailResponse detailedPayment = new AdminPaymentDetailResponse(
+                    toAdminResponse(payment), pending, pending, !paymentService.canEditPayment(payment));
 
             System.out.println("✅ Payment details retrieved for " + paymentId);
 
@@ -251,7 +314,7 @@ public class AdminPaymentController {
 
             switch (status.toUpperCase()) {
                 case "APPROVED":
-                    updatedPayment = paymentService.approvePayment(paymentId, adminComments);
+                    updatedPayment = paymentService.approvePayment(paymentId, adminComments, expectedStatus(request));
                     break;
                 case "REJECTED":
                     if (adminComments == null || adminComments.trim().isEmpty()) {
@@ -260,7 +323,7 @@ public class AdminPaymentController {
                                 "error", "Admin comments are required for rejection"
                         ));
                     }
-                    updatedPayment = paymentService.rejectPayment(paymentId, adminComments);
+                    updatedPayment = paymentService.rejectPayment(paymentId, adminComments, expectedStatus(request));
                     break;
                 default:
                     return ResponseEntity.badRequest().body(Map.of(
@@ -274,9 +337,15 @@ public class AdminPaymentController {
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Payment status updated successfully",
-                    "payment", convertToAdminPaymentDTO(updatedPayment)
+                    "payment", toAdminResponse(updatedPayment)
             ));
 
+        } catch (StatusConflictException e) {
+            System.err.println("❌ Conflicting decision for payment " + paymentId + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
         } catch (Exception e) {
             System.err.println("❌ Error updating payment status for " + paymentId + ": " + e.getMessage());
             e.printStackTrace();
@@ -293,8 +362,7 @@ public class AdminPaymentController {
         try {
             System.out.println("=== AdminController: Getting payment statistics ===");
 
-            List<Payment> allPayments = paymentRepository.findAll();
-            Map<String, Object> stats = calculatePaymentStats(allPayments);
+            Map<String, Object> stats = paymentService.getPaymentStatistics();
 
             System.out.println("✅ Payment statistics calculated");
 
@@ -313,44 +381,93 @@ public class AdminPaymentController {
         }
     }
 
-    // Bulk approve payments
+    // Payment lookup cache counters (hits, misses, evictions, size)
+    @GetMapping("/cache-stats")
+    public ResponseEntity<?> getPaymentCacheStats() {
+        return ResponseEntity.ok(paymentService.getPaymentCacheStats());
+    }
+
+    // Policies with unpaid months that have ended, answered from the coverage masks (default: current year, today)
+    @GetMapping("/arrears")
+    public ResponseEntity<?> getArrears(@RequestParam(required = false) Integer year,
+                                        @RequestParam(required = false) String asOf) {
+        try {
+            LocalDate asOfDate = asOf != null && !asOf.isBlank() ? LocalDate.parse(asOf.trim()) : LocalDate.now();
+            int coverageYear = year != null ? year : asOfDate.getYear();
+            List<PolicyArrearsDTO> arrears = paymentCoverageService.findArrears(coverageYear, asOfDate);
+            return ResponseEntity.ok(Map.of(
+                    "year", coverageYear,
+                    "asOf", asOfDate.toString(),
+                    "policies", arrears,
+                    "count", arrears.size()
+            ));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "asOf must be a date (yyyy-MM-dd)"));
+        }
+    }
+
+    // Online payment gateway health: circuit breaker state and executor load
+    @GetMapping("/gateway-status")
+    public ResponseEntity<?> getGatewayStatus() {
+        return ResponseEntity.ok(paymentService.getGatewayStatus());
+    }
+
+    // Bulk approve payments - set-based, chunked conditional updates with a per-ID outcome.
+    // Large requests are queued as a background job (202 + jobId, poll /bulk/approve/{jobId}).
     @PostMapping("/bulk/approve")
     public ResponseEntity<?> bulkApprovePayments(@RequestBody Map<String, Object> request) {
         try {
-            System.out.println("=== AdminController: Bulk approving payments ===");
-
-            @SuppressWarnings("unchecked")
-            List<Long> paymentIds = (List<Long>) request.get("paymentIds");
+            Object rawIds = request.get("paymentIds");
             String adminComments = (String) request.getOrDefault("adminComments", "Bulk approved by admin");
 
-            if (paymentIds == null || paymentIds.isEmpty()) {
+            if (!(rawIds instanceof List) || ((List<?>) rawIds).isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of(
                         "success", false,
                         "error", "Payment IDs are required"
                 ));
             }
 
-            List<Map<String, Object>> approvedPayments = new ArrayList<>();
-            List<String> errors = new ArrayList<>();
+            List<Long> paymentIds = new ArrayList<>();
+            for (Object id : (List<?>) rawIds) {
+                paymentIds.add(id instanceof Number ? ((Number) id).longValue() : Long.valueOf(id.toString()));
+            }
 
-            for (Long paymentId : paymentIds) {
-                try {
-                    Payment approved = paymentService.approvePayment(paymentId, adminComments);
-                    approvedPayments.add(convertToAdminPaymentDTO(approved));
-                } catch (Exception e) {
-                    errors.add("Payment " + paymentId + ": " + e.getMessage());
-                }
+            if (bulkApprovalService.shouldRunInBackground(paymentIds)) {
+                String jobId = bulkApprovalService.submit(paymentIds, adminComments);
+                return ResponseEntity.accepted().body(Map.of(
+                        "success", true,
+                        "jobId", jobId,
+                        "progressUrl", "/api/admin/payments/bulk/approve/" + jobId
+                ));
             }
 
-            System.out.println("✅ Bulk approval completed: " + approvedPayments.size() + " approved, " + errors.size() + " errors");
+            BulkApprovalReport report = bulkApprovalService.approve(paymentIds, adminComments);
+
+            List<String> errors = new ArrayList<>();
+            report.getOutcomes().forEach((id, outcome) -> {
+                if (outcome == BulkApprovalOutcome.NOT_FOUND) {
+                    errors.add("Payment " + id + ": not found");
+                } else if (outcome == BulkApprovalOutcome.ALREADY_PROCESSED) {
+                    errors.add("Payment " + id + ": already processed");
+                }
+            });
+
+            System.out.println("✅ Bulk approval completed: " + report.getApprovedCount() + " approved, " + errors.size() + " skipped");
 
             return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "approvedCount", approvedPayments.size(),
-                    "approvedPayments", approvedPayments,
-                    "errors", errors
+                    "success", !"FAILED".equals(report.getState()),
+                    "approvedCount", report.getApprovedCount(),
+                    "alreadyProcessedCount", report.getAlreadyProcessedCount(),
+                    "notFoundCount", report.getNotFoundCount(),
+                    "outcomes", report.getOutcomes(),
+                    "errors", report.getError() != null ? List.of(report.getError()) : errors
             ));
 
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
         } catch (Exception e) {
             System.err.println("❌ Error in bulk approval: " + e.getMessage());
             e.printStackTrace();
@@ -361,7 +478,56 @@ public class AdminPaymentController {
         }
     }
 
-    // Search payments
+    // Reconcile an uploaded bank statement (CSV) against pending bank-slip payments.
+    // Exact matches are reported, and approved through bulk approval when approve=true.
+    @PostMapping("/reconciliation")
+    public ResponseEntity<?> reconcileBankStatement(@RequestParam("file") MultipartFile file,
+                                                    @RequestParam(defaultValue = "false") boolean approve,
+                                                    @RequestParam(required = false) String adminComments) {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", "Statement file is required"));
+        }
+        Path statement = null;
+        try {
+            statement = Files.createTempFile("bank-statement-", ".csv");
+            file.transferTo(statement);
+            String comments = adminComments != null && !adminComments.isBlank() ? adminComments
+                    : "Matched to bank statement " + (file.getOriginalFilename() != null ? file.getOriginalFilename() : "");
+            ReconciliationReport report = reconciliationService.reconcile(statement, approve, comments.trim());
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
+        } catch (IOException e) {
+            System.err.println("❌ Error reading bank statement: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "success", false,
+                    "error", "Failed to read bank statement: " + e.getMessage()
+            ));
+        } finally {
+            if (statement != null) {
+                try {
+                    Files.deleteIfExists(statement);
+                } catch (IOException e) {
+                    // Still memory-mapped on some platforms until the buffer is collected
+                    statement.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    // Progress of a background bulk approval job
+    @GetMapping("/bulk/approve/{jobId}")
+    public ResponseEntity<?> getBulkApprovalProgress(@PathVariable String jobId) {
+        return bulkApprovalService.getJob(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                        "success", false,
+                        "error", "Bulk approval job " + jobId + " not found or expired"
+                )));
+    }
+
+    // Search payments - filters run in the database; fromDate/toDate are inclusive ISO dates
+    // (yyyy-MM-dd) or date-times. totalCount is only computed when includeCount=true.
     @GetMapping("/search")
     public ResponseEntity<?> searchPayments(
             @RequestParam(required = false) String userId,
@@ -369,59 +535,43 @@ public class AdminPaymentController {
             @RequestParam(required = false) String month,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String fromDate,
-            @RequestParam(required = false) String toDate
+            @RequestParam(required = false) String toDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean includeCount
     ) {
+        PaymentSearchCriteria criteria;
         try {
-            System.out.println("=== AdminController: Searching payments ===");
-
-            List<Payment> allPayments = paymentRepository.findAll();
-
-            // Apply filters
-            List<Payment> filteredPayments = allPayments.stream()
-                    .filter(payment -> {
-                        // User ID filter
-                        if (userId != null && !userId.isEmpty()) {
-                            if (!payment.getUserId().toString().contains(userId)) {
-                                return false;
-                            }
-                        }
-
-                        // Policy ID filter
-                        if (policyId != null && !policyId.isEmpty()) {
-                            if (payment.getPolicy() == null || !payment.getPolicy().getId().toString().contains(policyId)) {
-                                return false;
-                            }
-                        }
-
-                        // Month filter
-                        if (month != null && !month.isEmpty()) {
-                            if (!payment.getPaymentMonth().toLowerCase().contains(month.toLowerCase())) {
-                                return false;
-                            }
-                        }
-
-                        // Status filter
-                        if (status != null && !status.isEmpty()) {
-                            if (!payment.getStatus().toString().equalsIgnoreCase(status)) {
-                                return false;
-                            }
-                        }
-
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-
-            List<Map<String, Object>> searchResults = filteredPayments.stream()
-                    .map(this::convertToAdminPaymentDTO)
-                    .collect(Collectors.toList());
-
-            System.out.println("✅ Search completed: " + searchResults.size() + " results found");
-
-            return ResponseEntity.ok(Map.of(
-                    "payments", searchResults,
-                    "count", searchResults.size(),
-                    "totalCount", allPayments.size()
+            criteria = new PaymentSearchCriteria();
+            criteria.setUserId(parseId(userId));
+            criteria.setPolicyId(parseId(policyId));
+            criteria.setPaymentMonth(normalizeMonth(month));
+            criteria.setStatus(status != null && !status.isBlank() ? PaymentStatus.valueOf(status.trim().toUpperCase()) : null);
+            criteria.setSubmittedFrom(parseFromDate(fromDate));
+            criteria.setSubmittedTo(parseToDate(toDate));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "payments", Collections.emptyList(),
+                    "count", 0,
+                    "error", "Invalid search filter: " + e.getMessage()
             ));
+        }
+
+        try {
+            Slice<Payment> results = paymentService.searchPayments(criteria, page, size, includeCount);
+
+            List<AdminPaymentResponse> searchResults = toAdminResponses(results.getContent());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("payments", searchResults);
+            response.put("count", searchResults.size());
+            response.put("page", results.getNumber());
+            response.put("size", results.getSize());
+            response.put("hasMore", results.hasNext());
+            if (results instanceof Page) {
+                response.put("totalCount", ((Page<?>) results).getTotalElements());
+            }
+            return ResponseEntity.ok(response);
 
         } catch (Exception e) {
             System.err.println("❌ Error searching payments: " + e.getMessage());
@@ -434,113 +584,52 @@ public class AdminPaymentController {
         }
     }
 
-    // Helper method to convert Payment to admin-friendly DTO
-    private Map<String, Object> convertToAdminPaymentDTO(Payment payment) {
-        Map<String, Object> dto = new HashMap<>();
-
-        try {
-            dto.put("paymentId", payment.getPaymentId());
-            dto.put("userId", payment.getUserId());
-            dto.put("userName", payment.getUserName());
-            dto.put("userEmail", payment.getUserEmail());
-
-            // Policy information
-            if (payment.getPolicy() != null) {
-                Map<String, Object> policyInfo = new HashMap<>();
-                policyInfo.put("id", payment.getPolicy().getId());
-                policyInfo.put("policyNumber", "POL-" + payment.getPolicy().getId());
-                policyInfo.put("name", payment.getPolicy().getName());
-                policyInfo.put("vehicleType", payment.getPolicy().getVehicleType());
-                dto.put("policy", policyInfo);
-            } else {
-                dto.put("policy", null);
-            }
-
-            dto.put("paymentMonth", payment.getPaymentMonth());
-            dto.put("amount", payment.getAmount());
-            dto.put("paymentMethod", payment.getPaymentMethod());
-            dto.put("status", payment.getStatus());
-            dto.put("submittedDate", payment.getSubmittedDate());
-            dto.put("approvedDate", payment.getApprovedDate());
-            dto.put("expiryTime", payment.getExpiryTime());
-            dto.put("adminComments", payment.getAdminComments());
-
-            // Bank slip details
-            if (payment.getBankSlipDetails() != null) {
-                Map<String, Object> bankSlip = new HashMap<>();
-                bankSlip.put("bankName", payment.getBankSlipDetails().getBankName());
-                bankSlip.put("branch", payment.getBankSlipDetails().getBranch());
-                bankSlip.put("depositDate", payment.getBankSlipDetails().getDepositDate());
-                bankSlip.put("referenceNumber", payment.getBankSlipDetails().getReferenceNumber());
-                bankSlip.put("depositorName", payment.getBankSlipDetails().getDepositorName());
-                dto.put("bankSlipDetails", bankSlip);
-            }
-
-            // Online payment details
-            if (payment.getOnlinePaymentDetails() != null) {
-                Map<String, Object> onlinePayment = new HashMap<>();
-                onlinePayment.put("cardholderName", payment.getOnlinePaymentDetails().getCardholderName());
-                onlinePayment.put("cardNumber", "****" + payment.getOnlinePaymentDetails().getCardNumber().substring(Math.max(0, payment.getOnlinePaymentDetails().getCardNumber().length() - 4)));
-                onlinePayment.put("transactionId", payment.getOnlinePaymentDetails().getTransactionId());
-                onlinePayment.put("paymentSuccessful", payment.getOnlinePaymentDetails().getPaymentSuccessful());
-                dto.put("onlinePaymentDetails", onlinePayment);
-            }
+    // The status the admin saw when deciding; PENDING unless they are correcting an earlier decision
+    private PaymentStatus expectedStatus(Map<String, String> request) {
+        String value = request.get("expectedStatus");
+        return value != null && !value.isBlank() ? PaymentStatus.valueOf(value.trim().toUpperCase()) : PaymentStatus.PENDING;
+    }
 
-            // Admin-specific flags
-            dto.put("canEdit", paymentService.canEditPayment(payment));
-            dto.put("isPending", payment.getStatus() == PaymentStatus.PENDING);
-            dto.put("timeRemaining", paymentService.canEditPayment(payment) ? calculateTimeRemaining(payment.getExpiryTime()) : "Expired");
+    private Long parseId(String value) {
+        return value != null && !value.isBlank() ? Long.valueOf(value.trim()) : null;
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error converting payment to admin DTO: " + e.getMessage());
-            dto.put("error", "Error processing payment data");
+    // Months are stored capitalised ("January") - normalise so the filter is a plain equality
+    private String normalizeMonth(String month) {
+        if (month == null || month.isBlank()) {
+            return null;
         }
-
-        return dto;
+        String trimmed = month.trim().toLowerCase();
+        return Character.toUpperCase(trimmed.charAt(0)) + trimmed.substring(1);
     }
 
-    // Helper method to calculate payment statistics
-    private Map<String, Object> calculatePaymentStats(List<Payment> payments) {
-        Map<String, Object> stats = new HashMap<>();
-
-        long pending = payments.stream().filter(p -> p.getStatus() == PaymentStatus.PENDING).count();
-        long approved = payments.stream().filter(p -> p.getStatus() == PaymentStatus.APPROVED).count();
-        long rejected = payments.stream().filter(p -> p.getStatus() == PaymentStatus.REJECTED).count();
-
-        stats.put("pending", pending);
-        stats.put("approved", approved);
-        stats.put("rejected", rejected);
-        stats.put("total", payments.size());
-
-        // Calculate total amount by status
-        double totalPendingAmount = payments.stream()
-                .filter(p -> p.getStatus() == PaymentStatus.PENDING)
-                .mapToDouble(p -> p.getAmount().doubleValue())
-                .sum();
-
-        double totalApprovedAmount = payments.stream()
-                .filter(p -> p.getStatus() == PaymentStatus.APPROVED)
-                .mapToDouble(p -> p.getAmount().doubleValue())
-                .sum();
-
-        stats.put("totalPendingAmount", totalPendingAmount);
-        stats.put("totalApprovedAmount", totalApprovedAmount);
+    private LocalDateTime parseFromDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.contains("T") ? LocalDateTime.parse(trimmed) : LocalDate.parse(trimmed).atStartOfDay();
+    }
 
-        return stats;
+    // A bare date includes the whole day; a date-time is treated as an inclusive instant
+    private LocalDateTime parseToDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.contains("T") ? LocalDateTime.parse(trimmed).plusNanos(1) : LocalDate.parse(trimmed).plusDays(1).atStartOfDay();
     }
 
-    // Helper method to calculate time remaining
-    private String calculateTimeRemaining(LocalDateTime expiryTime) {
-        if (expiryTime == null) return "N/A";
+    private AdminPaymentResponse toAdminResponse(Payment payment) {
+        return AdminPaymentResponse.from(payment, paymentService.canEditPayment(payment), LocalDateTime.now());
+    }
 
+    private List<AdminPaymentResponse> toAdminResponses(List<Payment> payments) {
         LocalDateTime now = LocalDateTime.now();
-        if (now.isAfter(expiryTime)) return "Expired";
-
-        java.time.Duration duration = java.time.Duration.between(now, expiryTime);
-        long hours = duration.toHours();
-        long minutes = duration.toMinutesPart();
-        long seconds = duration.toSecondsPart();
-
-        return String.format("%02d:%02d:%02d", hours, minutes, seconds);
+        List<AdminPaymentResponse> responses = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            responses.add(AdminPaymentResponse.from(payment, paymentService.canEditPayment(payment), now));
+        }
+        return responses;
     }
 }
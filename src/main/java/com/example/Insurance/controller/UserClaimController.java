@@ -2,15 +2,29 @@
 package com.example.Insurance.controller;
 
 import com.example.Insurance.DTO.ClaimDTO;
+import com.example.Insurance.DTO.ClaimPhotoDTO;
 import com.example.Insurance.entity.Claim;
 import com.example.Insurance.entity.ClaimForm;
 import com.example.Insurance.entity.UserClaimNotification;
 import com.example.Insurance.service.UserClaimService;
 import com.example.Insurance.service.ClaimFormService;
+import com.example.Insurance.service.IdempotencyService;
+import com.example.Insurance.service.ClaimNotFoundException;
+import com.example.Insurance.service.ClaimPhotoService;
+import com.example.Insurance.storage.FileDownloadSupport;
+import com.example.Insurance.storage.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -19,12 +33,26 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class UserClaimController {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserClaimController.class);
+
     @Autowired
     private UserClaimService userClaimService;
 
     @Autowired
     private ClaimFormService claimFormService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClaimPhotoService claimPhotoService;
+
+    @Autowired
+    private FileDownloadSupport fileDownloadSupport;
+
     // Get ONLY ACTIVE claim forms for users (real-time sync with admin)
     @GetMapping("/forms")
     public ResponseEntity<List<ClaimForm>> getAvailableClaimForms() {
@@ -69,34 +97,45 @@ public class UserClaimController {
 
     // Submit new claim - FIXED with better validation
     @PostMapping("/submit")
-    public ResponseEntity<?> submitUserClaim(@RequestBody ClaimDTO claimDTO) {
+    public ResponseEntity<?> submitUserClaim(@RequestBody byte[] body,
+                                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        ClaimDTO claimDTO;
         try {
-            System.out.println("📝 Received user claim submission for: " + claimDTO.getFullName());
+            claimDTO = objectMapper.readValue(body, ClaimDTO.class);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Malformed claim request: " + e.getMessage()));
+        }
+        // Retries carrying the same Idempotency-Key get the original response instead of a new claim;
+        // the raw body is what the key is matched against
+        return idempotencyService.execute("claims", idempotencyKey, body, () -> {
+            try {
+                System.out.println("📝 Received user claim submission for: " + claimDTO.getFullName());
 
-            // Enhanced validation
-            if (claimDTO.getFullName() == null || claimDTO.getFullName().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Full name is required"));
-            }
-            if (claimDTO.getEmail() == null || claimDTO.getEmail().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Email is required"));
-            }
-            if (claimDTO.getNic() == null || claimDTO.getNic().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "NIC is required"));
-            }
-            if (claimDTO.getPhone() == null || claimDTO.getPhone().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Phone is required"));
-            }
+                // Enhanced validation
+                if (claimDTO.getFullName() == null || claimDTO.getFullName().trim().isEmpty()) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Full name is required"));
+                }
+                if (claimDTO.getEmail() == null || claimDTO.getEmail().trim().isEmpty()) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Email is required"));
+                }
+                if (claimDTO.getNic() == null || claimDTO.getNic().trim().isEmpty()) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "NIC is required"));
+                }
+                if (claimDTO.getPhone() == null || claimDTO.getPhone().trim().isEmpty()) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Phone is required"));
+                }
 
-            ClaimDTO submittedClaim = userClaimService.submitClaim(claimDTO);
-            System.out.println("✅ Claim submitted successfully: " + submittedClaim.getClaimNumber());
-            return ResponseEntity.ok(submittedClaim);
-        } catch (Exception e) {
-            System.err.println("❌ Error submitting user claim: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.badRequest().body(Map.of(
-                    "error", "Failed to submit claim: " + e.getMessage()
-            ));
-        }
+                ClaimDTO submittedClaim = userClaimService.submitClaim(claimDTO);
+                System.out.println("✅ Claim submitted successfully: " + submittedClaim.getClaimNumber());
+                return ResponseEntity.ok(submittedClaim);
+            } catch (Exception e) {
+                System.err.println("❌ Error submitting user claim: " + e.getMessage());
+                e.printStackTrace();
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "Failed to submit claim: " + e.getMessage()
+                ));
+            }
+        });
     }
 
     // Get user claims by NIC
@@ -166,4 +205,54 @@ public class UserClaimController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+
+    // Upload photos of a pending claim (JPEG, PNG, GIF, WebP or HEIC; checked by content, not extension)
+    @PostMapping("/{id}/photos")
+    public ResponseEntity<?> uploadClaimPhotos(@PathVariable Long id,
+                                               @RequestParam String nic,
+                                               @RequestParam("files") List<MultipartFile> files,
+                                               @RequestParam(required = false) String description) {
+        try {
+            List<ClaimPhotoDTO> photos = claimPhotoService.upload(id, nic, files, description);
+            logger.info("Uploaded {} photo(s) for claim {}", photos.size(), id);
+            return ResponseEntity.status(HttpStatus.CREATED).body(photos);
+        } catch (ClaimNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Error storing photos for claim {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Could not store photos"));
+        } catch (Exception e) {
+            logger.error("Error uploading photos for claim {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Could not upload photos"));
+        }
+    }
+
+    // Get photos of one of the user's claims
+    @GetMapping("/{id}/photos")
+    public ResponseEntity<?> getClaimPhotos(@PathVariable Long id, @RequestParam String nic) {
+        try {
+            return ResponseEntity.ok(claimPhotoService.getPhotosForOwner(id, nic));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Download one of the user's claim photos, its thumbnail or its preview
+    @GetMapping("/{id}/photos/{photoId}/{variant:content|thumbnail|preview}")
+    public void downloadClaimPhoto(@PathVariable Long id, @PathVariable Long photoId, @PathVariable String variant,
+                                   @RequestParam String nic,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredFile file;
+        try {
+            file = claimPhotoService.getPhotoFileForOwner(id, nic, photoId, variant);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            return;
+        }
+        fileDownloadSupport.send(file, request, response);
+    }
 }
@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+// Notification ids are inbox item ids: negative for broadcasts (see UserNotificationService)
 @RestController
 @RequestMapping("/api/user/notifications")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
@@ -142,7 +143,7 @@ public class UserNotificationController {
     public ResponseEntity<ApiResponse<UserNotificationDTO>> getNotificationById(
             @PathVariable Long id, @PathVariable Long userId) {
         try {
-            if (id == null || id <= 0 || userId == null || userId <= 0) {
+            if (id == null || id == 0 || userId == null || userId <= 0) {
                 return ResponseEntity.badRequest()
                         .body(new ApiResponse<>(false, "Invalid notification or user ID", null));
             }
@@ -165,7 +166,7 @@ public class UserNotificationController {
     @PutMapping("/{id}/user/{userId}/read")
     public ResponseEntity<ApiResponse<String>> markAsRead(@PathVariable Long id, @PathVariable Long userId) {
         try {
-            if (id == null || id <= 0 || userId == null || userId <= 0) {
+            if (id == null || id == 0 || userId == null || userId <= 0) {
                 return ResponseEntity.badRequest()
                         .body(new ApiResponse<>(false, "Invalid notification or user ID", null));
             }
@@ -188,7 +189,7 @@ public class UserNotificationController {
     @PutMapping("/{id}/user/{userId}/unread")
     public ResponseEntity<ApiResponse<String>> markAsUnread(@PathVariable Long id, @PathVariable Long userId) {
         try {
-            if (id == null || id <= 0 || userId == null || userId <= 0) {
+            if (id == null || id == 0 || userId == null || userId <= 0) {
                 return ResponseEntity.badRequest()
                         .body(new ApiResponse<>(false, "Invalid notification or user ID", null));
             }
@@ -234,7 +235,7 @@ public class UserNotificationController {
     @DeleteMapping("/{id}/user/{userId}")
     public ResponseEntity<ApiResponse<String>> deleteNotification(@PathVariable Long id, @PathVariable Long userId) {
         try {
-            if (id == null || id <= 0 || userId == null || userId <= 0) {
+            if (id == null || id == 0 || userId == null || userId <= 0) {
                 return ResponseEntity.badRequest()
                         .body(new ApiResponse<>(false, "Invalid notification or user ID", null));
             }
@@ -280,7 +281,7 @@ public class UserNotificationController {
     @PutMapping("/{id}/user/{userId}/archive")
     public ResponseEntity<ApiResponse<String>> archiveNotification(@PathVariable Long id, @PathVariable Long userId) {
         try {
-            if (id == null || id <= 0 || userId == null || userId <= 0) {
+            if (id == null || id == 0 || userId == null || userId <= 0) {
                 return ResponseEntity.badRequest()
                         .body(new ApiResponse<>(false, "Invalid notification or user ID", null));
             }
@@ -4,11 +4,15 @@ import com.example.Insurance.entity.Payment;
 import com.example.Insurance.entity.Policy;
 import com.example.Insurance.repository.PaymentRepository;
 import com.example.Insurance.repository.PolicyRepository;
+import com.example.Insurance.DTO.PaymentHistoryPage;
 import com.example.Insurance.DTO.UserPolicyPaymentDTO;
 import com.example.Insurance.DTO.PaymentUpdateDTO; // Added
+import com.example.Insurance.DTO.UserPaymentResponse;
 import com.example.Insurance.service.PaymentService;
 import com.example.Insurance.Enums.PolicyStatus;
 import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,7 +22,6 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -29,9 +32,17 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class UserPaymentController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
     private PolicyRepository policyRepository;
 
@@ -70,13 +81,15 @@ public class UserPaymentController {
         }
     }
 
-    // FIXED - Get user's approved policies with payment information
+    // FIXED - Get user's approved policies with payment information (paid/pending/overdue months of the given year, default current)
     @GetMapping("/policies/{userId}")
-    public ResponseEntity<?> getUserPolicies(@PathVariable Long userId) {
+    public ResponseEntity<?> getUserPolicies(@PathVariable Long userId, @RequestParam(required = false) Integer year) {
         try {
             System.out.println("=== Controller: getUserPolicies called for user " + userId + " ===");
 
-            List<UserPolicyPaymentDTO> policies = paymentService.getUserPoliciesWithPayments(userId);
+            List<UserPolicyPaymentDTO> policies = year != null
+                    ? paymentService.getUserPoliciesWithPayments(userId, year)
+                    : paymentService.getUserPoliciesWithPayments(userId);
 
             System.out.println("=== Controller: Returning " + policies.size() + " policies ===");
             return ResponseEntity.ok(policies);
@@ -87,97 +100,63 @@ public class UserPaymentController {
         }
     }
 
+    // Keyset-paginated history. The body stays a plain array; when more rows exist the
+    // cursor for the next page is returned in the X-Next-Cursor header.
     @GetMapping("/history/{userId}")
-    public ResponseEntity<?> getPaymentHistory(@PathVariable Long userId) {
-        System.out.println("=== Controller: Getting history for user " + userId + " ===");
-
-        try {
-            List<Payment> payments = paymentService.getPaymentHistory(userId);
-            System.out.println("Found " + payments.size() + " payments");
-
-            List<Map<String, Object>> simplePayments = new ArrayList<>();
-            for (Payment p : payments) {
-                try {
-                    Map<String, Object> simple = convertPaymentToMap(p);
-                    simplePayments.add(simple);
-                } catch (Exception e) {
-                    System.err.println("Error processing payment " + p.getPaymentId() + ": " + e.getMessage());
-                }
-            }
-
-            return ResponseEntity.ok(simplePayments);
-        } catch (Exception e) {
-            System.err.println("Controller error in getPaymentHistory: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.ok(new ArrayList<>());
-        }
+    public ResponseEntity<?> getPaymentHistory(@PathVariable Long userId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "" + PaymentService.DEFAULT_HISTORY_PAGE_SIZE) int limit) {
+        return paymentPageResponse(userId, null, cursor, limit);
     }
 
+    // Retries carrying the same Idempotency-Key get the original response instead of a new payment.
+    // The body is taken raw so the key is matched against exactly what the client sent.
     @PostMapping
-    public ResponseEntity<?> submitPayment(@RequestBody Payment payment) {
+    public ResponseEntity<?> submitPayment(@RequestBody byte[] body,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        Payment payment;
         try {
-            System.out.println("=== Controller: submitPayment called ===");
-            Payment savedPayment = paymentService.createPayment(payment);
-            System.out.println("Payment created with ID: " + savedPayment.getPaymentId());
-            return ResponseEntity.ok(convertPaymentToMap(savedPayment));
-        } catch (Exception e) {
-            System.err.println("Controller error in submitPayment: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", "Failed to create payment: " + e.getMessage()));
+            payment = objectMapper.readValue(body, Payment.class);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Malformed payment request: " + e.getMessage()));
         }
+        return idempotencyService.execute("payments", idempotencyKey, body, () -> {
+            try {
+                System.out.println("=== Controller: submitPayment called ===");
+                Payment savedPayment = paymentService.createPayment(payment);
+                System.out.println("Payment created with ID: " + savedPayment.getPaymentId());
+                return ResponseEntity.ok(UserPaymentResponse.from(savedPayment));
+            } catch (Exception e) {
+                System.err.println("Controller error in submitPayment: " + e.getMessage());
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "Failed to create payment: " + e.getMessage()));
+            }
+        });
     }
 
+
     // CRITICAL FIX - Enhanced getPayment endpoint with proper error handling
     @GetMapping("/{paymentId}")
     public ResponseEntity<?> getPayment(@PathVariable Long paymentId) {
         System.out.println("=== Controller: getPayment called for ID " + paymentId + " ===");
 
         try {
-            // Direct repository check first
-            Optional<Payment> paymentOptional = paymentRepository.findById(paymentId);
+            // Primary-key lookup through the payment cache
+            Optional<Payment> paymentOptional = paymentService.findPaymentById(paymentId);
             if (!paymentOptional.isPresent()) {
                 System.err.println("❌ Payment " + paymentId + " not found in database");
-
-                List<Payment> allPayments = paymentRepository.findAll();
-                List<Long> availableIds = allPayments.stream()
-                        .map(Payment::getPaymentId)
-                        .collect(Collectors.toList());
-
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
                         "success", false,
-                        "error", "Payment with ID " + paymentId + " not found",
-                        "availablePaymentIds", availableIds,
-                        "totalPayments", availableIds.size()
+                        "error", "Payment with ID " + paymentId + " not found"
                 ));
             }
 
             Payment payment = paymentOptional.get();
-
-            // Safe conversion to map
-            Map<String, Object> paymentMap;
-            try {
-                paymentMap = convertPaymentToMap(payment);
-            } catch (Exception e) {
-                System.err.println("Error converting payment to map: " + e.getMessage());
-                paymentMap = new HashMap<>();
-                paymentMap.put("paymentId", payment.getPaymentId());
-                paymentMap.put("error", "Partial data due to serialization issue");
-                paymentMap.put("paymentMonth", payment.getPaymentMonth());
-                paymentMap.put("amount", payment.getAmount());
-                paymentMap.put("status", payment.getStatus().toString());
-            }
-
-            // Add canEdit flag
-            try {
-                paymentMap.put("canEdit", paymentService.canEditPayment(payment));
-            } catch (Exception e) {
-                System.err.println("Error checking canEdit: " + e.getMessage());
-                paymentMap.put("canEdit", false);
-            }
+            UserPaymentResponse response = UserPaymentResponse.from(payment).withCanEdit(paymentService.canEditPayment(payment));
 
             System.out.println("✅ Payment found: " + paymentId + ", Status: " + payment.getStatus());
-            return ResponseEntity.ok(paymentMap);
+            return ResponseEntity.ok(response);
 
         } catch (Exception e) {
             System.err.println("=== CRITICAL ERROR in getPayment: " + e.getMessage());
@@ -197,7 +176,7 @@ public class UserPaymentController {
             System.out.println("=== Controller: updatePayment called for ID " + paymentId + " ===");
             Payment updatedPayment = paymentService.updatePayment(paymentId, paymentDTO);
             System.out.println("✅ Controller: Payment " + paymentId + " updated successfully");
-            return ResponseEntity.ok(convertPaymentToMap(updatedPayment));
+            return ResponseEntity.ok(UserPaymentResponse.from(updatedPayment));
         } catch (Exception e) {
             System.err.println("Controller error in updatePayment: " + e.getMessage());
             e.printStackTrace();
@@ -251,135 +230,43 @@ public class UserPaymentController {
     }
 
     @GetMapping("/pending/{userId}")
-    public ResponseEntity<?> getPendingPayments(@PathVariable Long userId) {
-        try {
-            List<Payment> allUserPayments = paymentService.getPaymentHistory(userId);
-            List<Payment> pendingPayments = allUserPayments.stream()
-                    .filter(p -> p.getStatus() == PaymentStatus.PENDING)
-                    .collect(Collectors.toList());
-
-            List<Map<String, Object>> result = new ArrayList<>();
-            for (Payment p : pendingPayments) {
-                result.add(convertPaymentToMap(p));
-            }
-
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            System.err.println("Controller error in getPendingPayments: " + e.getMessage());
-            return ResponseEntity.ok(new ArrayList<>());
-        }
+    public ResponseEntity<?> getPendingPayments(@PathVariable Long userId,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "" + PaymentService.DEFAULT_HISTORY_PAGE_SIZE) int limit) {
+        return paymentPageResponse(userId, PaymentStatus.PENDING, cursor, limit);
     }
 
-    // CRITICAL FIX - Safe conversion method
-    private Map<String, Object> convertPaymentToMap(Payment payment) {
-        Map<String, Object> map = new HashMap<>();
+    private ResponseEntity<?> paymentPageResponse(Long userId, PaymentStatus status, String cursor, int limit) {
         try {
-            map.put("paymentId", payment.getPaymentId());
-            map.put("userId", payment.getUserId() != null ? payment.getUserId() : null);
-
-            // Safe field access
-            try {
-                map.put("userName", payment.getUserName() != null ? payment.getUserName() : "N/A");
-            } catch (Exception e) {
-                map.put("userName", "N/A");
-            }
-
-            try {
-                map.put("userEmail", payment.getUserEmail() != null ? payment.getUserEmail() : "N/A");
-            } catch (Exception e) {
-                map.put("userEmail", "N/A");
-            }
-
-            map.put("paymentMonth", payment.getPaymentMonth());
-            map.put("amount", payment.getAmount());
-            map.put("status", payment.getStatus() != null ? payment.getStatus().toString() : "UNKNOWN");
-
-            try {
-                map.put("paymentMethod", payment.getPaymentMethod() != null ?
-                        payment.getPaymentMethod().toString() : "UNKNOWN");
-            } catch (Exception e) {
-                map.put("paymentMethod", "UNKNOWN");
-            }
-
-            map.put("submittedDate", payment.getSubmittedDate() != null ?
-                    payment.getSubmittedDate().toString() : null);
-            map.put("expiryTime", payment.getExpiryTime() != null ?
-                    payment.getExpiryTime().toString() : null);
-
-            try {
-                map.put("adminComments", payment.getAdminComments() != null ?
-                        payment.getAdminComments() : null);
-            } catch (Exception e) {
-                map.put("adminComments", null);
-            }
-
-            try {
-                map.put("approvedDate", payment.getApprovedDate() != null ?
-                        payment.getApprovedDate().toString() : null);
-            } catch (Exception e) {
-                map.put("approvedDate", null);
-            }
-
-            // Safe policy handling
-            try {
-                if (payment.getPolicy() != null && payment.getPolicy().getId() != null) {
-                    Map<String, Object> policyInfo = new HashMap<>();
-                    policyInfo.put("id", payment.getPolicy().getId());
-                    policyInfo.put("policyNumber", "POL-" + payment.getPolicy().getId());
-                    map.put("policy", policyInfo);
-                } else {
-                    map.put("policy", Map.of("id", null, "policyNumber", "N/A"));
-                }
-            } catch (Exception e) {
-                map.put("policy", Map.of("id", null, "policyNumber", "N/A"));
-                System.err.println("Error processing policy: " + e.getMessage());
-            }
+            PaymentHistoryPage page = paymentService.getPaymentHistoryPage(userId, status, cursor, limit);
 
-            // Safe details handling
-            try {
-                if (payment.getBankSlipDetails() != null) {
-                    Map<String, Object> bankDetails = new HashMap<>();
-                    bankDetails.put("depositorName", payment.getBankSlipDetails().getDepositorName());
-                    bankDetails.put("depositDate", payment.getBankSlipDetails().getDepositDate());
-                    bankDetails.put("referenceNumber", payment.getBankSlipDetails().getReferenceNumber());
-                    bankDetails.put("bankName", payment.getBankSlipDetails().getBankName());
-                    bankDetails.put("branch", payment.getBankSlipDetails().getBranch());
-                    map.put("bankSlipDetails", bankDetails);
-                }
-            } catch (Exception e) {
-                System.err.println("Error processing bank slip details: " + e.getMessage());
+            List<UserPaymentResponse> result = new ArrayList<>(page.getPayments().size());
+            for (Payment p : page.getPayments()) {
+                result.add(UserPaymentResponse.from(p));
             }
 
-            try {
-                if (payment.getOnlinePaymentDetails() != null) {
-                    Map<String, Object> onlineDetails = new HashMap<>();
-                    onlineDetails.put("cardholderName", payment.getOnlinePaymentDetails().getCardholderName());
-                    onlineDetails.put("cardNumber", payment.getOnlinePaymentDetails().getCardNumber());
-                    onlineDetails.put("expirationDate", payment.getOnlinePaymentDetails().getExpirationDate());
-                    map.put("onlinePaymentDetails", onlineDetails);
-                }
-            } catch (Exception e) {
-                System.err.println("Error processing online payment details: " + e.getMessage());
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.hasMore()) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
             }
-
+            return response.body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            System.err.println("Critical error in convertPaymentToMap: " + e.getMessage());
-            e.printStackTrace();
-            map.put("error", "Serialization failed: " + e.getMessage());
+            System.err.println("Controller error loading payments for user " + userId + ": " + e.getMessage());
+            return ResponseEntity.ok(new ArrayList<>());
         }
-
-        return map;
     }
 
     // Debug endpoints
     @GetMapping("/debug/all-payments")
     public ResponseEntity<?> getAllPayments() {
         try {
-            List<Payment> allPayments = paymentRepository.findAll();
-            List<Map<String, Object>> debugInfo = new ArrayList<>();
+            List<Payment> allPayments = paymentRepository.findAllDetailedNewestFirst();
+            List<UserPaymentResponse> debugInfo = new ArrayList<>();
 
             for (Payment payment : allPayments) {
-                debugInfo.add(convertPaymentToMap(payment));
+                debugInfo.add(UserPaymentResponse.from(payment));
             }
 
             return ResponseEntity.ok(Map.of(
@@ -420,7 +307,7 @@ public class UserPaymentController {
             testPayment.setExpiryTime(LocalDateTime.now().plusHours(12));
 
             Payment saved = paymentRepository.save(testPayment);
-            return ResponseEntity.ok(convertPaymentToMap(saved));
+            return ResponseEntity.ok(UserPaymentResponse.from(saved));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
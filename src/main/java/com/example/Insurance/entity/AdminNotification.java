@@ -44,6 +44,10 @@ public class AdminNotification {
 
     private LocalDateTime expiryDate;
 
+    // When it was sent; broadcasts are shown in inboxes from this time
+    @Column(name = "sent_date")
+    private LocalDateTime sentDate;
+
     @Column(name = "sent_count", columnDefinition = "INT DEFAULT 0")
     private Integer sentCount;
 
@@ -172,6 +176,14 @@ public class AdminNotification {
         this.expiryDate = expiryDate;
     }
 
+    public LocalDateTime getSentDate() {
+        return sentDate;
+    }
+
+    public void setSentDate(LocalDateTime sentDate) {
+        this.sentDate = sentDate;
+    }
+
     public Integer getSentCount() {
         return sentCount;
     }
@@ -28,6 +28,10 @@ public class BankSlipDetails {
 
     private String bankSlipImagePath;
 
+    // SHA-256 of the stored slip image; the key into the content-addressed store
+    @Column(length = 64)
+    private String bankSlipSha256;
+
     // Constructors
     public BankSlipDetails() {
     }
@@ -88,4 +92,12 @@ public class BankSlipDetails {
     public void setBankSlipImagePath(String bankSlipImagePath) {
         this.bankSlipImagePath = bankSlipImagePath;
     }
+
+    public String getBankSlipSha256() {
+        return bankSlipSha256;
+    }
+
+    public void setBankSlipSha256(String bankSlipSha256) {
+        this.bankSlipSha256 = bankSlipSha256;
+    }
 }
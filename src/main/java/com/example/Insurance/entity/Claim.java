@@ -10,7 +10,18 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "claims")
+@Table(name = "claims", indexes = {
+        @Index(name = "idx_claims_vehicle_key", columnList = "vehicle_key"),
+        @Index(name = "idx_claims_chassis_key", columnList = "chassis_key"),
+        @Index(name = "idx_claims_nic_key", columnList = "nic_key"),
+        @Index(name = "idx_claims_status_duplicate", columnList = "status, is_duplicate"),
+        @Index(name = "idx_claims_user_status", columnList = "user_id, status"),
+        // Admin claim search, keyset-paginated on (submitted_date, id) newest first, unfiltered or by queue
+        @Index(name = "idx_claims_submitted", columnList = "submitted_date, id"),
+        @Index(name = "idx_claims_status_submitted", columnList = "status, submitted_date, id"),
+        @Index(name = "idx_claims_duplicate_submitted", columnList = "is_duplicate, submitted_date, id"),
+        @Index(name = "idx_claims_type_submitted", columnList = "incident_type, submitted_date, id")
+})
 public class Claim {
 
     @Id
@@ -74,6 +85,21 @@ public class Claim {
 
     private Boolean isDuplicate = false;
 
+    // Duplicate detection - best match among earlier claims (see ClaimDuplicateService)
+    private Double duplicateScore;
+
+    private Long duplicateOfId;
+
+    // Normalized matching keys, kept in step with nic / vehicleNumber / chassisNumber by their setters
+    @Column(name = "vehicle_key", length = ClaimKeys.MAX_LENGTH)
+    private String vehicleKey;
+
+    @Column(name = "chassis_key", length = ClaimKeys.MAX_LENGTH)
+    private String chassisKey;
+
+    @Column(name = "nic_key", length = ClaimKeys.MAX_LENGTH)
+    private String nicKey;
+
     // User relationship - ADD THIS
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = true) // nullable true for backward compatibility
@@ -100,7 +126,7 @@ public class Claim {
     public void setAge(Integer age) { this.age = age; }
 
     public String getNic() { return nic; }
-    public void setNic(String nic) { this.nic = nic; }
+    public void setNic(String nic) { this.nic = nic; this.nicKey = ClaimKeys.nic(nic); }
 
     public String getPhone() { return phone; }
     public void setPhone(String phone) { this.phone = phone; }
@@ -109,13 +135,13 @@ public class Claim {
     public void setEmail(String email) { this.email = email; }
 
     public String getVehicleNumber() { return vehicleNumber; }
-    public void setVehicleNumber(String vehicleNumber) { this.vehicleNumber = vehicleNumber; }
+    public void setVehicleNumber(String vehicleNumber) { this.vehicleNumber = vehicleNumber; this.vehicleKey = ClaimKeys.vehicle(vehicleNumber); }
 
     public String getVehicleModel() { return vehicleModel; }
     public void setVehicleModel(String vehicleModel) { this.vehicleModel = vehicleModel; }
 
     public String getChassisNumber() { return chassisNumber; }
-    public void setChassisNumber(String chassisNumber) { this.chassisNumber = chassisNumber; }
+    public void setChassisNumber(String chassisNumber) { this.chassisNumber = chassisNumber; this.chassisKey = ClaimKeys.chassis(chassisNumber); }
 
     public LocalDateTime getIncidentDate() { return incidentDate; }
     public void setIncidentDate(LocalDateTime incidentDate) { this.incidentDate = incidentDate; }
@@ -141,6 +167,23 @@ public class Claim {
     public Boolean getIsDuplicate() { return isDuplicate; }
     public void setIsDuplicate(Boolean isDuplicate) { this.isDuplicate = isDuplicate; }
 
+    public Double getDuplicateScore() { return duplicateScore; }
+    public void setDuplicateScore(Double duplicateScore) { this.duplicateScore = duplicateScore; }
+
+    public Long getDuplicateOfId() { return duplicateOfId; }
+    public void setDuplicateOfId(Long duplicateOfId) { this.duplicateOfId = duplicateOfId; }
+
+    public String getVehicleKey() { return vehicleKey; }
+    public String getChassisKey() { return chassisKey; }
+    public String getNicKey() { return nicKey; }
+
+    // Recompute the matching keys (rows written before the keys existed are backfilled through this)
+    public void refreshDuplicateKeys() {
+        this.vehicleKey = ClaimKeys.vehicle(vehicleNumber);
+        this.chassisKey = ClaimKeys.chassis(chassisNumber);
+        this.nicKey = ClaimKeys.nic(nic);
+    }
+
     public List<ClaimPhoto> getPhotos() { return photos; }
     public void setPhotos(List<ClaimPhoto> photos) { this.photos = photos; }
 
@@ -0,0 +1,61 @@
+package com.example.Insurance.entity;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized keys that claim duplicate detection matches on, so that formatting differences
+ * ("WP CAB-1234" vs "cab1234", "912345678V" vs "199123405678") do not hide a repeat claim.
+ * All keys are upper-case alphanumerics; null when nothing is left after normalization.
+ */
+public final class ClaimKeys {
+
+    public static final int MAX_LENGTH = 64;
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^A-Z0-9]");
+
+    // Current-series plates may be written with or without the province code in front
+    private static final Pattern PROVINCE_PLATE = Pattern.compile("^(?:WP|CP|SP|NP|EP|NW|NC|UP|SG)([A-Z]{2,3}[0-9]{4})$");
+
+    // Old 9-digit NIC (YYDDDSSSC + V/X); the 12-digit form is 19YY DDD 0SSS C
+    private static final Pattern OLD_NIC = Pattern.compile("^(?<head>[0-9]{5})(?<tail>[0-9]{4})[VX]$");
+
+    private ClaimKeys() {
+    }
+
+    public static String vehicle(String vehicleNumber) {
+        String key = alphanumeric(vehicleNumber);
+        if (key == null) {
+            return null;
+        }
+        return PROVINCE_PLATE.matcher(key).replaceFirst("$1");
+    }
+
+    // O/Q and I are never valid VIN characters and are usually mistyped 0 and 1
+    public static String chassis(String chassisNumber) {
+        String key = alphanumeric(chassisNumber);
+        if (key == null) {
+            return null;
+        }
+        return key.replace('O', '0').replace('Q', '0').replace('I', '1');
+    }
+
+    public static String nic(String nic) {
+        String key = alphanumeric(nic);
+        if (key == null) {
+            return null;
+        }
+        return OLD_NIC.matcher(key).replaceFirst("19${head}0${tail}");
+    }
+
+    private static String alphanumeric(String value) {
+        if (value == null) {
+            return null;
+        }
+        String key = NON_ALPHANUMERIC.matcher(value.toUpperCase(Locale.ROOT)).replaceAll("");
+        if (key.isEmpty()) {
+            return null;
+        }
+        return key.length() > MAX_LENGTH ? key.substring(0, MAX_LENGTH) : key;
+    }
+}
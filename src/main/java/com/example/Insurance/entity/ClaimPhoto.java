@@ -1,9 +1,12 @@
 package com.example.Insurance.entity;
 
+import com.example.Insurance.Enums.PhotoPreviewStatus;
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
-@Table(name = "claim_photos")
+@Table(name = "claim_photos", indexes = @Index(name = "idx_claim_photos_preview_status", columnList = "preview_status, uploaded_at"))
 public class ClaimPhoto {
 
     @Id
@@ -18,6 +21,36 @@ public class ClaimPhoto {
 
     private String description;
 
+    // Original in the content-addressed store (filePath is its relative path there)
+    @Column(length = 64)
+    private String sha256;
+
+    private String contentType;
+
+    private Long sizeBytes;
+
+    private Integer width;
+
+    private Integer height;
+
+    @Column(name = "uploaded_at")
+    private LocalDateTime uploadedAt;
+
+    // Downscaled JPEG copies for review grids, generated asynchronously after upload
+    @Enumerated(EnumType.STRING)
+    @Column(name = "preview_status", length = 20)
+    private PhotoPreviewStatus previewStatus;
+
+    private String thumbnailPath;
+
+    @Column(length = 64)
+    private String thumbnailSha256;
+
+    private String previewPath;
+
+    @Column(length = 64)
+    private String previewSha256;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "claim_id", nullable = false)
     private Claim claim;
@@ -45,6 +78,39 @@ public class ClaimPhoto {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+    public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+
+    public PhotoPreviewStatus getPreviewStatus() { return previewStatus; }
+    public void setPreviewStatus(PhotoPreviewStatus previewStatus) { this.previewStatus = previewStatus; }
+
+    public String getThumbnailPath() { return thumbnailPath; }
+    public void setThumbnailPath(String thumbnailPath) { this.thumbnailPath = thumbnailPath; }
+
+    public String getThumbnailSha256() { return thumbnailSha256; }
+    public void setThumbnailSha256(String thumbnailSha256) { this.thumbnailSha256 = thumbnailSha256; }
+
+    public String getPreviewPath() { return previewPath; }
+    public void setPreviewPath(String previewPath) { this.previewPath = previewPath; }
+
+    public String getPreviewSha256() { return previewSha256; }
+    public void setPreviewSha256(String previewSha256) { this.previewSha256 = previewSha256; }
+
     public Claim getClaim() { return claim; }
     public void setClaim(Claim claim) { this.claim = claim; }
 }
@@ -9,7 +9,17 @@ import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        // Backs keyset-paginated payment history: WHERE user_id = ? ORDER BY submitted_date DESC, payment_id DESC
+        @Index(name = "idx_payments_user_submitted", columnList = "userId, submittedDate, paymentId"),
+        @Index(name = "idx_payments_user_status_submitted", columnList = "userId, status, submittedDate, paymentId"),
+        // Admin search filters (status / policy / date range), newest first
+        @Index(name = "idx_payments_status_submitted", columnList = "status, submittedDate"),
+        @Index(name = "idx_payments_policy_submitted", columnList = "policy_id, submittedDate"),
+        @Index(name = "idx_payments_submitted", columnList = "submittedDate"),
+        // Expiry sweeper: pending payments whose edit window has passed
+        @Index(name = "idx_payments_status_expiry", columnList = "status, expiryTime")
+})
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -52,6 +62,22 @@ public class Payment {
 
     private String adminComments;
 
+    // Set by PaymentExpirySweeper once the edit window has passed; null on legacy rows = not yet swept
+    @Column(name = "edit_locked")
+    private Boolean editLocked = false;
+
+    // When the current gateway charge was dispatched; null unless status is PROCESSING
+    @Column(name = "processing_started_at")
+    private LocalDateTime processingStartedAt;
+
+    // Gateway idempotency key of the current charge attempt
+    @Column(name = "charge_attempt_id", length = 40)
+    private String chargeAttemptId;
+
+    // When the current attempt was last sent to the gateway; the recovery sweeper re-sends from here
+    @Column(name = "charge_sent_at")
+    private LocalDateTime chargeSentAt;
+
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "bank_slip_id")
     private BankSlipDetails bankSlipDetails;
@@ -117,6 +143,18 @@ public class Payment {
     public String getAdminComments() { return adminComments; }
     public void setAdminComments(String adminComments) { this.adminComments = adminComments; }
 
+    public Boolean getEditLocked() { return editLocked; }
+    public void setEditLocked(Boolean editLocked) { this.editLocked = editLocked; }
+
+    public LocalDateTime getProcessingStartedAt() { return processingStartedAt; }
+    public void setProcessingStartedAt(LocalDateTime processingStartedAt) { this.processingStartedAt = processingStartedAt; }
+
+    public String getChargeAttemptId() { return chargeAttemptId; }
+    public void setChargeAttemptId(String chargeAttemptId) { this.chargeAttemptId = chargeAttemptId; }
+
+    public LocalDateTime getChargeSentAt() { return chargeSentAt; }
+    public void setChargeSentAt(LocalDateTime chargeSentAt) { this.chargeSentAt = chargeSentAt; }
+
     public BankSlipDetails getBankSlipDetails() { return bankSlipDetails; }
     public void setBankSlipDetails(BankSlipDetails bankSlipDetails) { this.bankSlipDetails = bankSlipDetails; }
 
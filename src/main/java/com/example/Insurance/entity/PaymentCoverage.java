@@ -0,0 +1,68 @@
+package com.example.Insurance.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// One row per policy and year. Bit (month - 1) of paidMask is set while that month has an
+// approved payment; paidThrough is the number of consecutive paid months from January, kept
+// alongside the mask so the arrears query is an index range scan.
+// Maintained incrementally by PaymentCoverageService and re-verified periodically.
+@Entity
+@Table(name = "payment_coverage",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payment_coverage_policy_year", columnNames = {"policy_id", "coverage_year"}),
+        indexes = @Index(name = "idx_payment_coverage_year_paid_through", columnList = "coverage_year, paid_through"))
+public class PaymentCoverage {
+    public static final int ALL_MONTHS = 0xFFF;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "policy_id", nullable = false)
+    private Long policyId;
+
+    @Column(name = "coverage_year", nullable = false)
+    private int coverageYear;
+
+    @Column(name = "paid_mask", nullable = false)
+    private int paidMask;
+
+    @Column(name = "paid_through", nullable = false)
+    private int paidThrough;
+
+    // When the verification job last repaired this row
+    private LocalDateTime lastVerified;
+
+    // Default constructor
+    public PaymentCoverage() {
+    }
+
+    public PaymentCoverage(Long policyId, int coverageYear, int paidMask) {
+        this.policyId = policyId;
+        this.coverageYear = coverageYear;
+        setPaidMask(paidMask);
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getPolicyId() { return policyId; }
+    public void setPolicyId(Long policyId) { this.policyId = policyId; }
+
+    public int getCoverageYear() { return coverageYear; }
+    public void setCoverageYear(int coverageYear) { this.coverageYear = coverageYear; }
+
+    public int getPaidMask() { return paidMask; }
+    public void setPaidMask(int paidMask) {
+        this.paidMask = paidMask & ALL_MONTHS;
+        // Trailing ones of the mask; ~mask always has a zero at bit 12, so this is at most 12
+        this.paidThrough = Integer.numberOfTrailingZeros(~this.paidMask);
+    }
+
+    public int getPaidThrough() { return paidThrough; }
+
+    public LocalDateTime getLastVerified() { return lastVerified; }
+    public void setLastVerified(LocalDateTime lastVerified) { this.lastVerified = lastVerified; }
+}
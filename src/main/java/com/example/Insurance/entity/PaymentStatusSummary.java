@@ -0,0 +1,50 @@
+package com.example.Insurance.entity;
+
+import com.example.Insurance.Enums.PaymentStatus;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row per payment status holding the running count and exact amount total.
+// Maintained incrementally by PaymentStatsService and re-verified periodically.
+@Entity
+@Table(name = "payment_status_summary")
+public class PaymentStatusSummary {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private PaymentStatus status;
+
+    @Column(nullable = false)
+    private long paymentCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    // When the verification job last seeded or repaired this row
+    private LocalDateTime lastVerified;
+
+    // Default constructor
+    public PaymentStatusSummary() {
+    }
+
+    public PaymentStatusSummary(PaymentStatus status, long paymentCount, BigDecimal totalAmount) {
+        this.status = status;
+        this.paymentCount = paymentCount;
+        this.totalAmount = totalAmount;
+    }
+
+    // Getters and Setters
+    public PaymentStatus getStatus() { return status; }
+    public void setStatus(PaymentStatus status) { this.status = status; }
+
+    public long getPaymentCount() { return paymentCount; }
+    public void setPaymentCount(long paymentCount) { this.paymentCount = paymentCount; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+
+    public LocalDateTime getLastVerified() { return lastVerified; }
+    public void setLastVerified(LocalDateTime lastVerified) { this.lastVerified = lastVerified; }
+}
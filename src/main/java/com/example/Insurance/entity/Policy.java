@@ -1,6 +1,7 @@
 package com.example.Insurance.entity;
 
 import com.example.Insurance.Enums.PolicyStatus;
+import com.example.Insurance.id.BusinessIds;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -94,7 +95,7 @@ public class Policy {
         }
         // Generate policy number if not set
         if (policyNumber == null || policyNumber.isEmpty()) {
-            policyNumber = "POL-" + System.currentTimeMillis();
+            policyNumber = BusinessIds.policyNumber();
         }
         // Set policy type based on vehicle type if not set
         if (policyType == null || policyType.isEmpty()) {
@@ -208,7 +209,7 @@ public class Policy {
 
         // Generate policy number if not set
         if (this.policyNumber == null || this.policyNumber.isEmpty()) {
-            this.policyNumber = "POL-" + System.currentTimeMillis();
+            this.policyNumber = BusinessIds.policyNumber();
         }
     }
 
@@ -0,0 +1,66 @@
+package com.example.Insurance.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// One physical file in the content-addressed store, shared by every record that references
+// the same bytes. refCount tracks those references; the file is removed when it drops to zero.
+@Entity
+@Table(name = "stored_content", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stored_content_namespace_hash", columnNames = {"namespace", "sha256"})
+})
+public class StoredContent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String namespace;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private String relativePath;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private long refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Default constructor
+    public StoredContent() {
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getNamespace() { return namespace; }
+    public void setNamespace(String namespace) { this.namespace = namespace; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public String getRelativePath() { return relativePath; }
+    public void setRelativePath(String relativePath) { this.relativePath = relativePath; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getRefCount() { return refCount; }
+    public void setRefCount(long refCount) { this.refCount = refCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
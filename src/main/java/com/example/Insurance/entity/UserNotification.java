@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_notifications")
+@Table(name = "user_notifications", indexes = {
+        // Inbox reads, and the check that hides broadcasts a user already has a copy of
+        @Index(name = "idx_user_notifications_user_admin", columnList = "user_id, admin_notification_id")
+})
 public class UserNotification {
 
     @Id
@@ -0,0 +1,89 @@
+package com.example.Insurance.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A user's state for one broadcast AdminNotification. Broadcasts are stored once; a row here
+// only exists once the user has read, archived or deleted the broadcast, or when it was sent
+// to that user explicitly (see UserNotificationService.sendNotificationToUsers).
+@Entity
+@Table(name = "user_notification_states",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_notification_states_user_admin",
+                columnNames = {"user_id", "admin_notification_id"}),
+        indexes = @Index(name = "idx_user_notification_states_admin", columnList = "admin_notification_id"))
+public class UserNotificationState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "admin_notification_id", nullable = false)
+    private Long adminNotificationId;
+
+    @Column(name = "is_read", nullable = false)
+    private Boolean isRead = false;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "is_archived", nullable = false)
+    private Boolean isArchived = false;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
+    @Column(name = "is_deleted", nullable = false)
+    private Boolean isDeleted = false;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // Constructors
+    public UserNotificationState() {
+    }
+
+    public UserNotificationState(Long userId, Long adminNotificationId) {
+        this.userId = userId;
+        this.adminNotificationId = adminNotificationId;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getAdminNotificationId() { return adminNotificationId; }
+    public void setAdminNotificationId(Long adminNotificationId) { this.adminNotificationId = adminNotificationId; }
+
+    public Boolean getIsRead() { return isRead; }
+    public void setIsRead(Boolean isRead) {
+        this.isRead = isRead;
+        this.readAt = isRead ? (readAt != null ? readAt : LocalDateTime.now()) : null;
+    }
+
+    public LocalDateTime getReadAt() { return readAt; }
+    public void setReadAt(LocalDateTime readAt) { this.readAt = readAt; }
+
+    public Boolean getIsArchived() { return isArchived; }
+    public void setIsArchived(Boolean isArchived) {
+        this.isArchived = isArchived;
+        this.archivedAt = isArchived ? (archivedAt != null ? archivedAt : LocalDateTime.now()) : null;
+    }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+
+    public Boolean getIsDeleted() { return isDeleted; }
+    public void setIsDeleted(Boolean isDeleted) {
+        this.isDeleted = isDeleted;
+        this.deletedAt = isDeleted ? (deletedAt != null ? deletedAt : LocalDateTime.now()) : null;
+    }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
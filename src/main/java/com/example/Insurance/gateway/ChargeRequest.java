@@ -0,0 +1,35 @@
+package com.example.Insurance.gateway;
+
+import java.math.BigDecimal;
+
+// Immutable snapshot of what the gateway needs - no JPA entities cross the thread boundary
+public class ChargeRequest {
+    private final Long paymentId;
+    // One per charge attempt; a new attempt (e.g. new card details) gets a new id
+    private final String attemptId;
+    private final BigDecimal amount;
+    private final String cardholderName;
+    private final String cardNumber;
+    private final String expirationDate;
+    private final String cvc;
+
+    public ChargeRequest(Long paymentId, String attemptId, BigDecimal amount, String cardholderName,
+                         String cardNumber, String expirationDate, String cvc) {
+        this.paymentId = paymentId;
+        this.attemptId = attemptId;
+        this.amount = amount;
+        this.cardholderName = cardholderName;
+        this.cardNumber = cardNumber;
+        this.expirationDate = expirationDate;
+        this.cvc = cvc;
+    }
+
+    // Getters
+    public Long getPaymentId() { return paymentId; }
+    public String getAttemptId() { return attemptId; }
+    public BigDecimal getAmount() { return amount; }
+    public String getCardholderName() { return cardholderName; }
+    public String getCardNumber() { return cardNumber; }
+    public String getExpirationDate() { return expirationDate; }
+    public String getCvc() { return cvc; }
+}
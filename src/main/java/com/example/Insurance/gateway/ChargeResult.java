@@ -0,0 +1,26 @@
+package com.example.Insurance.gateway;
+
+public class ChargeResult {
+    private final boolean successful;
+    private final String transactionId;
+    private final String message;
+
+    private ChargeResult(boolean successful, String transactionId, String message) {
+        this.successful = successful;
+        this.transactionId = transactionId;
+        this.message = message;
+    }
+
+    public static ChargeResult approved(String transactionId) {
+        return new ChargeResult(true, transactionId, null);
+    }
+
+    public static ChargeResult declined(String transactionId, String message) {
+        return new ChargeResult(false, transactionId, message);
+    }
+
+    // Getters
+    public boolean isSuccessful() { return successful; }
+    public String getTransactionId() { return transactionId; }
+    public String getMessage() { return message; }
+}
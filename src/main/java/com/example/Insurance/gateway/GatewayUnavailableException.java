@@ -0,0 +1,8 @@
+package com.example.Insurance.gateway;
+
+// The charge was never sent to the gateway (circuit open or no capacity), so it is safe to fail the payment
+public class GatewayUnavailableException extends RuntimeException {
+    public GatewayUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.Insurance.gateway;
+
+/**
+ * Card payment gateway. Implementations may block; callers run them on a bounded executor
+ * with a per-call timeout (see OnlinePaymentProcessor), never on a request thread.
+ */
+public interface PaymentGateway {
+
+    // Charge the card. The request's attemptId is the idempotency key: sending the same attempt twice
+    // must not take money twice, while a new attempt for the same payment is charged afresh.
+    ChargeResult charge(ChargeRequest request) throws Exception;
+
+    String name();
+}
@@ -0,0 +1,65 @@
+package com.example.Insurance.gateway;
+
+import com.example.Insurance.cache.BoundedTtlCache;
+import com.example.Insurance.id.BusinessIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a real gateway, with configurable latency and failure rate.
+ * Active unless app.payments.gateway.type selects another implementation.
+ */
+@Component
+@ConditionalOnProperty(name = "app.payments.gateway.type", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+
+    private final long minLatencyMillis;
+    private final long maxLatencyMillis;
+    private final double declineRate;
+    private final double errorRate;
+
+    // Idempotency: a re-sent charge for the same attempt returns the original outcome
+    private final BoundedTtlCache<String, ChargeResult> processed = new BoundedTtlCache<>(10000, TimeUnit.HOURS.toMillis(24));
+
+    public StubPaymentGateway(@Value("${app.payments.gateway.stub.min-latency-ms:50}") long minLatencyMillis,
+                              @Value("${app.payments.gateway.stub.max-latency-ms:300}") long maxLatencyMillis,
+                              @Value("${app.payments.gateway.stub.decline-rate:0.1}") double declineRate,
+                              @Value("${app.payments.gateway.stub.error-rate:0.0}") double errorRate) {
+        this.minLatencyMillis = minLatencyMillis;
+        this.maxLatencyMillis = Math.max(minLatencyMillis, maxLatencyMillis);
+        this.declineRate = declineRate;
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public ChargeResult charge(ChargeRequest request) throws Exception {
+        ChargeResult previous = processed.get(request.getAttemptId()).orElse(null);
+        if (previous != null) {
+            return previous;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Thread.sleep(minLatencyMillis == maxLatencyMillis ? minLatencyMillis : random.nextLong(minLatencyMillis, maxLatencyMillis + 1));
+
+        // Transport-level failure: nothing was charged, so nothing is remembered
+        if (random.nextDouble() < errorRate) {
+            throw new IllegalStateException("Stub gateway unavailable");
+        }
+
+        String transactionId = BusinessIds.transactionId();
+        ChargeResult result = random.nextDouble() < declineRate
+                ? ChargeResult.declined(transactionId, "Card declined")
+                : ChargeResult.approved(transactionId);
+        processed.put(request.getAttemptId(), result);
+        return result;
+    }
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.Insurance.id;
+
+/**
+ * Claim numbers, policy numbers and transaction IDs, all drawn from one Snowflake generator
+ * so they are unique across threads and (given distinct app.ids.node-id values) instances.
+ * Static so entity callbacks such as Policy's @PrePersist can use it; IdGeneratorConfig
+ * installs the generator for the configured node at startup.
+ */
+public final class BusinessIds {
+
+    public static final String CLAIM_PREFIX = "CLM";
+    public static final String POLICY_PREFIX = "POL-";
+    public static final String TRANSACTION_PREFIX = "TXN";
+    public static final String CHARGE_ATTEMPT_PREFIX = "CHG";
+
+    private static volatile SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0);
+
+    private BusinessIds() {
+    }
+
+    public static void install(SnowflakeIdGenerator configured) {
+        generator = configured;
+    }
+
+    public static String claimNumber() {
+        return CLAIM_PREFIX + generator.nextId();
+    }
+
+    public static String policyNumber() {
+        return POLICY_PREFIX + generator.nextId();
+    }
+
+    public static String transactionId() {
+        return TRANSACTION_PREFIX + generator.nextId();
+    }
+
+    public static String chargeAttemptId() {
+        return CHARGE_ATTEMPT_PREFIX + generator.nextId();
+    }
+}
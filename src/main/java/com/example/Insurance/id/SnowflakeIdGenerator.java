@@ -0,0 +1,77 @@
+package com.example.Insurance.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style 63-bit IDs: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node ID
+ * and a 12-bit per-millisecond sequence. IDs from one generator are strictly increasing; IDs
+ * from generators with different node IDs never collide.
+ * <p>
+ * Lock-free: the last (timestamp, sequence) pair lives in one AtomicLong advanced by CAS.
+ * When the sequence of a millisecond is used up, or the clock steps backwards, the generator
+ * carries on from the last timestamp instead of blocking or spinning, running briefly ahead
+ * of the wall clock until it catches up.
+ */
+public class SnowflakeIdGenerator {
+
+    // 2024-01-01T00:00:00Z - 41 bits of milliseconds last until 2093
+    public static final long EPOCH = 1704067200000L;
+
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private final long nodeId;
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last ID handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            // A sequence overflow carries into the timestamp bits, i.e. borrows the next millisecond
+            next = now > previous ? now : previous + 1;
+        } while (!last.compareAndSet(previous, next));
+        return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    // When the ID was generated (to the millisecond; later than the wall clock if the generator ran ahead)
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> TIMESTAMP_SHIFT) + EPOCH);
+    }
+
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    public static long sequenceOf(long id) {
+        return id & SEQUENCE_MASK;
+    }
+}
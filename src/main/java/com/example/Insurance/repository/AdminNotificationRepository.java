@@ -12,6 +12,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -66,4 +67,30 @@ public interface AdminNotificationRepository extends JpaRepository<AdminNotifica
     // Search notifications by title or message
     @Query("SELECT n FROM AdminNotification n WHERE (LOWER(n.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(n.message) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND n.isActive = true ORDER BY n.created DESC")
     List<AdminNotification> searchByKeyword(@Param("keyword") String keyword);
-}
\ No newline at end of file
+
+    // Broadcasts in a user's inbox, each with the user's state (null until the user acts on it): sent, to
+    // one of the user's audiences or to the user explicitly, not expired and not deleted by the user.
+    // Drafts and scheduled notifications stay hidden even from users they were addressed to.
+    // Broadcasts the user already has a copy of in user_notifications (sent before broadcasts were
+    // stored once) are left to that copy.
+    @Query("SELECT n, s FROM AdminNotification n " +
+            "LEFT JOIN UserNotificationState s ON s.adminNotificationId = n.id AND s.userId = :userId " +
+            "WHERE n.isActive = true AND (n.expiryDate IS NULL OR n.expiryDate > :now) " +
+            "AND n.status = 'SENT' AND (n.target IN :audiences OR s.id IS NOT NULL) " +
+            "AND (s.id IS NULL OR s.isDeleted = false) " +
+            "AND NOT EXISTS (SELECT u.id FROM UserNotification u WHERE u.userId = :userId AND u.adminNotificationId = n.id) " +
+            "ORDER BY n.created DESC")
+    List<Object[]> findBroadcastsForUser(@Param("userId") Long userId, @Param("audiences") Collection<TargetAudience> audiences,
+                                         @Param("now") LocalDateTime now);
+
+    // Unread broadcasts in a user's inbox (same visibility as findBroadcastsForUser)
+    @Query("SELECT COUNT(n) FROM AdminNotification n " +
+            "LEFT JOIN UserNotificationState s ON s.adminNotificationId = n.id AND s.userId = :userId " +
+            "WHERE n.isActive = true AND (n.expiryDate IS NULL OR n.expiryDate > :now) " +
+            "AND n.status = 'SENT' AND (n.target IN :audiences OR s.id IS NOT NULL) " +
+            "AND (s.id IS NULL OR s.isDeleted = false) " +
+            "AND NOT EXISTS (SELECT u.id FROM UserNotification u WHERE u.userId = :userId AND u.adminNotificationId = n.id) " +
+            "AND (s.id IS NULL OR s.isRead = false)")
+    Long countUnreadBroadcastsForUser(@Param("userId") Long userId, @Param("audiences") Collection<TargetAudience> audiences,
+                                      @Param("now") LocalDateTime now);
+}
@@ -1,9 +1,14 @@
-
 package com.example.Insurance.repository;
 
+import com.example.Insurance.Enums.PhotoPreviewStatus;
 import com.example.Insurance.entity.ClaimPhoto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,4 +17,11 @@ public interface ClaimPhotoRepository extends JpaRepository<ClaimPhoto, Long> {
     List<ClaimPhoto> findByClaimId(Long claimId);
 
     void deleteByClaimId(Long claimId);
+
+    long countByClaimId(Long claimId);
+
+    // Preview sweeper - photos still waiting for previews that were uploaded before the cutoff
+    @Query("SELECT p.id FROM ClaimPhoto p WHERE p.previewStatus = :status AND p.uploadedAt < :before ORDER BY p.id")
+    List<Long> findIdsByPreviewStatus(@Param("status") PhotoPreviewStatus status, @Param("before") LocalDateTime before,
+                                      Pageable pageable);
 }
@@ -1,12 +1,23 @@
 
 package com.example.Insurance.repository;
 
+import com.example.Insurance.DTO.ClaimFingerprint;
+import com.example.Insurance.DTO.ClaimStatusCount;
 import com.example.Insurance.entity.Claim;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClaimRepository extends JpaRepository<Claim, Long> {
@@ -20,8 +31,50 @@ public interface ClaimRepository extends JpaRepository<Claim, Long> {
     @Query("SELECT c FROM Claim c ORDER BY c.submittedDate DESC")
     List<Claim> findAllOrderBySubmittedDateDesc();
 
-    @Query("SELECT c FROM Claim c WHERE c.nic = ?1 AND c.vehicleNumber = ?2")
-    List<Claim> findPotentialDuplicates(String nic, String vehicleNumber);
+    // Duplicate detection - candidates sharing a normalized key
+    @Query("SELECT new com.example.Insurance.DTO.ClaimFingerprint(c.id, c.claimNumber, c.vehicleKey, c.chassisKey, c.nicKey, " +
+            "c.incidentDate, c.submittedDate, c.isDuplicate, c.duplicateScore, c.duplicateOfId) FROM Claim c WHERE c.vehicleKey = :key")
+    List<ClaimFingerprint> findFingerprintsByVehicleKey(@Param("key") String key);
+
+    @Query("SELECT new com.example.Insurance.DTO.ClaimFingerprint(c.id, c.claimNumber, c.vehicleKey, c.chassisKey, c.nicKey, " +
+            "c.incidentDate, c.submittedDate, c.isDuplicate, c.duplicateScore, c.duplicateOfId) FROM Claim c WHERE c.chassisKey = :key")
+    List<ClaimFingerprint> findFingerprintsByChassisKey(@Param("key") String key);
+
+    @Query("SELECT new com.example.Insurance.DTO.ClaimFingerprint(c.id, c.claimNumber, c.vehicleKey, c.chassisKey, c.nicKey, " +
+            "c.incidentDate, c.submittedDate, c.isDuplicate, c.duplicateScore, c.duplicateOfId) FROM Claim c WHERE c.nicKey = :key")
+    List<ClaimFingerprint> findFingerprintsByNicKey(@Param("key") String key);
+
+    // Bulk import - candidates for a chunk of rows, one IN query per key kind
+    @Query("SELECT new com.example.Insurance.DTO.ClaimFingerprint(c.id, c.claimNumber, c.vehicleKey, c.chassisKey, c.nicKey, " +
+            "c.incidentDate, c.submittedDate, c.isDuplicate, c.duplicateScore, c.duplicateOfId) FROM Claim c WHERE c.vehicleKey IN :keys")
+    List<ClaimFingerprint> findFingerprintsByVehicleKeyIn(@Param("keys") Collection<String> keys);
+
+    @Query("SELECT new com.example.Insurance.DTO.ClaimFingerprint(c.id, c.claimNumber, c.vehicleKey, c.chassisKey, c.nicKey, " +
+            "c.incidentDate, c.submittedDate, c.isDuplicate, c.duplicateScore, c.duplicateOfId) FROM Claim c WHERE c.chassisKey IN :keys")
+    List<ClaimFingerprint> findFingerprintsByChassisKeyIn(@Param("keys") Collection<String> keys);
+
+    // Bulk import - IDs of claims just inserted, as [claimNumber, id]
+    @Query("SELECT c.claimNumber, c.id FROM Claim c WHERE c.claimNumber IN :claimNumbers")
+    List<Object[]> findIdsByClaimNumbers(@Param("claimNumbers") Collection<String> claimNumbers);
+
+    // Duplicate re-scan - every claim, read in driver-side batches
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.Insurance.DTO.ClaimFingerprint(c.id, c.claimNumber, c.vehicleKey, c.chassisKey, c.nicKey, " +
+            "c.incidentDate, c.submittedDate, c.isDuplicate, c.duplicateScore, c.duplicateOfId) FROM Claim c ORDER BY c.id")
+    Stream<ClaimFingerprint> streamFingerprints();
+
+    // Key backfill - next page of claims written before the normalized keys existed
+    @Query("SELECT c FROM Claim c WHERE c.id > :afterId AND c.nicKey IS NULL AND c.vehicleKey IS NULL AND c.chassisKey IS NULL ORDER BY c.id")
+    List<Claim> findWithoutDuplicateKeys(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Statistics - claim counts per status and duplicate flag in one pass (covered by idx_claims_status_duplicate)
+    @Query("SELECT new com.example.Insurance.DTO.ClaimStatusCount(c.status, c.isDuplicate, COUNT(c)) " +
+            "FROM Claim c GROUP BY c.status, c.isDuplicate")
+    List<ClaimStatusCount> countByStatusAndDuplicate();
+
+    @Query("SELECT new com.example.Insurance.DTO.ClaimStatusCount(c.status, c.isDuplicate, COUNT(c)) " +
+            "FROM Claim c WHERE c.user.nic = :nic GROUP BY c.status, c.isDuplicate")
+    List<ClaimStatusCount> countByStatusAndDuplicateForNic(@Param("nic") String nic);
 
     // NEW METHODS TO ADD - for UserClaim integration
     @Query("SELECT c FROM Claim c WHERE c.user.id = ?1 ORDER BY c.submittedDate DESC")
@@ -36,4 +89,18 @@ public interface ClaimRepository extends JpaRepository<Claim, Long> {
     @Query("SELECT COUNT(c) FROM Claim c WHERE c.user.id = ?1")
     long countByUserId(Long userId);
 
+    // Admin decisions - compare-and-set on the status the admin decided from; 0 if another admin decided first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Claim c SET c.status = :to, c.adminReason = :reason, c.processedDate = :processedDate WHERE c.id = :id AND c.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") Claim.ClaimStatus from, @Param("to") Claim.ClaimStatus to,
+                         @Param("reason") String reason, @Param("processedDate") LocalDateTime processedDate);
+
+    // Export - cursor over all (or one status of) claims, read-only, fetched from the driver in batches
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Claim c WHERE (:status IS NULL OR c.status = :status) ORDER BY c.id")
+    Stream<Claim> streamForExport(@Param("status") Claim.ClaimStatus status);
+
 }
@@ -0,0 +1,50 @@
+package com.example.Insurance.repository;
+
+import com.example.Insurance.DTO.ClaimSearchCriteria;
+import com.example.Insurance.entity.Claim;
+import com.example.Insurance.entity.ClaimKeys;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Translates admin claim search filters into sargable predicates. Vehicle number and NIC are
+// matched on their normalised keys, which are indexed, rather than on the raw columns.
+public final class ClaimSpecifications {
+
+    private ClaimSpecifications() {
+    }
+
+    public static Specification<Claim> matching(ClaimSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (criteria.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), criteria.getStatus()));
+            }
+            if (criteria.getIsDuplicate() != null) {
+                predicates.add(cb.equal(root.get("isDuplicate"), criteria.getIsDuplicate()));
+            }
+            if (criteria.getIncidentType() != null) {
+                predicates.add(cb.equal(root.get("incidentType"), criteria.getIncidentType()));
+            }
+            if (criteria.getSubmittedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("submittedDate"), criteria.getSubmittedFrom()));
+            }
+            if (criteria.getSubmittedTo() != null) {
+                predicates.add(cb.lessThan(root.get("submittedDate"), criteria.getSubmittedTo()));
+            }
+            if (criteria.getVehicleNumber() != null) {
+                String key = ClaimKeys.vehicle(criteria.getVehicleNumber());
+                predicates.add(key != null ? cb.equal(root.get("vehicleKey"), key) : cb.disjunction());
+            }
+            if (criteria.getNic() != null) {
+                String key = ClaimKeys.nic(criteria.getNic());
+                predicates.add(key != null ? cb.equal(root.get("nicKey"), key) : cb.disjunction());
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
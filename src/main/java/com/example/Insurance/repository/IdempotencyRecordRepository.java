@@ -0,0 +1,35 @@
+package com.example.Insurance.repository;
+
+import com.example.Insurance.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    // Record the response; only the holder of an IN_PROGRESS claim can complete it
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.example.Insurance.entity.IdempotencyRecord.Status.COMPLETED, r.responseStatus = :responseStatus, r.responseBody = :responseBody WHERE r.id = :id AND r.status = com.example.Insurance.entity.IdempotencyRecord.Status.IN_PROGRESS")
+    int complete(@Param("id") Long id, @Param("responseStatus") int responseStatus, @Param("responseBody") String responseBody);
+
+    // Take over a claim whose holder died before completing it
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.createdAt = :now WHERE r.id = :id AND r.status = com.example.Insurance.entity.IdempotencyRecord.Status.IN_PROGRESS AND r.createdAt < :staleBefore")
+    int takeOverStale(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = com.example.Insurance.entity.IdempotencyRecord.Status.IN_PROGRESS")
+    int releaseClaim(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
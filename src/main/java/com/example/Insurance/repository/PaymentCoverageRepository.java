@@ -0,0 +1,37 @@
+package com.example.Insurance.repository;
+
+import com.example.Insurance.Enums.PolicyStatus;
+import com.example.Insurance.entity.PaymentCoverage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentCoverageRepository extends JpaRepository<PaymentCoverage, Long> {
+
+    boolean existsByPolicyIdAndCoverageYear(Long policyId, int coverageYear);
+
+    // Row lock for the read-modify-write of the month bits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM PaymentCoverage c WHERE c.policyId = :policyId AND c.coverageYear = :year")
+    Optional<PaymentCoverage> findForUpdate(@Param("policyId") Long policyId, @Param("year") int year);
+
+    // Coverage of many policies for one year in a single statement (uk_payment_coverage_policy_year)
+    @Query("SELECT c FROM PaymentCoverage c WHERE c.coverageYear = :year AND c.policyId IN :policyIds")
+    List<PaymentCoverage> findByYearAndPolicyIds(@Param("year") int year, @Param("policyIds") Collection<Long> policyIds);
+
+    // Policies with an unpaid month among the first dueMonths of the year: their run of paid months from
+    // January is shorter than dueMonths, or they have no coverage row at all (idx_payment_coverage_year_paid_through)
+    @Query("SELECT p.id, p.name, p.policyNumber, c.paidMask FROM Policy p " +
+            "LEFT JOIN PaymentCoverage c ON c.policyId = p.id AND c.coverageYear = :year " +
+            "WHERE p.status IN :statuses AND (c.id IS NULL OR c.paidThrough < :dueMonths) ORDER BY p.id")
+    List<Object[]> findArrears(@Param("year") int year, @Param("dueMonths") int dueMonths,
+                               @Param("statuses") Collection<PolicyStatus> statuses);
+}
@@ -1,26 +1,141 @@
 package com.example.Insurance.repository;
 
+import com.example.Insurance.DTO.PendingBankSlipDTO;
 import com.example.Insurance.entity.Payment;
+import com.example.Insurance.Enums.PaymentMethod;
 import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.Enums.PolicyStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment> {
+
+    // Primary-key lookup with the associations the payment views need, in one statement
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.policy LEFT JOIN FETCH p.bankSlipDetails LEFT JOIN FETCH p.onlinePaymentDetails WHERE p.paymentId = :paymentId")
+    Optional<Payment> findDetailedById(@Param("paymentId") Long paymentId);
+
+    // Admin list views - newest first, ordered by the database, associations fetched in the same statement
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.policy LEFT JOIN FETCH p.bankSlipDetails LEFT JOIN FETCH p.onlinePaymentDetails ORDER BY p.submittedDate DESC, p.paymentId DESC")
+    List<Payment> findAllDetailedNewestFirst();
+
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.policy LEFT JOIN FETCH p.bankSlipDetails LEFT JOIN FETCH p.onlinePaymentDetails WHERE p.status = :status ORDER BY p.submittedDate DESC, p.paymentId DESC")
+    List<Payment> findDetailedByStatusNewestFirst(@Param("status") PaymentStatus status);
+
+    // Export - cursor over all (or one status of) payments, read-only, fetched from the driver in batches
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.policy LEFT JOIN FETCH p.bankSlipDetails LEFT JOIN FETCH p.onlinePaymentDetails WHERE (:status IS NULL OR p.status = :status) ORDER BY p.paymentId")
+    Stream<Payment> streamForExport(@Param("status") PaymentStatus status);
 
     // Find payments by user ID - works with your existing Payment entity
     List<Payment> findByUserIdOrderBySubmittedDateDesc(Long userId);
 
+    // Keyset pagination over a user's payments - first page (uses idx_payments_user_submitted).
+    // The pages are converted after the session closes, so the to-one associations are fetched here.
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.policy LEFT JOIN FETCH p.bankSlipDetails LEFT JOIN FETCH p.onlinePaymentDetails WHERE p.userId = :userId ORDER BY p.submittedDate DESC, p.paymentId DESC")
+    List<Payment> findByUserIdOrderBySubmittedDateDesc(@Param("userId") Long userId, Pageable pageable);
+
+    // Keyset pagination - rows strictly after the (submittedDate, paymentId) cursor
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.policy LEFT JOIN FETCH p.bankSlipDetails LEFT JOIN FETCH p.onlinePaymentDetails WHERE p.userId = :userId AND (p.submittedDate < :cursorDate OR (p.submittedDate = :cursorDate AND p.paymentId < :cursorId)) ORDER BY p.submittedDate DESC, p.paymentId DESC")
+    List<Payment> findByUserIdBeforeCursor(@Param("userId") Long userId, @Param("cursorDate") LocalDateTime cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    // Keyset pagination filtered by status - first page (uses idx_payments_user_status_submitted)
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.policy LEFT JOIN FETCH p.bankSlipDetails LEFT JOIN FETCH p.onlinePaymentDetails WHERE p.userId = :userId AND p.status = :status ORDER BY p.submittedDate DESC, p.paymentId DESC")
+    List<Payment> findByUserIdAndStatusOrderBySubmittedDateDesc(@Param("userId") Long userId, @Param("status") PaymentStatus status, Pageable pageable);
+
+    // Keyset pagination filtered by status - rows strictly after the cursor
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.policy LEFT JOIN FETCH p.bankSlipDetails LEFT JOIN FETCH p.onlinePaymentDetails WHERE p.userId = :userId AND p.status = :status AND (p.submittedDate < :cursorDate OR (p.submittedDate = :cursorDate AND p.paymentId < :cursorId)) ORDER BY p.submittedDate DESC, p.paymentId DESC")
+    List<Payment> findByUserIdAndStatusBeforeCursor(@Param("userId") Long userId, @Param("status") PaymentStatus status, @Param("cursorDate") LocalDateTime cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
     // Find payments by status - for admin functionality
     List<Payment> findByStatusOrderBySubmittedDateDesc(PaymentStatus status);
 
     // Find payments by policy ID
     List<Payment> findByPolicyIdOrderBySubmittedDateDesc(Long policyId);
 
+    // All payments of the given policies, newest first (set-based, single statement)
+    @Query("SELECT p FROM Payment p WHERE p.policy.id IN :policyIds ORDER BY p.submittedDate DESC, p.paymentId DESC")
+    List<Payment> findByPolicyIdIn(@Param("policyIds") Collection<Long> policyIds);
+
+    // Exact per-status count and amount total, used to verify the payment_status_summary table
+    @Query("SELECT p.status, COUNT(p), COALESCE(SUM(p.amount), 0) FROM Payment p GROUP BY p.status")
+    List<Object[]> aggregateByStatus();
+
+    // Expiry sweeper - legacy rows without an expiry time
+    @Query("SELECT p FROM Payment p WHERE p.expiryTime IS NULL ORDER BY p.paymentId")
+    List<Payment> findMissingExpiryTime(Pageable pageable);
+
+    // Expiry sweeper - pending payments past their edit window that are not locked yet
+    @Query("SELECT p.paymentId FROM Payment p WHERE p.status = :status AND p.expiryTime <= :now AND (p.editLocked IS NULL OR p.editLocked = false) ORDER BY p.paymentId")
+    List<Long> findExpiredUnlockedIds(@Param("status") PaymentStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.editLocked = true WHERE p.paymentId IN :ids AND p.status = :status AND p.expiryTime <= :now")
+    int lockEditing(@Param("ids") Collection<Long> ids, @Param("status") PaymentStatus status, @Param("now") LocalDateTime now);
+
+    // Online payments whose gateway charge was dispatched before the cutoff and never completed
+    @Query("SELECT p.paymentId FROM Payment p WHERE p.status = :status AND p.processingStartedAt < :cutoff ORDER BY p.processingStartedAt")
+    List<Long> findStalledProcessingIds(@Param("status") PaymentStatus status, @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Online payments whose charge was last sent to the gateway before the cutoff
+    @Query("SELECT p.paymentId FROM Payment p WHERE p.status = :status " +
+            "AND COALESCE(p.chargeSentAt, p.processingStartedAt) < :cutoff ORDER BY COALESCE(p.chargeSentAt, p.processingStartedAt)")
+    List<Long> findUnansweredChargeIds(@Param("status") PaymentStatus status, @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Claim a re-send: returns 0 if the payment moved on or another sweep already re-sent it
+    @Modifying
+    @Query("UPDATE Payment p SET p.chargeSentAt = :now WHERE p.paymentId = :id AND p.status = :status " +
+            "AND COALESCE(p.chargeSentAt, p.processingStartedAt) < :cutoff")
+    int markChargeResent(@Param("id") Long id, @Param("status") PaymentStatus status,
+                         @Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    // Conditional status change - returns 0 if another writer moved the payment first
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.processingStartedAt = null, p.chargeSentAt = null WHERE p.paymentId = :id AND p.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") PaymentStatus from, @Param("to") PaymentStatus to);
+
+    // Month and submission time of a policy's approved payments - recomputes one coverage mask after a rejection
+    @Query("SELECT p.paymentMonth, p.submittedDate FROM Payment p WHERE p.policy.id = :policyId AND p.status = :status")
+    List<Object[]> findMonthsByPolicyIdAndStatus(@Param("policyId") Long policyId, @Param("status") PaymentStatus status);
+
+    // Distinct (policy, month, submission year) of every approved payment, used to verify payment_coverage
+    @Query("SELECT DISTINCT p.policy.id, p.paymentMonth, EXTRACT(YEAR FROM p.submittedDate) FROM Payment p WHERE p.status = :status AND p.policy IS NOT NULL")
+    List<Object[]> findDistinctCoverageByStatus(@Param("status") PaymentStatus status);
+
+    // Statement reconciliation - every pending bank-slip payment with its slip details, in one statement
+    @Query("SELECT new com.example.Insurance.DTO.PendingBankSlipDTO(p.paymentId, p.amount, b.referenceNumber, b.depositDate, b.depositorName) " +
+            "FROM Payment p JOIN p.bankSlipDetails b WHERE p.status = :status AND p.paymentMethod = :method")
+    List<PendingBankSlipDTO> findBankSlipSummaries(@Param("status") PaymentStatus status, @Param("method") PaymentMethod method);
+
+    // Admin decisions - compare-and-set on the status the admin read; 0 if another writer changed it first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = com.example.Insurance.Enums.PaymentStatus.APPROVED, p.approvedDate = :approvedDate, " +
+            "p.adminComments = :comments WHERE p.paymentId = :id AND p.status = :from")
+    int approveIfStatus(@Param("id") Long id, @Param("from") PaymentStatus from,
+                        @Param("approvedDate") LocalDateTime approvedDate, @Param("comments") String comments);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = com.example.Insurance.Enums.PaymentStatus.REJECTED, p.adminComments = :comments " +
+            "WHERE p.paymentId = :id AND p.status = :from")
+    int rejectIfStatus(@Param("id") Long id, @Param("from") PaymentStatus from, @Param("comments") String comments);
+
     // Check if payment exists for policy and month with specific status
     @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END FROM Payment p WHERE p.policy.id = :policyId AND p.paymentMonth = :month AND p.status = :status")
     boolean existsByPolicyIdAndPaymentMonthAndStatus(@Param("policyId") Long policyId, @Param("month") String month, @Param("status") PaymentStatus status);
@@ -0,0 +1,44 @@
+package com.example.Insurance.repository;
+
+import com.example.Insurance.DTO.PaymentSearchCriteria;
+import com.example.Insurance.entity.Payment;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Translates admin search filters into sargable SQL predicates (equality and ranges only,
+// no functions on columns) so the payments indexes can be used.
+public final class PaymentSpecifications {
+
+    private PaymentSpecifications() {
+    }
+
+    public static Specification<Payment> matching(PaymentSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (criteria.getUserId() != null) {
+                predicates.add(cb.equal(root.get("userId"), criteria.getUserId()));
+            }
+            if (criteria.getPolicyId() != null) {
+                predicates.add(cb.equal(root.get("policy").get("id"), criteria.getPolicyId()));
+            }
+            if (criteria.getPaymentMonth() != null) {
+                predicates.add(cb.equal(root.get("paymentMonth"), criteria.getPaymentMonth()));
+            }
+            if (criteria.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), criteria.getStatus()));
+            }
+            if (criteria.getSubmittedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("submittedDate"), criteria.getSubmittedFrom()));
+            }
+            if (criteria.getSubmittedTo() != null) {
+                predicates.add(cb.lessThan(root.get("submittedDate"), criteria.getSubmittedTo()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
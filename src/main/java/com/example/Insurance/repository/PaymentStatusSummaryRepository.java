@@ -0,0 +1,28 @@
+package com.example.Insurance.repository;
+
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.entity.PaymentStatusSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface PaymentStatusSummaryRepository extends JpaRepository<PaymentStatusSummary, PaymentStatus> {
+
+    // Atomic in-database increment - concurrent writers never overwrite each other
+    @Modifying
+    @Query("UPDATE PaymentStatusSummary s SET s.paymentCount = s.paymentCount + :countDelta, s.totalAmount = s.totalAmount + :amountDelta WHERE s.status = :status")
+    int applyDelta(@Param("status") PaymentStatus status, @Param("countDelta") long countDelta, @Param("amountDelta") BigDecimal amountDelta);
+
+    // Drift repair - applied as a delta, so increments committed after the verification read are kept
+    @Modifying
+    @Query("UPDATE PaymentStatusSummary s SET s.paymentCount = s.paymentCount + :countDelta, s.totalAmount = s.totalAmount + :amountDelta, " +
+            "s.lastVerified = :now WHERE s.status = :status")
+    int repair(@Param("status") PaymentStatus status, @Param("countDelta") long countDelta,
+               @Param("amountDelta") BigDecimal amountDelta, @Param("now") LocalDateTime now);
+}
@@ -2,10 +2,16 @@ package com.example.Insurance.repository;
 
 import com.example.Insurance.Enums.ApplicationStatus;
 import com.example.Insurance.entity.PolicyApplication;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PolicyApplicationRepository extends JpaRepository<PolicyApplication, Long> {
@@ -14,4 +20,12 @@ public interface PolicyApplicationRepository extends JpaRepository<PolicyApplica
     List<PolicyApplication> findByApplicantNameAndPolicyId(String name, Long policyId);
     Long countByStatus(ApplicationStatus status);
     List<PolicyApplication> findByOrderByApplicationDateDesc();
+
+    // Export - cursor over all (or one status of) applications with their policy, read-only, fetched in batches
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM PolicyApplication a LEFT JOIN FETCH a.policy WHERE (:status IS NULL OR a.status = :status) ORDER BY a.id")
+    Stream<PolicyApplication> streamForExport(@Param("status") ApplicationStatus status);
 }
@@ -1,5 +1,6 @@
 package com.example.Insurance.repository;
 
+import com.example.Insurance.DTO.PolicySummaryDTO;
 import com.example.Insurance.entity.Policy;
 import com.example.Insurance.Enums.PolicyStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,6 +25,16 @@ public interface PolicyRepository extends JpaRepository<Policy, Long> {
     @Query("SELECT p FROM Policy p WHERE p.policyApplication.id = :applicationId AND p.status = :status")
     List<Policy> findByPolicyApplicationIdAndStatus(@Param("applicationId") Long applicationId, @Param("status") PolicyStatus status);
 
+    // Projected summaries of policies in the given statuses (one statement, no benefits collection)
+    @Query("SELECT new com.example.Insurance.DTO.PolicySummaryDTO(p.id, p.name, p.vehicleType, p.premiumAmount) FROM Policy p WHERE p.status IN :statuses ORDER BY p.id")
+    List<PolicySummaryDTO> findSummariesByStatusIn(@Param("statuses") Collection<PolicyStatus> statuses);
+
+    // As above, limited to one user's policies. Ownership follows Policy.getUserId(): the applicant,
+    // else the originating application, else the default user 1
+    @Query("SELECT new com.example.Insurance.DTO.PolicySummaryDTO(p.id, p.name, p.vehicleType, p.premiumAmount) FROM Policy p " +
+            "LEFT JOIN p.policyApplication a WHERE p.status IN :statuses AND COALESCE(p.applicantId, a.id, 1) = :userId ORDER BY p.id")
+    List<PolicySummaryDTO> findSummariesByUserIdAndStatusIn(@Param("userId") Long userId, @Param("statuses") Collection<PolicyStatus> statuses);
+
     // Find policies ready for payments
     @Query("SELECT p FROM Policy p WHERE p.status = 'APPROVED' AND p.applicantId IS NOT NULL")
     List<Policy> findPoliciesReadyForPayments();
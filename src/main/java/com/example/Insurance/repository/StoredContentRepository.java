@@ -0,0 +1,28 @@
+package com.example.Insurance.repository;
+
+import com.example.Insurance.entity.StoredContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredContentRepository extends JpaRepository<StoredContent, Long> {
+
+    Optional<StoredContent> findByNamespaceAndSha256(String namespace, String sha256);
+
+    @Modifying
+    @Query("UPDATE StoredContent c SET c.refCount = c.refCount + 1 WHERE c.namespace = :namespace AND c.sha256 = :sha256")
+    int incrementRefCount(@Param("namespace") String namespace, @Param("sha256") String sha256);
+
+    @Modifying
+    @Query("UPDATE StoredContent c SET c.refCount = c.refCount - 1 WHERE c.namespace = :namespace AND c.sha256 = :sha256 AND c.refCount > 0")
+    int decrementRefCount(@Param("namespace") String namespace, @Param("sha256") String sha256);
+
+    @Modifying
+    @Query("DELETE FROM StoredContent c WHERE c.namespace = :namespace AND c.sha256 = :sha256 AND c.refCount <= 0")
+    int deleteUnreferenced(@Param("namespace") String namespace, @Param("sha256") String sha256);
+}
@@ -3,6 +3,8 @@ package com.example.Insurance.repository;
 import com.example.Insurance.entity.UserC;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -10,6 +12,8 @@ public interface UserClaimRepository extends JpaRepository<UserC, Long> {
 
     Optional<UserC> findByEmail(String email);
     Optional<UserC> findByNic(String nic);
+    Optional<UserC> findFirstByNicOrderByIdAsc(String nic);
+    List<UserC> findByNicIn(Collection<String> nics);
     boolean existsByEmail(String email);
     boolean existsByNic(String nic);
 }
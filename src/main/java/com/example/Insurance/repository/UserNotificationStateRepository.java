@@ -0,0 +1,32 @@
+package com.example.Insurance.repository;
+
+import com.example.Insurance.entity.UserNotificationState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserNotificationStateRepository extends JpaRepository<UserNotificationState, Long> {
+
+    // A user's state for one broadcast
+    Optional<UserNotificationState> findByUserIdAndAdminNotificationId(Long userId, Long adminNotificationId);
+
+    // A user's states for several broadcasts
+    List<UserNotificationState> findByUserIdAndAdminNotificationIdIn(Long userId, Collection<Long> adminNotificationIds);
+
+    // Users that already have a state for a broadcast, of those given
+    @Query("SELECT s.userId FROM UserNotificationState s WHERE s.adminNotificationId = :adminNotificationId AND s.userId IN :userIds")
+    List<Long> findUserIdsByAdminNotificationIdAndUserIdIn(@Param("adminNotificationId") Long adminNotificationId,
+                                                           @Param("userIds") Collection<Long> userIds);
+
+    // The broadcast itself was deleted
+    @Modifying
+    @Query("DELETE FROM UserNotificationState s WHERE s.adminNotificationId = :adminNotificationId")
+    void deleteByAdminNotificationId(@Param("adminNotificationId") Long adminNotificationId);
+}
@@ -1,18 +1,28 @@
 package com.example.Insurance.service;
 
 import com.example.Insurance.DTO.ClaimDTO;
+import com.example.Insurance.DTO.ClaimSearchCriteria;
+import com.example.Insurance.DTO.ClaimSearchPage;
+import com.example.Insurance.DTO.ClaimSummary;
+import com.example.Insurance.DTO.DuplicateMatch;
 import com.example.Insurance.entity.Claim;
-import com.example.Insurance.entity.ClaimPhoto;
 import com.example.Insurance.entity.UserC;
 import com.example.Insurance.entity.UserClaimNotification;
+import com.example.Insurance.id.BusinessIds;
 import com.example.Insurance.repository.ClaimRepository;
-import com.example.Insurance.repository.ClaimPhotoRepository;
-import com.example.Insurance.repository.UserClaimRepository;
-import com.example.Insurance.repository.UserClaimNotificationRepository;
+import com.example.Insurance.repository.ClaimSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,17 +31,29 @@ import java.util.stream.Collectors;
 @Transactional
 public class AdminClaimsService {
 
+    public static final int DEFAULT_SEARCH_PAGE_SIZE = 50;
+    public static final int MAX_SEARCH_PAGE_SIZE = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private ClaimRepository claimRepository;
 
     @Autowired
-    private ClaimPhotoRepository claimPhotoRepository;
+    private ClaimDuplicateService claimDuplicateService;
+
+    @Autowired
+    private ClaimPhotoService claimPhotoService;
 
     @Autowired
-    private UserClaimRepository userClaimRepository;
+    private ClaimStatsService claimStatsService;
 
     @Autowired
-    private UserClaimNotificationRepository userClaimNotificationRepository;
+    private ClaimNotificationService claimNotificationService;
+
+    @Autowired
+    private ClaimantService claimantService;
 
     // Get all claims
     public List<ClaimDTO> getAllClaims() {
@@ -49,6 +71,68 @@ public class AdminClaimsService {
                 .collect(Collectors.toList());
     }
 
+    // Keyset-paginated claim search, newest first. Cursor is the opaque nextCursor of the previous
+    // page. Rows are read as ClaimSummary projections, so the description column is never fetched.
+    @Transactional(readOnly = true)
+    public ClaimSearchPage searchClaims(ClaimSearchCriteria criteria, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_SEARCH_PAGE_SIZE));
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ClaimSummary> query = cb.createQuery(ClaimSummary.class);
+        Root<Claim> claim = query.from(Claim.class);
+        Path<LocalDateTime> submittedDate = claim.get("submittedDate");
+        Path<Long> id = claim.get("id");
+
+        Predicate where = ClaimSpecifications.matching(criteria).toPredicate(claim, query, cb);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            LocalDateTime cursorDate = LocalDateTime.parse(parts[0]);
+            Long cursorId = Long.valueOf(parts[1]);
+            where = cb.and(where, cb.or(
+                    cb.lessThan(submittedDate, cursorDate),
+                    cb.and(cb.equal(submittedDate, cursorDate), cb.lessThan(id, cursorId))));
+        }
+
+        query.select(cb.construct(ClaimSummary.class,
+                        id, claim.get("claimNumber"), claim.get("fullName"), claim.get("nic"), claim.get("phone"),
+                        claim.get("vehicleNumber"), claim.get("vehicleModel"), claim.get("incidentType"),
+                        claim.get("incidentDate"), claim.get("status"), submittedDate, claim.get("processedDate"),
+                        claim.get("isDuplicate"), claim.get("duplicateScore"), claim.get("duplicateOfId")))
+                .where(where)
+                .orderBy(cb.desc(submittedDate), cb.desc(id));
+
+        // Fetch one extra row to learn whether another page exists
+        List<ClaimSummary> rows = entityManager.createQuery(query)
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            ClaimSummary last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(last.submittedDate(), last.id());
+        }
+        return new ClaimSearchPage(rows, nextCursor);
+    }
+
+    private String encodeCursor(LocalDateTime submittedDate, Long claimId) {
+        String raw = submittedDate + "|" + claimId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid claim search cursor: " + cursor);
+        }
+    }
+
     // Get duplicate claims
     public List<ClaimDTO> getDuplicateClaims() {
         List<Claim> claims = claimRepository.findByIsDuplicate(true);
@@ -75,80 +159,122 @@ public class AdminClaimsService {
         throw new RuntimeException("Claim not found with claim number: " + claimNumber);
     }
 
-    // Approve claim with user notification
     public ClaimDTO approveClaim(Long id, String adminReason) {
+        return approveClaim(id, adminReason, Claim.ClaimStatus.PENDING);
+    }
+
+    // Approve claim with user notification. Compare-and-set on the status the admin decided from (PENDING
+    // unless correcting an earlier decision), so of two admins deciding at once only one changes the claim
+    // and notifies the user; the other gets a StatusConflictException.
+    public ClaimDTO approveClaim(Long id, String adminReason, Claim.ClaimStatus expectedStatus) {
         Optional<Claim> optionalClaim = claimRepository.findById(id);
         if (optionalClaim.isPresent()) {
-            Claim claim = optionalClaim.get();
-            claim.setStatus(Claim.ClaimStatus.APPROVED);
-            claim.setAdminReason(adminReason);
-            claim.setProcessedDate(LocalDateTime.now());
-            Claim savedClaim = claimRepository.save(claim);
-
-            // Send notification to user
-            sendUserNotification(claim, "Claim Approved! 🎉",
-                    "Great news! Your claim #" + claim.getClaimNumber() + " has been approved. " +
-                            (adminReason != null && !adminReason.isEmpty() ? "Reason: " + adminReason : "Processing will begin shortly."),
-                    UserClaimNotification.NotificationType.CLAIM_APPROVED);
-
-            return convertToDTO(savedClaim);
+            Claim claim = decide(optionalClaim.get(), expectedStatus, Claim.ClaimStatus.APPROVED, adminReason);
+            return convertToDTO(claim);
         }
         throw new RuntimeException("Claim not found with id: " + id);
     }
 
-    // Reject claim with user notification
     public ClaimDTO rejectClaim(Long id, String adminReason) {
+        return rejectClaim(id, adminReason, Claim.ClaimStatus.PENDING);
+    }
+
+    // Reject claim with user notification (compare-and-set, as approveClaim)
+    public ClaimDTO rejectClaim(Long id, String adminReason, Claim.ClaimStatus expectedStatus) {
         Optional<Claim> optionalClaim = claimRepository.findById(id);
         if (optionalClaim.isPresent()) {
-            Claim claim = optionalClaim.get();
-            claim.setStatus(Claim.ClaimStatus.REJECTED);
-            claim.setAdminReason(adminReason);
-            claim.setProcessedDate(LocalDateTime.now());
-            Claim savedClaim = claimRepository.save(claim);
-
-            // Send notification to user
-            sendUserNotification(claim, "Claim Update",
-                    "Your claim #" + claim.getClaimNumber() + " has been rejected. " +
+            Claim claim = decide(optionalClaim.get(), expectedStatus, Claim.ClaimStatus.REJECTED, adminReason);
+            return convertToDTO(claim);
+        }
+        throw new RuntimeException("Claim not found with id: " + id);
+    }
+
+    // Approve or reject several pending claims in one transaction. Claims another admin already decided are
+    // reported as conflicts rather than failing the rest; the users' notifications go out as one batch.
+    public Map<String, Object> decideClaims(List<Long> ids, Claim.ClaimStatus to, String adminReason) {
+        Map<Long, Claim> claims = claimRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Claim::getId, claim -> claim));
+        List<ClaimDTO> decided = new ArrayList<>();
+        List<Long> conflicts = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Claim claim = claims.get(id);
+            if (claim == null) {
+                notFound.add(id);
+                continue;
+            }
+            try {
+                decided.add(convertToDTO(decide(claim, Claim.ClaimStatus.PENDING, to, adminReason)));
+            } catch (StatusConflictException e) {
+                conflicts.add(id);
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("decided", decided);
+        result.put("conflicts", conflicts);
+        result.put("notFound", notFound);
+        return result;
+    }
+
+    private Claim decide(Claim claim, Claim.ClaimStatus from, Claim.ClaimStatus to, String adminReason) {
+        if (from == to) {
+            throw new StatusConflictException("Claim " + claim.getClaimNumber() + " cannot be moved from " + from + " to itself");
+        }
+        if (claimRepository.transitionStatus(claim.getId(), from, to, adminReason, LocalDateTime.now()) == 0) {
+            throw new StatusConflictException("Claim " + claim.getClaimNumber() + " is no longer " + from
+                    + "; it was changed by another user, reload and try again");
+        }
+        claimStatsService.claimsChanged();
+        Claim decided = claimRepository.findById(claim.getId())
+                .orElseThrow(() -> new RuntimeException("Claim not found with id: " + claim.getId()));
+
+        // Send notification to user
+        if (to == Claim.ClaimStatus.APPROVED) {
+            claimNotificationService.notifyClaimUser(decided, "Claim Approved! 🎉",
+                    "Great news! Your claim #" + decided.getClaimNumber() + " has been approved. " +
+                            (adminReason != null && !adminReason.isEmpty() ? "Reason: " + adminReason : "Processing will begin shortly."),
+                    UserClaimNotification.NotificationType.CLAIM_APPROVED);
+        } else if (to == Claim.ClaimStatus.REJECTED) {
+            claimNotificationService.notifyClaimUser(decided, "Claim Update",
+                    "Your claim #" + decided.getClaimNumber() + " has been rejected. " +
                             (adminReason != null && !adminReason.isEmpty() ? "Reason: " + adminReason : "Please contact support for more information."),
                     UserClaimNotification.NotificationType.CLAIM_REJECTED);
-
-            return convertToDTO(savedClaim);
         }
-        throw new RuntimeException("Claim not found with id: " + id);
+        return decided;
+    }
+
+    // Existing claims that resemble this one (either direction), best first
+    @Transactional(readOnly = true)
+    public List<DuplicateMatch> getDuplicateMatches(Long id) {
+        Claim claim = claimRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Claim not found with id: " + id));
+        return claimDuplicateService.findMatches(claim, false);
     }
 
     // Get claim statistics
     public Map<String, Long> getClaimStatistics() {
-        Map<String, Long> stats = new HashMap<>();
-        stats.put("pending", claimRepository.countByStatus(Claim.ClaimStatus.PENDING));
-        stats.put("approved", claimRepository.countByStatus(Claim.ClaimStatus.APPROVED));
-        stats.put("rejected", claimRepository.countByStatus(Claim.ClaimStatus.REJECTED));
-        stats.put("duplicates", (long) claimRepository.findByIsDuplicate(true).size());
-        return stats;
+        return claimStatsService.getClaimStatistics();
     }
 
     // Create new claim (for testing) - Updated to include user relationship
     public ClaimDTO createClaim(ClaimDTO claimDTO) {
         Claim claim = convertToEntity(claimDTO);
-        claim.setClaimNumber(generateClaimNumber());
+        claim.setClaimNumber(BusinessIds.claimNumber());
         claim.setSubmittedDate(LocalDateTime.now());
 
         // Get or create user for the claim
-        UserC user = getOrCreateUser(claimDTO);
+        UserC user = claimantService.upsert(claimDTO);
         claim.setUser(user);
 
         // Check for duplicates
-        List<Claim> potentialDuplicates = claimRepository.findPotentialDuplicates(
-                claim.getNic(), claim.getVehicleNumber()
-        );
-        if (!potentialDuplicates.isEmpty()) {
-            claim.setIsDuplicate(true);
-        }
+        claimDuplicateService.assess(claim);
 
         Claim savedClaim = claimRepository.save(claim);
+        claimDuplicateService.claimChanged(savedClaim, null);
+        claimStatsService.claimsChanged();
 
         // Send notification to user
-        sendUserNotification(savedClaim, "Claim Submitted Successfully",
+        claimNotificationService.notifyClaimUser(savedClaim, "Claim Submitted Successfully",
                 "Your claim #" + savedClaim.getClaimNumber() + " has been submitted and is being reviewed by our team.",
                 UserClaimNotification.NotificationType.CLAIM_SUBMITTED);
 
@@ -160,8 +286,11 @@ public class AdminClaimsService {
         Optional<Claim> optionalClaim = claimRepository.findById(id);
         if (optionalClaim.isPresent()) {
             Claim existingClaim = optionalClaim.get();
+            List<String> previousKeys = claimDuplicateService.keysOf(existingClaim);
             updateClaimFromDTO(existingClaim, claimDTO);
             Claim updatedClaim = claimRepository.save(existingClaim);
+            claimDuplicateService.claimChanged(updatedClaim, previousKeys);
+            claimStatsService.claimsChanged();
             return convertToDTO(updatedClaim);
         }
         throw new RuntimeException("Claim not found with id: " + id);
@@ -169,64 +298,14 @@ public class AdminClaimsService {
 
     // Delete claim
     public void deleteClaim(Long id) {
-        if (claimRepository.existsById(id)) {
-            claimRepository.deleteById(id);
-        } else {
-            throw new RuntimeException("Claim not found with id: " + id);
-        }
-    }
-
-    // Get photos for claim
-    public List<ClaimPhoto> getClaimPhotos(Long claimId) {
-        return claimPhotoRepository.findByClaimId(claimId);
+        Claim claim = claimRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Claim not found with id: " + id));
+        claimPhotoService.releasePhotos(id);
+        claimRepository.delete(claim);
+        claimDuplicateService.claimChanged(claim, null);
+        claimStatsService.claimsChanged();
     }
 
-    // Helper method to get or create user
-    private UserC getOrCreateUser(ClaimDTO claimDTO) {
-        return userClaimRepository.findByNic(claimDTO.getNic())
-                .orElseGet(() -> {
-                    UserC newUser = new UserC();
-                    newUser.setFullName(claimDTO.getFullName());
-                    newUser.setEmail(claimDTO.getEmail());
-                    newUser.setNic(claimDTO.getNic());
-                    newUser.setPhone(claimDTO.getPhone());
-                    newUser.setAge(claimDTO.getAge());
-                    return userClaimRepository.save(newUser);
-                });
-    }
-
-    // Helper method to send user notifications
-    private void sendUserNotification(Claim claim, String title, String message, UserClaimNotification.NotificationType type) {
-        try {
-            UserC user = null;
-
-            // Try to get user from claim relationship first
-            if (claim.getUser() != null) {
-                user = claim.getUser();
-            } else {
-                // If no user relationship, try to find by NIC
-                Optional<UserC> userOptional = userClaimRepository.findByNic(claim.getNic());
-                if (userOptional.isPresent()) {
-                    user = userOptional.get();
-                    // Update the claim with user relationship
-                    claim.setUser(user);
-                    claimRepository.save(claim);
-                }
-            }
-
-            // Send notification if user exists
-            if (user != null) {
-                UserClaimNotification notification = new UserClaimNotification(user, claim, title, message, type);
-                userClaimNotificationRepository.save(notification);
-                System.out.println("Notification sent to user: " + user.getFullName() + " for claim: " + claim.getClaimNumber());
-            } else {
-                System.out.println("Warning: Could not find user for claim: " + claim.getClaimNumber());
-            }
-        } catch (Exception e) {
-            System.err.println("Error sending notification for claim " + claim.getClaimNumber() + ": " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
 
     // Helper methods
     private ClaimDTO convertToDTO(Claim claim) {
@@ -249,6 +328,8 @@ public class AdminClaimsService {
         dto.setSubmittedDate(claim.getSubmittedDate());
         dto.setProcessedDate(claim.getProcessedDate());
         dto.setIsDuplicate(claim.getIsDuplicate());
+        dto.setDuplicateScore(claim.getDuplicateScore());
+        dto.setDuplicateOfId(claim.getDuplicateOfId());
         return dto;
     }
 
@@ -288,8 +369,4 @@ public class AdminClaimsService {
         claim.setIncidentType(dto.getIncidentType());
         claim.setDescription(dto.getDescription());
     }
-
-    private String generateClaimNumber() {
-        return "CLM" + System.currentTimeMillis();
-    }
 }
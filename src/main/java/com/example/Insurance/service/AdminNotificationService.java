@@ -5,6 +5,7 @@ import com.example.Insurance.entity.AdminNotification;
 import com.example.Insurance.entity.UserNotification;
 import com.example.Insurance.repository.AdminNotificationRepository;
 import com.example.Insurance.repository.UserNotificationRepository;
+import com.example.Insurance.repository.UserNotificationStateRepository;
 import com.example.Insurance.observer.NotificationSubject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -27,6 +28,9 @@ public class AdminNotificationService {
     @Autowired
     private UserNotificationRepository userNotificationRepository;
 
+    @Autowired
+    private UserNotificationStateRepository userNotificationStateRepository;
+
     @Autowired
     private NotificationSubject notificationSubject;
 
@@ -82,6 +86,7 @@ public class AdminNotificationService {
     // Hard delete notification
     public boolean deleteNotification(Long id) {
         if (adminNotificationRepository.existsById(id)) {
+            userNotificationStateRepository.deleteByAdminNotificationId(id);
             adminNotificationRepository.deleteById(id);
             return true;
         }
@@ -99,6 +104,7 @@ public class AdminNotificationService {
 
             notification.setStatus(AdminNotification.NotificationStatus.SENT);
             notification.setSentCount(sentCount);
+            notification.setSentDate(LocalDateTime.now());
             notification.setUpdatedDate(LocalDateTime.now());
 
             AdminNotification updatedNotification = adminNotificationRepository.save(notification);
@@ -120,6 +126,7 @@ public class AdminNotificationService {
 
         notification.setStatus(AdminNotification.NotificationStatus.SENT);
         notification.setSentCount(sentCount);
+        notification.setSentDate(LocalDateTime.now());
         notification.setCreatedBy("admin");
 
         AdminNotification savedNotification = adminNotificationRepository.save(notification);
@@ -158,6 +165,7 @@ public class AdminNotificationService {
 
     // Hard delete all notifications
     public void clearAllNotifications() {
+        userNotificationStateRepository.deleteAllInBatch();
         adminNotificationRepository.deleteAll();
     }
 
@@ -0,0 +1,373 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.PendingBankSlipDTO;
+import com.example.Insurance.DTO.ReconciliationReport;
+import com.example.Insurance.Enums.PaymentMethod;
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.Enums.ReconciliationOutcome;
+import com.example.Insurance.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Reconciles a bank statement (CSV) against pending bank-slip payments.
+ * <p>
+ * The file is memory-mapped and split into lines in one sequential pass over the bytes; the lines
+ * are then decoded and parsed in parallel. Statement credits are hash-indexed on (reference,
+ * amount, deposit date) and on reference alone, and every pending bank-slip payment is looked up
+ * in parallel. A payment is MATCHED only when exactly one statement line has its reference, amount
+ * and date and no other pending payment claims that line; matches can be passed straight to bulk
+ * approval, which re-checks that each payment is still pending.
+ * <p>
+ * The header row must name a reference, an amount and a date column (common bank spellings are
+ * accepted). Fields may be quoted; quoted fields cannot span lines.
+ */
+@Service
+public class BankStatementReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BankStatementReconciliationService.class);
+
+    private static final int SAMPLE_LIMIT = 100;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NOT_AMOUNT = Pattern.compile("[^0-9.\\-]");
+    private static final Pattern NOT_LETTER = Pattern.compile("[^a-z]");
+
+    private static final Set<String> REFERENCE_HEADERS = Set.of("reference", "referencenumber", "referenceno", "ref", "refno");
+    private static final Set<String> AMOUNT_HEADERS = Set.of("amount", "credit", "creditamount", "deposit", "depositamount");
+    private static final Set<String> DATE_HEADERS = Set.of("date", "depositdate", "valuedate", "transactiondate", "postingdate");
+
+    // Day-first, as printed on local statements
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+            DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentBulkApprovalService bulkApprovalService;
+
+    public ReconciliationReport reconcile(Path statementFile, boolean approveMatches, String adminComments) throws IOException {
+        long started = System.nanoTime();
+        ReconciliationReport report = new ReconciliationReport();
+
+        List<StatementLine> lines = parse(statementFile, report);
+
+        Map<MatchKey, List<StatementLine>> byKey = lines.parallelStream()
+                .collect(Collectors.groupingByConcurrent(StatementLine::key));
+        Map<String, List<StatementLine>> byReference = lines.parallelStream()
+                .collect(Collectors.groupingByConcurrent(line -> line.key().reference()));
+
+        List<PendingBankSlipDTO> pending = paymentRepository.findBankSlipSummaries(PaymentStatus.PENDING, PaymentMethod.BANK_SLIP);
+        report.setPendingPayments(pending.size());
+
+        // How many pending payments claim each exact key - two payments cannot both match one credit
+        ConcurrentMap<MatchKey, Long> claims = pending.parallelStream()
+                .map(BankStatementReconciliationService::keyOf)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingByConcurrent(Function.identity(), Collectors.counting()));
+
+        List<ReconciliationReport.Mismatch> results = pending.parallelStream()
+                .map(payment -> classify(payment, byKey, byReference, claims))
+                .sorted(Comparator.comparing(ReconciliationReport.Mismatch::paymentId))
+                .toList();
+
+        for (ReconciliationReport.Mismatch result : results) {
+            report.getOutcomeCounts().merge(result.outcome(), 1, Integer::sum);
+            if (result.outcome() == ReconciliationOutcome.MATCHED) {
+                report.getMatchedPaymentIds().add(result.paymentId());
+            } else {
+                report.getMismatches().add(result);
+            }
+        }
+
+        List<Integer> unmatched = lines.parallelStream()
+                .filter(line -> !claims.containsKey(line.key()))
+                .map(StatementLine::lineNumber)
+                .sorted()
+                .toList();
+        report.setUnmatchedStatementLineCount(unmatched.size());
+        report.setUnmatchedStatementLines(new ArrayList<>(unmatched.subList(0, Math.min(SAMPLE_LIMIT, unmatched.size()))));
+
+        if (approveMatches && !report.getMatchedPaymentIds().isEmpty()) {
+            report.setApproval(bulkApprovalService.approve(report.getMatchedPaymentIds(), adminComments));
+        }
+
+        report.setElapsedMs((System.nanoTime() - started) / 1_000_000);
+        logger.info("Reconciled {} statement lines against {} pending bank-slip payments in {} ms: {}",
+                report.getParsedLines(), pending.size(), report.getElapsedMs(), report.getOutcomeCounts());
+        return report;
+    }
+
+    private static ReconciliationReport.Mismatch classify(PendingBankSlipDTO payment, Map<MatchKey, List<StatementLine>> byKey,
+                                                          Map<String, List<StatementLine>> byReference,
+                                                          Map<MatchKey, Long> claims) {
+        String reference = normalizeReference(payment.referenceNumber());
+        if (reference == null) {
+            return new ReconciliationReport.Mismatch(payment.paymentId(), ReconciliationOutcome.NOT_FOUND,
+                    "Payment has no bank reference number", List.of());
+        }
+
+        MatchKey key = keyOf(payment);
+        List<StatementLine> exact = key != null ? byKey.get(key) : null;
+        if (exact != null) {
+            long claimedBy = claims.getOrDefault(key, 0L);
+            if (exact.size() == 1 && claimedBy == 1) {
+                return new ReconciliationReport.Mismatch(payment.paymentId(), ReconciliationOutcome.MATCHED, null,
+                        List.of(exact.get(0).lineNumber()));
+            }
+            return new ReconciliationReport.Mismatch(payment.paymentId(), ReconciliationOutcome.AMBIGUOUS,
+                    exact.size() + " statement line(s) and " + claimedBy + " pending payment(s) share reference "
+                            + reference + ", amount " + key.amount() + " and date " + key.date(),
+                    lineNumbers(exact));
+        }
+
+        List<StatementLine> sameReference = byReference.get(reference);
+        if (sameReference == null) {
+            return new ReconciliationReport.Mismatch(payment.paymentId(), ReconciliationOutcome.NOT_FOUND,
+                    "No statement line with reference " + reference, List.of());
+        }
+
+        BigDecimal amount = normalizeAmount(payment.amount());
+        boolean amountSeen = amount != null && sameReference.stream().anyMatch(line -> line.key().amount().equals(amount));
+        StringBuilder found = new StringBuilder();
+        for (StatementLine line : sameReference) {
+            if (found.length() > 0) found.append(", ");
+            found.append(line.key().amount()).append(" on ").append(line.key().date());
+        }
+        if (amountSeen) {
+            return new ReconciliationReport.Mismatch(payment.paymentId(), ReconciliationOutcome.DATE_MISMATCH,
+                    "Deposit date " + payment.depositDate() + " but statement has " + found, lineNumbers(sameReference));
+        }
+        return new ReconciliationReport.Mismatch(payment.paymentId(), ReconciliationOutcome.AMOUNT_MISMATCH,
+                "Amount " + amount + " but statement has " + found, lineNumbers(sameReference));
+    }
+
+    private List<StatementLine> parse(Path statementFile, ReconciliationReport report) throws IOException {
+        try (FileChannel channel = FileChannel.open(statementFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new IllegalArgumentException("Statement file is empty");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Statement file is larger than 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int[] starts = lineStarts(buffer, (int) size);
+            int lineCount = starts.length - 1;
+            int bom = size >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF ? 3 : 0;
+
+            String header = decode(buffer, starts[0] + bom, starts[1]);
+            char delimiter = count(header, ';') > count(header, ',') ? ';' : ',';
+            Columns columns = Columns.of(split(header, delimiter), new AtomicInteger());
+
+            StatementLine[] parsed = new StatementLine[lineCount];
+            String[] rejected = new String[lineCount];
+            IntStream.range(1, lineCount).parallel().forEach(i -> {
+                String text = decode(buffer, starts[i], starts[i + 1]);
+                if (text.isBlank()) {
+                    return;
+                }
+                try {
+                    parsed[i] = columns.parse(i + 1, split(text, delimiter));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    rejected[i] = "line " + (i + 1) + ": " + e.getMessage();
+                }
+            });
+
+            List<StatementLine> lines = new ArrayList<>(lineCount);
+            int rejectedCount = 0;
+            for (int i = 1; i < lineCount; i++) {
+                if (parsed[i] != null) {
+                    lines.add(parsed[i]);
+                } else if (rejected[i] != null) {
+                    if (rejectedCount++ < SAMPLE_LIMIT) {
+                        report.getRejectedLines().add(rejected[i]);
+                    }
+                }
+            }
+            report.setStatementLines(lineCount - 1);
+            report.setParsedLines(lines.size());
+            report.setRejectedLineCount(rejectedCount);
+            return lines;
+        }
+    }
+
+    // Offsets where each line starts, plus a final entry one past the end of the last line
+    private static int[] lineStarts(MappedByteBuffer buffer, int size) {
+        int[] starts = new int[1024];
+        int count = 1;
+        for (int i = 0; i < size; i++) {
+            if (buffer.get(i) == '\n' && i + 1 < size) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        starts = Arrays.copyOf(starts, count + 1);
+        starts[count] = size + 1;
+        return starts;
+    }
+
+    // Text of the line between start and the next line's start, without the line terminator.
+    // Absolute reads only, so threads can share the buffer.
+    private static String decode(MappedByteBuffer buffer, int start, int nextStart) {
+        int end = Math.min(nextStart - 1, buffer.capacity());
+        while (end > start && (buffer.get(end - 1) == '\r' || buffer.get(end - 1) == '\n')) {
+            end--;
+        }
+        byte[] bytes = new byte[Math.max(0, end - start)];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> split(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static int count(String text, char c) {
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) n++;
+        }
+        return n;
+    }
+
+    private static List<Integer> lineNumbers(List<StatementLine> lines) {
+        return lines.stream().map(StatementLine::lineNumber).sorted().toList();
+    }
+
+    private static MatchKey keyOf(PendingBankSlipDTO payment) {
+        String reference = normalizeReference(payment.referenceNumber());
+        BigDecimal amount = normalizeAmount(payment.amount());
+        if (reference == null || amount == null || payment.depositDate() == null) {
+            return null;
+        }
+        return new MatchKey(reference, amount, payment.depositDate());
+    }
+
+    private static String normalizeReference(String reference) {
+        if (reference == null) {
+            return null;
+        }
+        String normalized = WHITESPACE.matcher(reference).replaceAll("").toUpperCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private static BigDecimal normalizeAmount(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP) : null;
+    }
+
+    private record MatchKey(String reference, BigDecimal amount, LocalDate date) {
+    }
+
+    private record StatementLine(int lineNumber, MatchKey key) {
+    }
+
+    // Column positions from the header, plus the index of the date format that last parsed a line:
+    // a statement uses one format throughout, so every later line parses on the first attempt
+    private record Columns(int reference, int amount, int date, AtomicInteger dateFormat) {
+
+        static Columns of(List<String> header, AtomicInteger dateFormat) {
+            int reference = -1, amount = -1, date = -1;
+            for (int i = 0; i < header.size(); i++) {
+                String name = NOT_LETTER.matcher(header.get(i).toLowerCase(Locale.ROOT)).replaceAll("");
+                if (reference < 0 && REFERENCE_HEADERS.contains(name)) reference = i;
+                else if (amount < 0 && AMOUNT_HEADERS.contains(name)) amount = i;
+                else if (date < 0 && DATE_HEADERS.contains(name)) date = i;
+            }
+            if (reference < 0 || amount < 0 || date < 0) {
+                throw new IllegalArgumentException("Statement header must name a reference, an amount and a date column");
+            }
+            return new Columns(reference, amount, date, dateFormat);
+        }
+
+        StatementLine parse(int lineNumber, List<String> fields) {
+            if (fields.size() <= Math.max(reference, Math.max(amount, date))) {
+                throw new IllegalArgumentException("expected at least " + (Math.max(reference, Math.max(amount, date)) + 1) + " fields");
+            }
+            String ref = normalizeReference(fields.get(reference));
+            if (ref == null) {
+                throw new IllegalArgumentException("missing reference");
+            }
+            // Drop currency codes and thousands separators: "LKR 15,000.00" -> 15000.00
+            String rawAmount = NOT_AMOUNT.matcher(fields.get(amount)).replaceAll("");
+            if (rawAmount.isEmpty()) {
+                throw new IllegalArgumentException("missing amount");
+            }
+            BigDecimal value = normalizeAmount(new BigDecimal(rawAmount));
+            if (value.signum() <= 0) {
+                throw new IllegalArgumentException("not a credit");
+            }
+            return new StatementLine(lineNumber, new MatchKey(ref, value, parseDate(fields.get(date))));
+        }
+
+        private LocalDate parseDate(String text) {
+            int preferred = dateFormat.get();
+            for (int attempt = 0; attempt < DATE_FORMATS.size(); attempt++) {
+                int index = (preferred + attempt) % DATE_FORMATS.size();
+                try {
+                    LocalDate parsed = LocalDate.parse(text, DATE_FORMATS.get(index));
+                    if (index != preferred) {
+                        dateFormat.set(index);
+                    }
+                    return parsed;
+                } catch (DateTimeParseException e) {
+                    // try the next format
+                }
+            }
+            throw new IllegalArgumentException("unrecognised date '" + text + "'");
+        }
+    }
+}
@@ -0,0 +1,704 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.ClaimFingerprint;
+import com.example.Insurance.DTO.DuplicateMatch;
+import com.example.Insurance.DTO.DuplicateRescanReport;
+import com.example.Insurance.cache.BloomFilter;
+import com.example.Insurance.cache.BoundedTtlCache;
+import com.example.Insurance.entity.Claim;
+import com.example.Insurance.repository.ClaimRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Claim duplicate detection on normalized vehicle, chassis and NIC keys (see ClaimKeys).
+ * Candidates are the claims sharing any one key; each is scored on fuzzy vehicle/chassis
+ * similarity, NIC equality and incident-date proximity, so a repeat claim for the same
+ * vehicle months later is no longer a duplicate.
+ *
+ * Lookups go through a per-key cache of claim fingerprints, fronted by a Bloom filter of all
+ * keys so a claim for a vehicle, chassis and person never seen before costs no query. Both are
+ * per-instance; the filter is rebuilt on a schedule once it has taken more keys than it was
+ * sized for, and by every re-scan. A re-scan re-scores the whole claims table in parallel and
+ * writes back only the rows whose flag changed; it also clears flags left by the old
+ * exact-match check.
+ */
+@Service
+public class ClaimDuplicateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimDuplicateService.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE claims SET is_duplicate = ?, duplicate_score = ?, duplicate_of_id = ? WHERE id = ?";
+
+    // Weights of the identity part of the score; fields missing on either side are left out
+    private static final double VEHICLE_WEIGHT = 0.4;
+    private static final double CHASSIS_WEIGHT = 0.4;
+    private static final double NIC_WEIGHT = 0.2;
+
+    // Below this edit-distance similarity two vehicle or chassis numbers count as unrelated
+    private static final double MIN_FUZZY_SIMILARITY = 0.75;
+
+    // Proximity used when either claim has no incident date
+    private static final double UNKNOWN_DATE_PROXIMITY = 0.5;
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClaimStatsService claimStatsService;
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnly;
+
+    private final double threshold;
+    private final Duration dateWindow;
+    private final boolean bloomEnabled;
+    private final double bloomFalsePositiveRate;
+    private final int rescanThreads;
+    private final int batchSize;
+
+    // Prefixed key ("V:", "C:", "N:") -> claims carrying it
+    private final BoundedTtlCache<String, List<ClaimFingerprint>> fingerprintCache;
+
+    // Null until the first build (and always when disabled): every key is then looked up
+    private volatile BloomFilter bloomFilter;
+
+    // Keys registered while a new filter is built from a snapshot; added to it before the swap
+    private final Object bloomLock = new Object();
+    private Set<String> keysDuringRebuild;
+
+    private final AtomicReference<String> activeRescan = new AtomicReference<>();
+
+    // Finished re-scans stay pollable for a day
+    private final BoundedTtlCache<String, DuplicateRescanReport> rescans = new BoundedTtlCache<>(20, TimeUnit.DAYS.toMillis(1));
+
+    private final ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(2), runnable -> {
+                Thread thread = new Thread(runnable, "claim-duplicate-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public ClaimDuplicateService(PlatformTransactionManager transactionManager,
+                                 @Value("${app.claims.duplicates.threshold:0.6}") double threshold,
+                                 @Value("${app.claims.duplicates.date-window-days:14}") int dateWindowDays,
+                                 @Value("${app.claims.duplicates.cache.max-size:20000}") int cacheMaxSize,
+                                 @Value("${app.claims.duplicates.cache.ttl-seconds:300}") long cacheTtlSeconds,
+                                 @Value("${app.claims.duplicates.bloom.enabled:true}") boolean bloomEnabled,
+                                 @Value("${app.claims.duplicates.bloom.false-positive-rate:0.01}") double bloomFalsePositiveRate,
+                                 @Value("${app.claims.duplicates.rescan.threads:0}") int rescanThreads,
+                                 @Value("${app.claims.duplicates.rescan.batch-size:500}") int batchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.threshold = threshold;
+        this.dateWindow = Duration.ofDays(dateWindowDays);
+        this.fingerprintCache = new BoundedTtlCache<>(cacheMaxSize, TimeUnit.SECONDS.toMillis(cacheTtlSeconds));
+        this.bloomEnabled = bloomEnabled;
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+        this.rescanThreads = rescanThreads > 0 ? rescanThreads : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize;
+    }
+
+    // Flag the claim (before it is saved) if it resembles an earlier claim closely enough
+    public void assess(Claim claim) {
+        List<DuplicateMatch> matches = findMatches(claim, true);
+        if (!matches.isEmpty() && matches.get(0).score() >= threshold) {
+            DuplicateMatch best = matches.get(0);
+            claim.setIsDuplicate(true);
+            claim.setDuplicateScore(best.score());
+            claim.setDuplicateOfId(best.claimId());
+        } else {
+            claim.setIsDuplicate(false);
+            claim.setDuplicateScore(null);
+            claim.setDuplicateOfId(null);
+        }
+    }
+
+    // Claims resembling this one, best first. earlierOnly restricts to claims submitted before it.
+    public List<DuplicateMatch> findMatches(Claim claim, boolean earlierOnly) {
+        ClaimFingerprint self = fingerprintOf(claim);
+        Map<Long, ClaimFingerprint> candidates = new HashMap<>();
+        for (String key : prefixedKeys(self)) {
+            BloomFilter filter = bloomFilter;
+            if (filter != null && !filter.mightContain(key)) {
+                continue;
+            }
+            for (ClaimFingerprint candidate : lookup(key)) {
+                if (!candidate.id().equals(self.id()) && (!earlierOnly || self.id() == null || candidate.isBefore(self))) {
+                    candidates.putIfAbsent(candidate.id(), candidate);
+                }
+            }
+        }
+
+        List<DuplicateMatch> matches = new ArrayList<>();
+        for (ClaimFingerprint candidate : candidates.values()) {
+            double score = score(self, candidate, dateWindow);
+            if (score > 0) {
+                matches.add(new DuplicateMatch(candidate.id(), candidate.claimNumber(), score));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(DuplicateMatch::score).reversed()
+                .thenComparing(DuplicateMatch::claimId));
+        return matches;
+    }
+
+    // A claim was inserted, edited or deleted: record its keys in the filter and drop the cached
+    // candidate lists. previousKeys are the claim's prefixed keys before an edit, if any.
+    public void claimChanged(Claim claim, Collection<String> previousKeys) {
+        Set<String> keys = new HashSet<>(prefixedKeys(fingerprintOf(claim)));
+        if (previousKeys != null) {
+            keys.addAll(previousKeys);
+        }
+        keysChanged(keys);
+    }
+
+    // Claims were inserted in bulk (see ImportIndex): same bookkeeping as claimChanged for each
+    public void claimsImported(Collection<ClaimFingerprint> imported) {
+        Set<String> keys = new HashSet<>();
+        for (ClaimFingerprint fingerprint : imported) {
+            keys.addAll(prefixedKeys(fingerprint));
+        }
+        keysChanged(keys);
+    }
+
+    // Candidate index for one bulk import; see ImportIndex
+    public ImportIndex newImportIndex() {
+        return new ImportIndex();
+    }
+
+    /**
+     * Duplicate assessment for a bulk import without a query per row. Before each chunk of rows
+     * is assessed, the stored claims sharing a vehicle or chassis key with any of them are loaded
+     * with one IN query per key kind; rows accepted earlier in the same import are matched from
+     * memory. NIC keys are not looked up: a shared NIC alone can never reach the threshold, and a
+     * fleet owner's NIC may match thousands of claims.
+     */
+    public final class ImportIndex {
+
+        // Stored claims for the current chunk, by prefixed key
+        private final Map<String, List<ClaimFingerprint>> stored = new HashMap<>();
+
+        // Rows of this import accepted so far, by prefixed key (ID still null until inserted)
+        private final Map<String, List<ClaimFingerprint>> imported = new HashMap<>();
+
+        // Rows added since the last preload, withdrawn if their chunk does not commit
+        private final List<ClaimFingerprint> chunk = new ArrayList<>();
+
+        private ImportIndex() {
+        }
+
+        // Start a chunk: load the stored claims sharing a vehicle or chassis key with its rows
+        public void preload(Collection<ClaimFingerprint> rows) {
+            stored.clear();
+            chunk.clear();
+            Set<String> vehicleKeys = new HashSet<>();
+            Set<String> chassisKeys = new HashSet<>();
+            BloomFilter filter = bloomFilter;
+            for (ClaimFingerprint row : rows) {
+                if (row.vehicleKey() != null && (filter == null || filter.mightContain("V:" + row.vehicleKey()))) {
+                    vehicleKeys.add(row.vehicleKey());
+                }
+                if (row.chassisKey() != null && (filter == null || filter.mightContain("C:" + row.chassisKey()))) {
+                    chassisKeys.add(row.chassisKey());
+                }
+            }
+            if (!vehicleKeys.isEmpty()) {
+                for (ClaimFingerprint candidate : claimRepository.findFingerprintsByVehicleKeyIn(vehicleKeys)) {
+                    stored.computeIfAbsent("V:" + candidate.vehicleKey(), k -> new ArrayList<>()).add(candidate);
+                }
+            }
+            if (!chassisKeys.isEmpty()) {
+                for (ClaimFingerprint candidate : claimRepository.findFingerprintsByChassisKeyIn(chassisKeys)) {
+                    stored.computeIfAbsent("C:" + candidate.chassisKey(), k -> new ArrayList<>()).add(candidate);
+                }
+            }
+        }
+
+        // Best match at or above the threshold among stored claims and earlier rows, if any.
+        // A match on an earlier row of this import has a null claim ID; its claim number identifies it.
+        public Optional<DuplicateMatch> assess(ClaimFingerprint row) {
+            DuplicateMatch best = null;
+            Set<Object> seen = new HashSet<>();
+            for (String key : prefixedKeys(row)) {
+                if (key.startsWith("N:")) {
+                    continue;
+                }
+                for (Map<String, List<ClaimFingerprint>> source : List.of(stored, imported)) {
+                    for (ClaimFingerprint candidate : source.getOrDefault(key, List.of())) {
+                        if (!seen.add(candidate.claimNumber())) {
+                            continue;
+                        }
+                        double score = score(row, candidate, dateWindow);
+                        if (score >= threshold && (best == null || score > best.score())) {
+                            best = new DuplicateMatch(candidate.id(), candidate.claimNumber(), score);
+                        }
+                    }
+                }
+            }
+            return Optional.ofNullable(best);
+        }
+
+        public void add(ClaimFingerprint row) {
+            for (String key : prefixedKeys(row)) {
+                if (!key.startsWith("N:")) {
+                    imported.computeIfAbsent(key, k -> new ArrayList<>(2)).add(row);
+                }
+            }
+            chunk.add(row);
+        }
+
+        // The current chunk was rolled back: later rows must not match its rows
+        public void discardChunk() {
+            for (ClaimFingerprint row : chunk) {
+                for (String key : prefixedKeys(row)) {
+                    List<ClaimFingerprint> rows = imported.get(key);
+                    if (rows != null) {
+                        rows.remove(row);
+                    }
+                }
+            }
+            chunk.clear();
+        }
+    }
+
+    // Current prefixed keys of a claim, for passing to claimChanged after it is edited
+    public List<String> keysOf(Claim claim) {
+        return prefixedKeys(fingerprintOf(claim));
+    }
+
+    // Queue a re-scan of the whole claims table; if one is already queued or running, its job ID is returned
+    public String submitRescan() {
+        String jobId = UUID.randomUUID().toString();
+        while (!activeRescan.compareAndSet(null, jobId)) {
+            String active = activeRescan.get();
+            if (active != null) {
+                return active;
+            }
+        }
+
+        DuplicateRescanReport report = new DuplicateRescanReport();
+        report.setJobId(jobId);
+        report.setState("QUEUED");
+        rescans.put(jobId, report);
+
+        try {
+            worker.execute(() -> {
+                try {
+                    rescan(report);
+                } finally {
+                    activeRescan.set(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            activeRescan.set(null);
+            rescans.invalidate(jobId);
+            throw new IllegalStateException("Duplicate index is busy, try again later");
+        }
+        return jobId;
+    }
+
+    public Optional<DuplicateRescanReport> getRescan(String jobId) {
+        return rescans.get(jobId);
+    }
+
+    public Map<String, Object> getIndexStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threshold", threshold);
+        stats.put("dateWindowDays", dateWindow.toDays());
+        stats.put("cache", fingerprintCache.stats());
+        BloomFilter filter = bloomFilter;
+        if (filter != null) {
+            stats.put("bloomKeys", filter.getInsertions());
+            stats.put("bloomCapacity", filter.getExpectedInsertions());
+            stats.put("bloomBits", filter.getBitCount());
+            stats.put("bloomHashes", filter.getHashCount());
+        } else {
+            stats.put("bloomKeys", bloomEnabled ? "building" : "disabled");
+        }
+        return stats;
+    }
+
+    // Backfill keys of claims written before they existed, then build the filter - off the startup thread
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            worker.execute(() -> {
+                try {
+                    backfillKeys();
+                    if (bloomEnabled) {
+                        rebuildBloomFilter();
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to initialize claim duplicate index: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Claim duplicate index initialization skipped: worker busy");
+        }
+    }
+
+    // Periodic check - replace the filter once it holds more keys than it was sized for.
+    // Rebuilds run on the index worker, so they never overlap each other or a re-scan.
+    @Scheduled(fixedDelayString = "${app.claims.duplicates.bloom.refresh-interval-ms:3600000}",
+            initialDelayString = "${app.claims.duplicates.bloom.refresh-interval-ms:3600000}")
+    public void refreshBloomFilter() {
+        BloomFilter filter = bloomFilter;
+        if (!bloomEnabled || filter == null || !filter.isSaturated()) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                try {
+                    rebuildBloomFilter();
+                } catch (Exception e) {
+                    logger.error("Failed to rebuild claim key filter: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Claim key filter rebuild deferred: worker busy");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void rescan(DuplicateRescanReport report) {
+        long started = System.nanoTime();
+        report.setState("RUNNING");
+        report.setStartedAt(LocalDateTime.now());
+        try {
+            report.setKeysBackfilled(backfillKeys());
+
+            startKeyCapture();
+            List<ClaimFingerprint> fingerprints = loadFingerprints();
+            report.setScanned(fingerprints.size());
+
+            Map<String, List<Integer>> index = new HashMap<>();
+            for (int i = 0; i < fingerprints.size(); i++) {
+                for (String key : prefixedKeys(fingerprints.get(i))) {
+                    index.computeIfAbsent(key, k -> new ArrayList<>(2)).add(i);
+                }
+            }
+
+            int size = fingerprints.size();
+            double[] bestScores = new double[size];
+            long[] bestIds = new long[size];
+            ForkJoinPool pool = new ForkJoinPool(rescanThreads);
+            try {
+                pool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> {
+                    ClaimFingerprint self = fingerprints.get(i);
+                    Set<Integer> seen = new HashSet<>();
+                    for (String key : prefixedKeys(self)) {
+                        for (int j : index.getOrDefault(key, List.of())) {
+                            if (j == i || !seen.add(j)) {
+                                continue;
+                            }
+                            ClaimFingerprint candidate = fingerprints.get(j);
+                            if (!candidate.isBefore(self)) {
+                                continue;
+                            }
+                            double score = score(self, candidate, dateWindow);
+                            if (score >= threshold && (score > bestScores[i]
+                                    || (score == bestScores[i] && candidate.id() < bestIds[i]))) {
+                                bestScores[i] = score;
+                                bestIds[i] = candidate.id();
+                            }
+                        }
+                    }
+                })).get();
+            } finally {
+                pool.shutdown();
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            int flagged = 0;
+            for (int i = 0; i < size; i++) {
+                ClaimFingerprint fingerprint = fingerprints.get(i);
+                boolean duplicate = bestIds[i] != 0;
+                Double score = duplicate ? bestScores[i] : null;
+                Long duplicateOf = duplicate ? bestIds[i] : null;
+                boolean wasDuplicate = Boolean.TRUE.equals(fingerprint.isDuplicate());
+                if (duplicate) {
+                    flagged++;
+                    if (!wasDuplicate) {
+                        report.setNewlyFlagged(report.getNewlyFlagged() + 1);
+                    }
+                } else if (wasDuplicate) {
+                    report.setCleared(report.getCleared() + 1);
+                }
+                if (duplicate != wasDuplicate || !Objects.equals(score, fingerprint.duplicateScore())
+                        || !Objects.equals(duplicateOf, fingerprint.duplicateOfId())) {
+                    updates.add(new Object[]{duplicate, score, duplicateOf, fingerprint.id()});
+                }
+            }
+            report.setFlagged(flagged);
+
+            for (int from = 0; from < updates.size(); from += batchSize) {
+                List<Object[]> batch = updates.subList(from, Math.min(updates.size(), from + batchSize));
+                transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+                report.setUpdated(report.getUpdated() + batch.size());
+            }
+            if (!updates.isEmpty()) {
+                claimStatsService.claimsChanged();
+            }
+
+            installBloomFilter(fingerprints);
+            fingerprintCache.clear();
+
+            report.setState("COMPLETED");
+            logger.info("Duplicate re-scan {}: {} claims, {} flagged ({} new, {} cleared), {} rows updated in {} ms",
+                    report.getJobId(), size, flagged, report.getNewlyFlagged(), report.getCleared(), report.getUpdated(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            logger.error("Duplicate re-scan {} failed: {}", report.getJobId(), cause.getMessage());
+            report.setState("FAILED");
+            report.setError(cause.getMessage());
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            stopKeyCapture();
+            report.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    // Compute keys for claims that have none yet, one page per transaction; returns the number updated
+    private int backfillKeys() {
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long cursor = afterId;
+            List<Long> ids = transactionTemplate.execute(tx -> {
+                List<Claim> page = claimRepository.findWithoutDuplicateKeys(cursor, PageRequest.of(0, batchSize));
+                page.forEach(Claim::refreshDuplicateKeys);
+                return page.stream().map(Claim::getId).toList();
+            });
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (total > 0) {
+            logger.info("Backfilled duplicate-detection keys for {} claims", total);
+        }
+        return total;
+    }
+
+    private List<ClaimFingerprint> loadFingerprints() {
+        return readOnly.execute(tx -> {
+            try (Stream<ClaimFingerprint> stream = claimRepository.streamFingerprints()) {
+                return stream.toList();
+            }
+        });
+    }
+
+    private void rebuildBloomFilter() {
+        startKeyCapture();
+        try {
+            installBloomFilter(loadFingerprints());
+        } finally {
+            stopKeyCapture();
+        }
+    }
+
+    // Start recording registered keys; call before reading the snapshot the next filter is built from
+    private void startKeyCapture() {
+        if (bloomEnabled) {
+            synchronized (bloomLock) {
+                keysDuringRebuild = new HashSet<>();
+            }
+        }
+    }
+
+    private void stopKeyCapture() {
+        synchronized (bloomLock) {
+            keysDuringRebuild = null;
+        }
+    }
+
+    // Build a filter with room for twice the snapshot's keys (up to three per claim), add the keys
+    // registered since the capture started, and swap it in
+    private void installBloomFilter(List<ClaimFingerprint> snapshot) {
+        if (!bloomEnabled) {
+            return;
+        }
+        BloomFilter built = new BloomFilter(Math.max(1_000, snapshot.size() * 6L), bloomFalsePositiveRate);
+        for (ClaimFingerprint fingerprint : snapshot) {
+            prefixedKeys(fingerprint).forEach(built::put);
+        }
+        synchronized (bloomLock) {
+            if (keysDuringRebuild != null) {
+                keysDuringRebuild.forEach(built::put);
+            }
+            bloomFilter = built;
+        }
+        logger.info("Claim key filter rebuilt: {} keys, {} bits, {} hashes",
+                built.getInsertions(), built.getBitCount(), built.getHashCount());
+    }
+
+    // Record keys in the filter and drop their cached candidate lists now and again after commit,
+    // so a reader cannot re-cache the pre-commit rows
+    private void keysChanged(Set<String> keys) {
+        if (bloomEnabled) {
+            synchronized (bloomLock) {
+                for (String key : keys) {
+                    if (bloomFilter != null) {
+                        bloomFilter.put(key);
+                    }
+                    if (keysDuringRebuild != null) {
+                        keysDuringRebuild.add(key);
+                    }
+                }
+            }
+        }
+        keys.forEach(fingerprintCache::invalidate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    keys.forEach(fingerprintCache::invalidate);
+                }
+            });
+        }
+    }
+
+    private List<ClaimFingerprint> lookup(String key) {
+        return fingerprintCache.getOrLoad(key, this::loadCandidates).orElse(List.of());
+    }
+
+    private List<ClaimFingerprint> loadCandidates(String key) {
+        String value = key.substring(2);
+        return switch (key.charAt(0)) {
+            case 'V' -> claimRepository.findFingerprintsByVehicleKey(value);
+            case 'C' -> claimRepository.findFingerprintsByChassisKey(value);
+            default -> claimRepository.findFingerprintsByNicKey(value);
+        };
+    }
+
+    private static ClaimFingerprint fingerprintOf(Claim claim) {
+        return new ClaimFingerprint(claim.getId(), claim.getClaimNumber(), claim.getVehicleKey(), claim.getChassisKey(),
+                claim.getNicKey(), claim.getIncidentDate(), claim.getSubmittedDate(),
+                claim.getIsDuplicate(), claim.getDuplicateScore(), claim.getDuplicateOfId());
+    }
+
+    private static List<String> prefixedKeys(ClaimFingerprint fingerprint) {
+        List<String> keys = new ArrayList<>(3);
+        if (fingerprint.vehicleKey() != null) {
+            keys.add("V:" + fingerprint.vehicleKey());
+        }
+        if (fingerprint.chassisKey() != null) {
+            keys.add("C:" + fingerprint.chassisKey());
+        }
+        if (fingerprint.nicKey() != null) {
+            keys.add("N:" + fingerprint.nicKey());
+        }
+        return keys;
+    }
+
+    // Identity similarity (weighted over the fields both claims have) times incident-date proximity,
+    // which falls linearly from 1 for the same day to 0 at the end of the window. Rounded to 3 places.
+    static double score(ClaimFingerprint a, ClaimFingerprint b, Duration window) {
+        double weight = 0;
+        double total = 0;
+        if (a.vehicleKey() != null && b.vehicleKey() != null) {
+            weight += VEHICLE_WEIGHT;
+            total += VEHICLE_WEIGHT * fuzzySimilarity(a.vehicleKey(), b.vehicleKey());
+        }
+        if (a.chassisKey() != null && b.chassisKey() != null) {
+            weight += CHASSIS_WEIGHT;
+            total += CHASSIS_WEIGHT * fuzzySimilarity(a.chassisKey(), b.chassisKey());
+        }
+        if (weight == 0) {
+            // Same person alone is not a duplicate
+            return 0;
+        }
+        if (a.nicKey() != null && b.nicKey() != null) {
+            weight += NIC_WEIGHT;
+            total += a.nicKey().equals(b.nicKey()) ? NIC_WEIGHT : 0;
+        }
+
+        double proximity = UNKNOWN_DATE_PROXIMITY;
+        if (a.incidentDate() != null && b.incidentDate() != null) {
+            long apartMinutes = Math.abs(Duration.between(a.incidentDate(), b.incidentDate()).toMinutes());
+            long windowMinutes = Math.max(1, window.toMinutes());
+            proximity = apartMinutes >= windowMinutes ? 0 : 1 - (double) Math.max(0, apartMinutes - TimeUnit.DAYS.toMinutes(1))
+                    / Math.max(1, windowMinutes - TimeUnit.DAYS.toMinutes(1));
+        }
+        return Math.round(total / weight * proximity * 1000) / 1000.0;
+    }
+
+    // 1 - (optimal string alignment distance / longer length); near-misses below the floor count as 0
+    static double fuzzySimilarity(String a, String b) {
+        if (a.equals(b)) {
+            return 1;
+        }
+        int longer = Math.max(a.length(), b.length());
+        int maxDistance = (int) Math.floor(longer * (1 - MIN_FUZZY_SIMILARITY));
+        if (maxDistance == 0 || Math.abs(a.length() - b.length()) > maxDistance) {
+            return 0;
+        }
+        double similarity = 1 - (double) editDistance(a, b) / longer;
+        return similarity >= MIN_FUZZY_SIMILARITY ? similarity : 0;
+    }
+
+    // Levenshtein distance that also counts an adjacent transposition ("1243" vs "1234") as one edit
+    private static int editDistance(String a, String b) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, previous2[j - 2] + 1);
+                }
+                current[j] = distance;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
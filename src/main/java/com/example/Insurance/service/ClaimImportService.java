@@ -0,0 +1,466 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.ClaimDTO;
+import com.example.Insurance.DTO.ClaimFingerprint;
+import com.example.Insurance.DTO.ClaimImportReport;
+import com.example.Insurance.DTO.DuplicateMatch;
+import com.example.Insurance.Enums.ClaimImportOutcome;
+import com.example.Insurance.entity.Claim;
+import com.example.Insurance.entity.UserClaimNotification;
+import com.example.Insurance.id.BusinessIds;
+import com.example.Insurance.repository.ClaimRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Imports claims from a CSV file (e.g. a partner garage's weekly spreadsheet).
+ * <p>
+ * The file is read record by record and handled in chunks, so memory stays bounded by the chunk
+ * size plus the per-row report. Each chunk is validated against the same constraints as the Claim
+ * entity. Its claimants are resolved with one NIC IN query, creating any new ones together. Its
+ * rows are checked for duplicates against claims preloaded for the chunk and against rows
+ * imported earlier in the file. Its claims are then inserted with one JDBC batch, and the chunk
+ * commits on its own. A chunk that fails to commit marks its rows FAILED and the import carries on.
+ * <p>
+ * The header row names the columns; common spellings are accepted and order does not matter.
+ * Fields may be quoted, and quoted fields may span lines.
+ */
+@Service
+public class ClaimImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimImportService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO claims (claim_number, full_name, age, nic, phone, email, vehicle_number, vehicle_model, " +
+                    "chassis_number, incident_date, incident_type, description, status, submitted_date, is_duplicate, " +
+                    "duplicate_score, duplicate_of_id, vehicle_key, chassis_key, nic_key, user_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Duplicates of rows in the same chunk only get the target's ID once the chunk is inserted
+    private static final String DUPLICATE_OF_SQL = "UPDATE claims SET duplicate_of_id = ? WHERE id = ?";
+
+    // Chunk rows become IN-list parameters; SQL Server allows 2100 per statement
+    private static final int MAX_CHUNK_SIZE = 2000;
+
+    private static final Pattern NOT_LETTER = Pattern.compile("[^a-z]");
+
+    // Accepted header spellings (letters only, lower case) for each column
+    private enum Column {
+        FULL_NAME(true, "fullname", "name", "claimantname", "customername"),
+        AGE(true, "age"),
+        NIC(true, "nic", "nicno", "nicnumber", "nationalid"),
+        PHONE(true, "phone", "phonenumber", "phoneno", "mobile", "mobilenumber", "contactnumber", "telephone"),
+        EMAIL(true, "email", "emailaddress"),
+        VEHICLE_NUMBER(true, "vehiclenumber", "vehicleno", "registrationnumber", "registrationno", "regno"),
+        VEHICLE_MODEL(true, "vehiclemodel", "model", "makemodel"),
+        CHASSIS_NUMBER(true, "chassisnumber", "chassisno", "chassis", "vin"),
+        INCIDENT_DATE(true, "incidentdate", "dateofincident", "accidentdate", "date"),
+        INCIDENT_TYPE(true, "incidenttype", "claimtype", "type"),
+        DESCRIPTION(false, "description", "details", "notes");
+
+        private final boolean required;
+        private final Set<String> names;
+
+        Column(boolean required, String... names) {
+            this.required = required;
+            this.names = Set.of(names);
+        }
+    }
+
+    // Date-time formats first, then dates (taken as start of day); day-first as in local spreadsheets
+    private static final List<DateTimeFormatter> DATE_TIME_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss]"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm[:ss]"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm[:ss]"));
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+            DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private ClaimantService claimantService;
+
+    @Autowired
+    private ClaimDuplicateService claimDuplicateService;
+
+    @Autowired
+    private ClaimStatsService claimStatsService;
+
+    @Autowired
+    private ClaimNotificationService claimNotificationService;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public ClaimImportService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              Validator validator,
+                              @Value("${app.claims.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+    }
+
+    public ClaimImportReport importCsv(InputStream csv, String fileName) throws IOException {
+        long started = System.nanoTime();
+        ClaimImportReport report = new ClaimImportReport();
+        report.setFileName(fileName);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8), 64 * 1024);
+        String header = reader.readLine();
+        if (header == null || header.isBlank()) {
+            throw new IllegalArgumentException("Import file is empty");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char delimiter = count(header, ';') > count(header, ',') ? ';' : ',';
+        CsvRecords records = new CsvRecords(reader, delimiter, 2);
+        Map<Column, Integer> columns = columnsOf(records.split(header));
+        AtomicInteger dateFormat = new AtomicInteger();
+
+        ClaimDuplicateService.ImportIndex index = claimDuplicateService.newImportIndex();
+        Map<String, Long> importedIds = new HashMap<>();
+        List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+        List<String> fields;
+        while ((fields = records.next()) != null) {
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            chunk.add(parse(records.recordLine(), fields, columns, dateFormat));
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, index, importedIds, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, index, importedIds, report);
+        }
+
+        report.setElapsedMs((System.nanoTime() - started) / 1_000_000);
+        logger.info("Imported {} of {} claim rows from {} in {} ms: {}", report.getImported(), report.getRows(),
+                fileName, report.getElapsedMs(), report.getOutcomeCounts());
+        return report;
+    }
+
+    // A data row: the claim to insert and the claimant profile it carries, or why it was rejected
+    private record ParsedRow(int line, Claim claim, ClaimDTO profile, String error) {
+    }
+
+    private ParsedRow parse(int line, List<String> fields, Map<Column, Integer> columns, AtomicInteger dateFormat) {
+        try {
+            Claim claim = new Claim();
+            claim.setFullName(field(fields, columns, Column.FULL_NAME));
+            claim.setNic(field(fields, columns, Column.NIC));
+            claim.setPhone(field(fields, columns, Column.PHONE));
+            claim.setEmail(field(fields, columns, Column.EMAIL));
+            claim.setVehicleNumber(field(fields, columns, Column.VEHICLE_NUMBER));
+            claim.setVehicleModel(field(fields, columns, Column.VEHICLE_MODEL));
+            claim.setChassisNumber(field(fields, columns, Column.CHASSIS_NUMBER));
+            claim.setIncidentType(field(fields, columns, Column.INCIDENT_TYPE));
+            claim.setDescription(field(fields, columns, Column.DESCRIPTION));
+
+            String age = field(fields, columns, Column.AGE);
+            if (age != null) {
+                try {
+                    claim.setAge(Integer.parseInt(age));
+                } catch (NumberFormatException e) {
+                    return new ParsedRow(line, null, null, "age '" + age + "' is not a number");
+                }
+            }
+            String incidentDate = field(fields, columns, Column.INCIDENT_DATE);
+            if (incidentDate != null) {
+                claim.setIncidentDate(parseDateTime(incidentDate, dateFormat));
+            }
+
+            Set<ConstraintViolation<Claim>> violations = validator.validate(claim);
+            if (!violations.isEmpty()) {
+                String errors = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                return new ParsedRow(line, null, null, errors);
+            }
+
+            ClaimDTO profile = new ClaimDTO();
+            profile.setFullName(claim.getFullName());
+            profile.setNic(claim.getNic());
+            profile.setPhone(claim.getPhone());
+            profile.setEmail(claim.getEmail());
+            profile.setAge(claim.getAge());
+            return new ParsedRow(line, claim, profile, null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedRow(line, null, null, e.getMessage());
+        }
+    }
+
+    private void importChunk(List<ParsedRow> chunk, ClaimDuplicateService.ImportIndex index,
+                             Map<String, Long> importedIds, ClaimImportReport report) {
+        List<ParsedRow> valid = chunk.stream().filter(row -> row.claim() != null).toList();
+        Map<Integer, ClaimImportReport.Row> results = new HashMap<>();
+        if (!valid.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> insertChunk(valid, index, importedIds, results));
+            } catch (Exception e) {
+                logger.error("Claim import chunk at line {} failed: {}", valid.get(0).line(), e.getMessage());
+                index.discardChunk();
+                results.clear();
+                String message = "Not imported: " + e.getMessage();
+                for (ParsedRow row : valid) {
+                    results.put(row.line(), new ClaimImportReport.Row(row.line(), ClaimImportOutcome.FAILED,
+                            null, null, null, null, message));
+                }
+            }
+        }
+        for (ParsedRow row : chunk) {
+            report.add(row.claim() != null ? results.get(row.line())
+                    : new ClaimImportReport.Row(row.line(), ClaimImportOutcome.INVALID, null, null, null, null, row.error()));
+        }
+    }
+
+    private void insertChunk(List<ParsedRow> rows, ClaimDuplicateService.ImportIndex index,
+                             Map<String, Long> importedIds, Map<Integer, ClaimImportReport.Row> results) {
+        Map<String, Long> userIds = claimantService.resolveAll(rows.stream().map(ParsedRow::profile).toList());
+
+        LocalDateTime submitted = LocalDateTime.now();
+        List<ClaimFingerprint> fingerprints = new ArrayList<>(rows.size());
+        for (ParsedRow row : rows) {
+            Claim claim = row.claim();
+            claim.setClaimNumber(BusinessIds.claimNumber());
+            claim.setSubmittedDate(submitted);
+            claim.setStatus(Claim.ClaimStatus.PENDING);
+            fingerprints.add(fingerprintOf(claim));
+        }
+
+        index.preload(fingerprints);
+        List<DuplicateMatch> matches = new ArrayList<>(rows.size());
+        List<Object[]> inserts = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Claim claim = rows.get(i).claim();
+            DuplicateMatch match = index.assess(fingerprints.get(i)).orElse(null);
+            index.add(fingerprints.get(i));
+            matches.add(match);
+            if (match != null) {
+                claim.setIsDuplicate(true);
+                claim.setDuplicateScore(match.score());
+                claim.setDuplicateOfId(match.claimId() != null ? match.claimId() : importedIds.get(match.claimNumber()));
+            } else {
+                claim.setIsDuplicate(false);
+            }
+            inserts.add(new Object[]{claim.getClaimNumber(), claim.getFullName(), claim.getAge(), claim.getNic(),
+                    claim.getPhone(), claim.getEmail(), claim.getVehicleNumber(), claim.getVehicleModel(),
+                    claim.getChassisNumber(), Timestamp.valueOf(claim.getIncidentDate()), claim.getIncidentType(),
+                    claim.getDescription(), claim.getStatus().name(), Timestamp.valueOf(submitted), claim.getIsDuplicate(),
+                    claim.getDuplicateScore(), claim.getDuplicateOfId(), claim.getVehicleKey(), claim.getChassisKey(),
+                    claim.getNicKey(), userIds.get(claim.getNic().trim())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+
+        Map<String, Long> chunkIds = new HashMap<>();
+        for (Object[] row : claimRepository.findIdsByClaimNumbers(
+                rows.stream().map(row -> row.claim().getClaimNumber()).toList())) {
+            chunkIds.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        importedIds.putAll(chunkIds);
+
+        List<Object[]> deferred = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ParsedRow row = rows.get(i);
+            Claim claim = row.claim();
+            Long id = chunkIds.get(claim.getClaimNumber());
+            DuplicateMatch match = matches.get(i);
+            if (match != null && claim.getDuplicateOfId() == null) {
+                claim.setDuplicateOfId(importedIds.get(match.claimNumber()));
+                deferred.add(new Object[]{claim.getDuplicateOfId(), id});
+            }
+            results.put(row.line(), new ClaimImportReport.Row(row.line(),
+                    match != null ? ClaimImportOutcome.IMPORTED_DUPLICATE : ClaimImportOutcome.IMPORTED,
+                    id, claim.getClaimNumber(), match != null ? match.claimNumber() : null,
+                    match != null ? match.score() : null, null));
+
+            Long userId = userIds.get(claim.getNic().trim());
+            if (userId != null) {
+                claimNotificationService.notifyClaimant(userId, id, "Claim Submitted Successfully",
+                        "Your claim #" + claim.getClaimNumber() + " has been submitted and is being reviewed by our team.",
+                        UserClaimNotification.NotificationType.CLAIM_SUBMITTED);
+            }
+        }
+        if (!deferred.isEmpty()) {
+            jdbcTemplate.batchUpdate(DUPLICATE_OF_SQL, deferred);
+        }
+
+        claimDuplicateService.claimsImported(fingerprints);
+        claimStatsService.claimsChanged();
+    }
+
+    private static ClaimFingerprint fingerprintOf(Claim claim) {
+        return new ClaimFingerprint(null, claim.getClaimNumber(), claim.getVehicleKey(), claim.getChassisKey(),
+                claim.getNicKey(), claim.getIncidentDate(), claim.getSubmittedDate(), false, null, null);
+    }
+
+    private static Map<Column, Integer> columnsOf(List<String> header) {
+        Map<Column, Integer> columns = new EnumMap<>(Column.class);
+        for (int i = 0; i < header.size(); i++) {
+            String name = NOT_LETTER.matcher(header.get(i).toLowerCase(Locale.ROOT)).replaceAll("");
+            for (Column column : Column.values()) {
+                if (column.names.contains(name) && !columns.containsKey(column)) {
+                    columns.put(column, i);
+                    break;
+                }
+            }
+        }
+        List<String> missing = Arrays.stream(Column.values())
+                .filter(column -> column.required && !columns.containsKey(column))
+                .map(column -> column.name().toLowerCase(Locale.ROOT))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Import header is missing column(s): " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    // Trimmed value of a column, or null when the column is absent or the field is empty
+    private static String field(List<String> fields, Map<Column, Integer> columns, Column column) {
+        Integer position = columns.get(column);
+        if (position == null || position >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(position).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // A file uses one format throughout: the one that last worked is tried first
+    private static LocalDateTime parseDateTime(String text, AtomicInteger preferredFormat) {
+        int formats = DATE_TIME_FORMATS.size() + DATE_FORMATS.size();
+        int preferred = preferredFormat.get();
+        for (int attempt = 0; attempt < formats; attempt++) {
+            int index = (preferred + attempt) % formats;
+            try {
+                LocalDateTime parsed = index < DATE_TIME_FORMATS.size()
+                        ? LocalDateTime.parse(text, DATE_TIME_FORMATS.get(index))
+                        : LocalDate.parse(text, DATE_FORMATS.get(index - DATE_TIME_FORMATS.size())).atStartOfDay();
+                if (index != preferred) {
+                    preferredFormat.set(index);
+                }
+                return parsed;
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        throw new IllegalArgumentException("unrecognised incident date '" + text + "'");
+    }
+
+    private static int count(String text, char c) {
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) n++;
+        }
+        return n;
+    }
+
+    // Streaming CSV record reader: quoted fields may contain delimiters, doubled quotes and line breaks
+    private static final class CsvRecords {
+
+        private final Reader reader;
+        private final char delimiter;
+        private int line;
+        private int recordLine;
+
+        CsvRecords(Reader reader, char delimiter, int firstLine) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+            this.line = firstLine;
+        }
+
+        // Physical line the last record returned by next() started on
+        int recordLine() {
+            return recordLine;
+        }
+
+        List<String> next() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (c != -1) {
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (following != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        if (ch == '\n') {
+                            line++;
+                        }
+                        field.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    line++;
+                    break;
+                } else if (ch != '\r') {
+                    field.append(ch);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        // Split a single line (the header) the same way
+        List<String> split(String text) throws IOException {
+            CsvRecords single = new CsvRecords(new java.io.StringReader(text), delimiter, 1);
+            List<String> fields = single.next();
+            return fields != null ? fields : List.of();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.Insurance.service;
+
+// The claim does not exist, or was not filed under the NIC the caller gave. Controllers answer
+// 404 Not Found.
+public class ClaimNotFoundException extends RuntimeException {
+    public ClaimNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.entity.Claim;
+import com.example.Insurance.entity.UserC;
+import com.example.Insurance.entity.UserClaimNotification;
+import com.example.Insurance.repository.UserClaimRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes claim status notifications (submitted / approved / rejected) for users off the
+ * request path. Notifications raised inside a transaction are held until it commits, so a
+ * rolled-back decision never notifies, then queued for a single writer thread that inserts
+ * them with JDBC batches; a bulk decision committing N claims costs one batch, not N inserts.
+ * Claims not yet linked to their user are matched by NIC on the writer, in one lookup per batch.
+ */
+@Service
+public class ClaimNotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimNotificationService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_claim_notifications (user_id, claim_id, title, message, type, is_read, created_date) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Claims filed before users were linked get their user on first notification
+    private static final String LINK_USER_SQL = "UPDATE claims SET user_id = ? WHERE id = ? AND user_id IS NULL";
+
+    // What to write, captured by value so the writer never touches the publishing session's entities
+    private record PendingNotification(Long userId, String nic, Long claimId, String title, String message,
+                                       UserClaimNotification.NotificationType type, LocalDateTime createdDate) {
+    }
+
+    @Autowired
+    private UserClaimRepository userClaimRepository;
+
+    @Autowired
+    private ClaimStatsService claimStatsService;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long lingerMillis;
+
+    private final BlockingQueue<PendingNotification> queue;
+    private final Object transactionKey = new Object();
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public ClaimNotificationService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.claims.notifications.batch-size:200}") int batchSize,
+                                    @Value("${app.claims.notifications.linger-ms:50}") long lingerMillis,
+                                    @Value("${app.claims.notifications.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = new Thread(this::drainLoop, "claim-notification-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Notify the claim's user; when the claim has no user yet, the user with the claim's NIC
+    public void notifyClaimUser(Claim claim, String title, String message, UserClaimNotification.NotificationType type) {
+        UserC user = claim.getUser();
+        publish(new PendingNotification(user != null ? user.getId() : null, claim.getNic(), claim.getId(),
+                title, message, type, LocalDateTime.now()));
+    }
+
+    public void notifyUser(UserC user, Claim claim, String title, String message, UserClaimNotification.NotificationType type) {
+        publish(new PendingNotification(user.getId(), user.getNic(), claim != null ? claim.getId() : null,
+                title, message, type, LocalDateTime.now()));
+    }
+
+    // For bulk paths that have IDs rather than entities
+    public void notifyClaimant(Long userId, Long claimId, String title, String message, UserClaimNotification.NotificationType type) {
+        publish(new PendingNotification(userId, null, claimId, title, message, type, LocalDateTime.now()));
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void publish(PendingNotification notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(List.of(notification));
+            return;
+        }
+        // One buffer per transaction, handed to the writer in one piece after commit
+        @SuppressWarnings("unchecked")
+        List<PendingNotification> buffer = (List<PendingNotification>) TransactionSynchronizationManager.getResource(transactionKey);
+        if (buffer == null) {
+            List<PendingNotification> pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(transactionKey, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+                }
+            });
+            buffer = pending;
+        }
+        buffer.add(notification);
+    }
+
+    private void enqueue(List<PendingNotification> notifications) {
+        List<PendingNotification> overflow = null;
+        for (PendingNotification notification : notifications) {
+            if (!running || !queue.offer(notification)) {
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+                overflow.add(notification);
+            }
+        }
+        // Writer far behind (or stopped): write on the caller rather than drop or queue without bound
+        if (overflow != null) {
+            write(overflow);
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingNotification first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Give the rest of a burst a moment to arrive so it shares the batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingNotification next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingNotification> batch) {
+        try {
+            writeInTransaction(batch);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                // Notifications are not critical to the claim decision that raised them
+                PendingNotification notification = batch.get(0);
+                logger.error("Failed to write notification '{}' for claim {} (user {}, NIC {}): {}", notification.title(),
+                        notification.claimId(), notification.userId(), notification.nic(), e.getMessage());
+                return;
+            }
+            // One bad row rolls back the whole batch; write the rows one by one so only that row is lost
+            logger.warn("Failed to write {} claim notification(s), retrying one by one: {}", batch.size(), e.getMessage());
+            for (PendingNotification notification : batch) {
+                write(List.of(notification));
+            }
+        }
+    }
+
+    private void writeInTransaction(List<PendingNotification> batch) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            Map<String, Long> userIdsByNic = resolveUsers(batch);
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            Map<Long, Long> links = new HashMap<>();
+            for (PendingNotification notification : batch) {
+                Long userId = notification.userId();
+                if (userId == null) {
+                    userId = userIdsByNic.get(notification.nic());
+                    if (userId == null) {
+                        logger.warn("No user found for claim {} notification '{}'", notification.claimId(), notification.title());
+                        continue;
+                    }
+                    if (notification.claimId() != null) {
+                        links.put(notification.claimId(), userId);
+                    }
+                }
+                rows.add(new Object[]{userId, notification.claimId(), notification.title(), notification.message(),
+                        notification.type().name(), false, Timestamp.valueOf(notification.createdDate())});
+            }
+            if (!links.isEmpty()) {
+                List<Object[]> linkRows = new ArrayList<>(links.size());
+                links.forEach((claimId, userId) -> linkRows.add(new Object[]{userId, claimId}));
+                jdbcTemplate.batchUpdate(LINK_USER_SQL, linkRows);
+                claimStatsService.claimsChanged();
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            logger.debug("Wrote {} claim notification(s)", rows.size());
+        });
+    }
+
+    private Map<String, Long> resolveUsers(List<PendingNotification> batch) {
+        Set<String> nics = new HashSet<>();
+        for (PendingNotification notification : batch) {
+            if (notification.userId() == null && notification.nic() != null) {
+                nics.add(notification.nic());
+            }
+        }
+        Map<String, Long> userIdsByNic = new HashMap<>();
+        if (!nics.isEmpty()) {
+            for (UserC user : userClaimRepository.findByNicIn(nics)) {
+                userIdsByNic.put(user.getNic(), user.getId());
+            }
+        }
+        return userIdsByNic;
+    }
+
+    // Stop taking new work and write out whatever is still queued
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<PendingNotification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+}
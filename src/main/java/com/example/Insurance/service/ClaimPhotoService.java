@@ -0,0 +1,396 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.ClaimPhotoDTO;
+import com.example.Insurance.Enums.ImageType;
+import com.example.Insurance.Enums.PhotoPreviewStatus;
+import com.example.Insurance.entity.Claim;
+import com.example.Insurance.entity.ClaimKeys;
+import com.example.Insurance.entity.ClaimPhoto;
+import com.example.Insurance.entity.StoredContent;
+import com.example.Insurance.repository.ClaimPhotoRepository;
+import com.example.Insurance.repository.ClaimRepository;
+import com.example.Insurance.storage.ContentAddressedStore;
+import com.example.Insurance.storage.ImageScaler;
+import com.example.Insurance.storage.StoredFile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Claim photo uploads and their review-grid previews.
+ * Uploads are streamed into the content-addressed store after their leading bytes identify
+ * them as an accepted image type (the declared Content-Type and file name are ignored).
+ * A thumbnail and a larger preview are generated after commit on a small bounded pool;
+ * photos that did not fit in its queue, or were waiting when the node stopped, are picked up
+ * by a periodic sweep. Both are JPEGs kept content-addressed next to the originals.
+ */
+@Service
+public class ClaimPhotoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimPhotoService.class);
+
+    // Namespaces in the content-addressed store: originals, and generated thumbnails/previews
+    public static final String CLAIM_PHOTO_NAMESPACE = "claim-photos";
+    public static final String CLAIM_PHOTO_PREVIEW_NAMESPACE = "claim-photo-previews";
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private ClaimPhotoRepository claimPhotoRepository;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxPhotosPerClaim;
+    private final int thumbnailSize;
+    private final int previewSize;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final int sweepBatchSize;
+
+    private final ThreadPoolExecutor previewPool;
+
+    // Photos queued or being processed on this node, so the sweep does not queue them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ClaimPhotoService(PlatformTransactionManager transactionManager,
+                             @Value("${app.claims.photos.max-per-claim:20}") int maxPhotosPerClaim,
+                             @Value("${app.claims.photos.thumbnail-size:256}") int thumbnailSize,
+                             @Value("${app.claims.photos.preview-size:1280}") int previewSize,
+                             @Value("${app.claims.photos.jpeg-quality:0.8}") float jpegQuality,
+                             @Value("${app.claims.photos.max-pixels:60000000}") long maxPixels,
+                             @Value("${app.claims.photos.preview-threads:2}") int previewThreads,
+                             @Value("${app.claims.photos.preview-queue-capacity:200}") int queueCapacity,
+                             @Value("${app.claims.photos.sweep-batch-size:100}") int sweepBatchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPhotosPerClaim = maxPhotosPerClaim;
+        this.thumbnailSize = thumbnailSize;
+        this.previewSize = previewSize;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        this.sweepBatchSize = sweepBatchSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.previewPool = new ThreadPoolExecutor(previewThreads, previewThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "claim-photo-preview-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Store the photos of a pending claim owned by this NIC. All-or-nothing: if any file is
+    // rejected, the ones stored before it give their content references back on rollback.
+    @Transactional(rollbackFor = Exception.class)
+    public List<ClaimPhotoDTO> upload(Long claimId, String nic, List<MultipartFile> files, String description) throws IOException {
+        Claim claim = findOwnedClaim(claimId, nic);
+        if (claim.getStatus() != Claim.ClaimStatus.PENDING) {
+            throw new IllegalStateException("Photos can only be added while the claim is pending");
+        }
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("No files uploaded");
+        }
+        if (claimPhotoRepository.countByClaimId(claimId) + files.size() > maxPhotosPerClaim) {
+            throw new IllegalArgumentException("A claim can have at most " + maxPhotosPerClaim + " photos");
+        }
+
+        List<ClaimPhoto> saved = new ArrayList<>();
+        for (MultipartFile file : files) {
+            if (file.isEmpty()) {
+                throw new IllegalArgumentException("File " + file.getOriginalFilename() + " is empty");
+            }
+            try (InputStream in = new BufferedInputStream(file.getInputStream())) {
+                in.mark(ImageType.HEADER_LENGTH);
+                ImageType type = ImageType.detect(in.readNBytes(ImageType.HEADER_LENGTH));
+                in.reset();
+                if (type == null) {
+                    throw new IllegalArgumentException("File " + file.getOriginalFilename()
+                            + " is not a JPEG, PNG, GIF, WebP or HEIC image");
+                }
+
+                StoredContent stored = contentStore.store(CLAIM_PHOTO_NAMESPACE, in, type.getContentType());
+
+                ClaimPhoto photo = new ClaimPhoto(displayName(file.getOriginalFilename(), type), stored.getRelativePath(),
+                        description, claim);
+                photo.setSha256(stored.getSha256());
+                photo.setContentType(type.getContentType());
+                photo.setSizeBytes(stored.getSizeBytes());
+                photo.setUploadedAt(LocalDateTime.now());
+                photo.setPreviewStatus(type.isDecodable() ? PhotoPreviewStatus.PENDING : PhotoPreviewStatus.UNSUPPORTED);
+                saved.add(claimPhotoRepository.save(photo));
+            }
+        }
+
+        List<Long> pending = saved.stream()
+                .filter(photo -> photo.getPreviewStatus() == PhotoPreviewStatus.PENDING)
+                .map(ClaimPhoto::getId)
+                .toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.forEach(ClaimPhotoService.this::queuePreviews);
+                }
+            });
+        } else {
+            pending.forEach(this::queuePreviews);
+        }
+
+        logger.info("Stored {} photo(s) for claim {}", saved.size(), claim.getClaimNumber());
+        return saved.stream().map(photo -> toDTO(photo, "/api/user/claims")).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ClaimPhotoDTO> getPhotosForOwner(Long claimId, String nic) {
+        findOwnedClaim(claimId, nic);
+        return claimPhotoRepository.findByClaimId(claimId).stream()
+                .map(photo -> toDTO(photo, "/api/user/claims"))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ClaimPhotoDTO> getPhotos(Long claimId) {
+        return claimPhotoRepository.findByClaimId(claimId).stream()
+                .map(photo -> toDTO(photo, "/api/admin/claims"))
+                .toList();
+    }
+
+    // Locate a photo on disk for download: variant is "content" (the original), "thumbnail" or "preview"
+    @Transactional(readOnly = true)
+    public StoredFile getPhotoFile(Long claimId, Long photoId, String variant) {
+        ClaimPhoto photo = claimPhotoRepository.findById(photoId)
+                .filter(p -> p.getClaim().getId().equals(claimId))
+                .orElseThrow(() -> new RuntimeException("Photo " + photoId + " not found for claim " + claimId));
+        return switch (variant) {
+            case "thumbnail", "preview" -> {
+                boolean thumbnail = variant.equals("thumbnail");
+                String path = thumbnail ? photo.getThumbnailPath() : photo.getPreviewPath();
+                if (path == null) {
+                    throw new RuntimeException("No " + variant + " available for photo " + photoId
+                            + " (" + photo.getPreviewStatus() + ")");
+                }
+                yield new StoredFile(contentStore.resolve(CLAIM_PHOTO_PREVIEW_NAMESPACE, path),
+                        thumbnail ? photo.getThumbnailSha256() : photo.getPreviewSha256(), "image/jpeg",
+                        variant + "-" + photo.getFileName());
+            }
+            default -> {
+                Path path = contentStore.resolve(CLAIM_PHOTO_NAMESPACE, photo.getFilePath());
+                String contentType = photo.getContentType();
+                if (contentType == null) {
+                    // Photos stored before uploads were type-checked; without a hash the ETag falls back too
+                    try {
+                        contentType = Files.probeContentType(path);
+                    } catch (IOException e) {
+                        // Served as application/octet-stream
+                    }
+                }
+                yield new StoredFile(path, photo.getSha256(), contentType, photo.getFileName());
+            }
+        };
+    }
+
+    @Transactional(readOnly = true)
+    public StoredFile getPhotoFileForOwner(Long claimId, String nic, Long photoId, String variant) {
+        findOwnedClaim(claimId, nic);
+        return getPhotoFile(claimId, photoId, variant);
+    }
+
+    // Give up the content references of a claim's photos; call in the transaction deleting the claim
+    public void releasePhotos(Long claimId) {
+        for (ClaimPhoto photo : claimPhotoRepository.findByClaimId(claimId)) {
+            contentStore.release(CLAIM_PHOTO_NAMESPACE, photo.getSha256());
+            contentStore.release(CLAIM_PHOTO_PREVIEW_NAMESPACE, photo.getThumbnailSha256());
+            contentStore.release(CLAIM_PHOTO_PREVIEW_NAMESPACE, photo.getPreviewSha256());
+        }
+    }
+
+    public int getPreviewQueueSize() {
+        return previewPool.getQueue().size();
+    }
+
+    // Re-queue photos still waiting for previews: the pool was full at upload time, or the node restarted
+    @Scheduled(fixedDelayString = "${app.claims.photos.sweep-interval-ms:60000}",
+            initialDelayString = "${app.claims.photos.sweep-interval-ms:60000}")
+    public void sweepPendingPreviews() {
+        try {
+            List<Long> ids = claimPhotoRepository.findIdsByPreviewStatus(PhotoPreviewStatus.PENDING,
+                    LocalDateTime.now().minusMinutes(1), PageRequest.of(0, sweepBatchSize));
+            int queued = 0;
+            for (Long id : ids) {
+                if (previewPool.getQueue().remainingCapacity() == 0) {
+                    break;
+                }
+                if (queuePreviews(id)) {
+                    queued++;
+                }
+            }
+            if (queued > 0) {
+                logger.info("Re-queued preview generation for {} claim photo(s)", queued);
+            }
+        } catch (Exception e) {
+            logger.error("Claim photo preview sweep failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        previewPool.shutdownNow();
+    }
+
+    private boolean queuePreviews(Long photoId) {
+        if (!inFlight.add(photoId)) {
+            return false;
+        }
+        try {
+            previewPool.execute(() -> {
+                try {
+                    generatePreviews(photoId);
+                } finally {
+                    inFlight.remove(photoId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(photoId);
+            logger.debug("Preview queue full; photo {} left for the sweep", photoId);
+            return false;
+        }
+    }
+
+    private void generatePreviews(Long photoId) {
+        ClaimPhoto photo = claimPhotoRepository.findById(photoId).orElse(null);
+        if (photo == null || photo.getPreviewStatus() != PhotoPreviewStatus.PENDING) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        StoredContent thumbnail = null;
+        StoredContent preview = null;
+        try {
+            Path original = contentStore.resolve(CLAIM_PHOTO_NAMESPACE, photo.getFilePath());
+            ImageScaler.Decoded decoded = ImageScaler.decode(original, previewSize, maxPixels);
+            BufferedImage previewImage = ImageScaler.fit(decoded.image(), previewSize);
+            BufferedImage thumbnailImage = ImageScaler.fit(previewImage, thumbnailSize);
+
+            // Stored outside any transaction: each store commits its own reference
+            preview = contentStore.store(CLAIM_PHOTO_PREVIEW_NAMESPACE,
+                    new ByteArrayInputStream(ImageScaler.encodeJpeg(previewImage, jpegQuality)), "image/jpeg");
+            thumbnail = contentStore.store(CLAIM_PHOTO_PREVIEW_NAMESPACE,
+                    new ByteArrayInputStream(ImageScaler.encodeJpeg(thumbnailImage, jpegQuality)), "image/jpeg");
+
+            StoredContent storedPreview = preview;
+            StoredContent storedThumbnail = thumbnail;
+            Boolean attached = transactionTemplate.execute(tx -> claimPhotoRepository.findById(photoId)
+                    .filter(current -> current.getPreviewStatus() == PhotoPreviewStatus.PENDING)
+                    .map(current -> {
+                        current.setWidth(decoded.originalWidth());
+                        current.setHeight(decoded.originalHeight());
+                        current.setPreviewPath(storedPreview.getRelativePath());
+                        current.setPreviewSha256(storedPreview.getSha256());
+                        current.setThumbnailPath(storedThumbnail.getRelativePath());
+                        current.setThumbnailSha256(storedThumbnail.getSha256());
+                        current.setPreviewStatus(PhotoPreviewStatus.READY);
+                        return true;
+                    })
+                    .orElse(false));
+            if (!Boolean.TRUE.equals(attached)) {
+                // Photo deleted (or handled by another node) meanwhile
+                releaseGenerated(thumbnail, preview);
+            }
+            logger.debug("Previews for claim photo {} ({}x{}) generated in {} ms", photoId, decoded.originalWidth(),
+                    decoded.originalHeight(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            logger.warn("Could not generate previews for claim photo {}: {}", photoId, e.getMessage());
+            releaseGenerated(thumbnail, preview);
+            try {
+                transactionTemplate.executeWithoutResult(tx -> claimPhotoRepository.findById(photoId)
+                        .filter(current -> current.getPreviewStatus() == PhotoPreviewStatus.PENDING)
+                        .ifPresent(current -> current.setPreviewStatus(PhotoPreviewStatus.FAILED)));
+            } catch (Exception inner) {
+                logger.error("Could not mark claim photo {} as failed: {}", photoId, inner.getMessage());
+            }
+        }
+    }
+
+    private void releaseGenerated(StoredContent thumbnail, StoredContent preview) {
+        if (thumbnail != null) {
+            contentStore.release(CLAIM_PHOTO_PREVIEW_NAMESPACE, thumbnail.getSha256());
+        }
+        if (preview != null) {
+            contentStore.release(CLAIM_PHOTO_PREVIEW_NAMESPACE, preview.getSha256());
+        }
+    }
+
+    // The claim, if it exists and was filed under this NIC; otherwise "not found" either way
+    private Claim findOwnedClaim(Long claimId, String nic) {
+        String nicKey = ClaimKeys.nic(nic);
+        return claimRepository.findById(claimId)
+                .filter(claim -> nicKey != null && nicKey.equals(ClaimKeys.nic(claim.getNic())))
+                .orElseThrow(() -> new ClaimNotFoundException("Claim not found with id: " + claimId));
+    }
+
+    // Client file name without any path, or a generated one
+    private static String displayName(String originalFilename, ImageType type) {
+        String name = originalFilename == null ? "" : originalFilename.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1).trim();
+        if (name.isEmpty()) {
+            name = "photo." + type.name().toLowerCase();
+        }
+        return name.length() > 200 ? name.substring(name.length() - 200) : name;
+    }
+
+    private static ClaimPhotoDTO toDTO(ClaimPhoto photo, String apiBase) {
+        Long claimId = photo.getClaim().getId();
+        String base = apiBase + "/" + claimId + "/photos/" + photo.getId();
+        ClaimPhotoDTO dto = new ClaimPhotoDTO();
+        dto.setId(photo.getId());
+        dto.setClaimId(claimId);
+        dto.setFileName(photo.getFileName());
+        dto.setDescription(photo.getDescription());
+        dto.setContentType(photo.getContentType());
+        dto.setSizeBytes(photo.getSizeBytes());
+        dto.setWidth(photo.getWidth());
+        dto.setHeight(photo.getHeight());
+        dto.setSha256(photo.getSha256());
+        dto.setUploadedAt(photo.getUploadedAt());
+        dto.setPreviewStatus(photo.getPreviewStatus());
+        dto.setOriginalUrl(base + "/content");
+        if (photo.getPreviewStatus() == PhotoPreviewStatus.READY) {
+            dto.setThumbnailUrl(base + "/thumbnail");
+            dto.setPreviewUrl(base + "/preview");
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.ClaimStatusCount;
+import com.example.Insurance.cache.BoundedTtlCache;
+import com.example.Insurance.entity.Claim;
+import com.example.Insurance.repository.ClaimRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claim dashboard counts (overall and per NIC), each computed with one GROUP BY status,
+ * isDuplicate query and kept as a short-lived snapshot. Services that write claims call
+ * {@link #claimsChanged()}, which drops the snapshots at once and again when the writing
+ * transaction completes, so a dashboard never keeps showing counts from before a write.
+ */
+@Service
+public class ClaimStatsService {
+
+    // Cache key of the all-claims snapshot; per-user snapshots are keyed by NIC
+    private static final String ALL_CLAIMS = "*";
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    private final BoundedTtlCache<String, Map<String, Long>> snapshots;
+
+    public ClaimStatsService(@Value("${app.claims.stats.cache.max-size:5000}") int maxSize,
+                             @Value("${app.claims.stats.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.snapshots = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    // pending / approved / rejected / duplicates across all claims
+    @Transactional(readOnly = true)
+    public Map<String, Long> getClaimStatistics() {
+        return snapshots.getOrLoad(ALL_CLAIMS, key -> {
+            Map<String, Long> stats = tally(claimRepository.countByStatusAndDuplicate());
+            stats.remove("total");
+            return Map.copyOf(stats);
+        }).orElseGet(Map::of);
+    }
+
+    // pending / approved / rejected / total for the claims of the user with this NIC
+    @Transactional(readOnly = true)
+    public Map<String, Long> getUserClaimStatistics(String nic) {
+        return snapshots.getOrLoad(nic, key -> {
+            Map<String, Long> stats = tally(claimRepository.countByStatusAndDuplicateForNic(key));
+            stats.remove("duplicates");
+            return Map.copyOf(stats);
+        }).orElseGet(Map::of);
+    }
+
+    // Claims were created, updated, decided or deleted (or their duplicate flags re-scanned)
+    public void claimsChanged() {
+        snapshots.clear();
+        // A dashboard read between now and commit would cache the pre-write counts; drop it afterwards too
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    snapshots.clear();
+                }
+            });
+        }
+    }
+
+    private static Map<String, Long> tally(List<ClaimStatusCount> rows) {
+        Map<String, Long> stats = new HashMap<>();
+        for (Claim.ClaimStatus status : Claim.ClaimStatus.values()) {
+            stats.put(status.name().toLowerCase(), 0L);
+        }
+        long total = 0;
+        long duplicates = 0;
+        for (ClaimStatusCount row : rows) {
+            if (row.status() != null) {
+                stats.merge(row.status().name().toLowerCase(), row.count(), Long::sum);
+            }
+            if (Boolean.TRUE.equals(row.isDuplicate())) {
+                duplicates += row.count();
+            }
+            total += row.count();
+        }
+        stats.put("duplicates", duplicates);
+        stats.put("total", total);
+        return stats;
+    }
+}
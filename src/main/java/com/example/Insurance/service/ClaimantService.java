@@ -0,0 +1,190 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.ClaimDTO;
+import com.example.Insurance.entity.UserC;
+import com.example.Insurance.repository.UserClaimRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Claimant (UserC) records keyed by NIC. {@link #upsert} is safe under concurrent claim
+ * submissions for the same NIC: on this node they serialise on a lock stripe, and a new
+ * claimant is inserted in its own transaction, so when another node wins the race on the
+ * unique NIC constraint we just read its row instead of failing the claim. Profile fields
+ * are only written when the submission actually changes them, so repeat submissions from
+ * the same claimant do not update (and row-lock) the claimant at all.
+ */
+@Service
+public class ClaimantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimantService.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private UserClaimRepository userClaimRepository;
+
+    private final TransactionTemplate requiresNew;
+
+    // Serialises find-or-create of the same NIC on this node
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+
+    public ClaimantService(PlatformTransactionManager transactionManager) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // The claimant with this NIC, oldest first should legacy duplicates exist
+    @Transactional(readOnly = true)
+    public Optional<UserC> findByNic(String nic) {
+        if (nic == null || nic.isBlank()) {
+            return Optional.empty();
+        }
+        return userClaimRepository.findFirstByNicOrderByIdAsc(nic.trim());
+    }
+
+    // The claimant for this claim's NIC, created if new, with profile fields brought up to date.
+    // Runs in (and the profile update commits with) the caller's transaction.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public UserC upsert(ClaimDTO claimDTO) {
+        String nic = claimDTO.getNic() != null ? claimDTO.getNic().trim() : "";
+        if (nic.isEmpty()) {
+            throw new IllegalArgumentException("NIC is required");
+        }
+
+        ReentrantLock lock = lockFor(nic);
+        lock.lock();
+        try {
+            Optional<UserC> existing = userClaimRepository.findFirstByNicOrderByIdAsc(nic);
+            if (existing.isPresent()) {
+                UserC user = existing.get();
+                if (applyProfile(user, claimDTO)) {
+                    logger.debug("Updated profile of claimant {}", user.getId());
+                }
+                return user;
+            }
+
+            try {
+                requiresNew.executeWithoutResult(tx -> {
+                    UserC newUser = new UserC();
+                    newUser.setNic(nic);
+                    applyProfile(newUser, claimDTO);
+                    newUser.setCreatedDate(LocalDateTime.now());
+                    userClaimRepository.saveAndFlush(newUser);
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Created concurrently on another node - use the winner's row
+                logger.debug("Claimant for NIC {} created concurrently", nic);
+            }
+            UserC user = userClaimRepository.findFirstByNicOrderByIdAsc(nic)
+                    .orElseThrow(() -> new IllegalStateException("Claimant for NIC " + nic + " is missing"));
+            applyProfile(user, claimDTO);
+            return user;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bulk counterpart of upsert for imports: claimant IDs by NIC for a chunk of rows (the last row
+    // of a NIC supplies its profile). Existing claimants are read with one IN query; new ones are
+    // inserted together in their own transaction, falling back to upsert one by one if another
+    // writer created any of them meanwhile. Runs in the caller's transaction.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, Long> resolveAll(Collection<ClaimDTO> rows) {
+        Map<String, ClaimDTO> byNic = new LinkedHashMap<>();
+        for (ClaimDTO row : rows) {
+            if (row.getNic() != null && !row.getNic().isBlank()) {
+                byNic.put(row.getNic().trim(), row);
+            }
+        }
+        Map<String, Long> ids = new HashMap<>();
+        if (byNic.isEmpty()) {
+            return ids;
+        }
+
+        for (UserC user : userClaimRepository.findByNicIn(byNic.keySet())) {
+            if (ids.putIfAbsent(user.getNic(), user.getId()) == null) {
+                applyProfile(user, byNic.get(user.getNic()));
+            }
+        }
+
+        List<ClaimDTO> missing = byNic.entrySet().stream()
+                .filter(entry -> !ids.containsKey(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        if (!missing.isEmpty()) {
+            try {
+                requiresNew.executeWithoutResult(tx -> {
+                    List<UserC> created = new ArrayList<>(missing.size());
+                    for (ClaimDTO row : missing) {
+                        UserC newUser = new UserC();
+                        newUser.setNic(row.getNic().trim());
+                        applyProfile(newUser, row);
+                        newUser.setCreatedDate(LocalDateTime.now());
+                        created.add(newUser);
+                    }
+                    userClaimRepository.saveAllAndFlush(created);
+                    created.forEach(user -> ids.put(user.getNic(), user.getId()));
+                });
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Some of {} new claimants were created concurrently; resolving one by one", missing.size());
+                for (ClaimDTO row : missing) {
+                    ids.put(row.getNic().trim(), upsert(row).getId());
+                }
+            }
+        }
+        return ids;
+    }
+
+    // Copy the non-blank submitted fields that differ; true if any did
+    private static boolean applyProfile(UserC user, ClaimDTO claimDTO) {
+        boolean changed = false;
+        if (differs(claimDTO.getFullName(), user.getFullName())) {
+            user.setFullName(claimDTO.getFullName());
+            changed = true;
+        }
+        if (differs(claimDTO.getEmail(), user.getEmail())) {
+            user.setEmail(claimDTO.getEmail());
+            changed = true;
+        }
+        if (differs(claimDTO.getPhone(), user.getPhone())) {
+            user.setPhone(claimDTO.getPhone());
+            changed = true;
+        }
+        if (claimDTO.getAge() != null && !claimDTO.getAge().equals(user.getAge())) {
+            user.setAge(claimDTO.getAge());
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean differs(String submitted, String current) {
+        return submitted != null && !submitted.isBlank() && !Objects.equals(submitted, current);
+    }
+
+    private ReentrantLock lockFor(String nic) {
+        return stripes[Math.floorMod(nic.hashCode(), LOCK_STRIPES)];
+    }
+}
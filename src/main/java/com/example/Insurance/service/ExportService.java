@@ -0,0 +1,310 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.Enums.ApplicationStatus;
+import com.example.Insurance.Enums.ExportFormat;
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.entity.Claim;
+import com.example.Insurance.entity.Payment;
+import com.example.Insurance.entity.PolicyApplication;
+import com.example.Insurance.repository.ClaimRepository;
+import com.example.Insurance.repository.PaymentRepository;
+import com.example.Insurance.repository.PolicyApplicationRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams payments, claims and policy applications out as CSV or NDJSON.
+ * <p>
+ * Rows come from a read-only database cursor and are written to the response as they are read,
+ * so memory use does not grow with the table. The persistence context is cleared every
+ * {@value #CLEAR_EVERY} rows; nothing else holds on to a row once it has been written.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    // Matches the fetch size on the streamForExport queries
+    private static final int CLEAR_EVERY = 500;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final List<Column<Payment>> PAYMENT_COLUMNS = List.of(
+            new Column<>("paymentId", Payment::getPaymentId),
+            new Column<>("userId", Payment::getUserId),
+            new Column<>("userName", Payment::getUserName),
+            new Column<>("userEmail", Payment::getUserEmail),
+            new Column<>("policyId", p -> p.getPolicy() != null ? p.getPolicy().getId() : null),
+            new Column<>("policyNumber", p -> p.getPolicy() != null ? p.getPolicy().getPolicyNumber() : null),
+            new Column<>("paymentMonth", Payment::getPaymentMonth),
+            new Column<>("amount", Payment::getAmount),
+            new Column<>("paymentMethod", Payment::getPaymentMethod),
+            new Column<>("status", Payment::getStatus),
+            new Column<>("submittedDate", Payment::getSubmittedDate),
+            new Column<>("approvedDate", Payment::getApprovedDate),
+            new Column<>("expiryTime", Payment::getExpiryTime),
+            new Column<>("adminComments", Payment::getAdminComments),
+            new Column<>("bankName", p -> p.getBankSlipDetails() != null ? p.getBankSlipDetails().getBankName() : null),
+            new Column<>("bankReference", p -> p.getBankSlipDetails() != null ? p.getBankSlipDetails().getReferenceNumber() : null),
+            new Column<>("depositDate", p -> p.getBankSlipDetails() != null ? p.getBankSlipDetails().getDepositDate() : null),
+            new Column<>("depositorName", p -> p.getBankSlipDetails() != null ? p.getBankSlipDetails().getDepositorName() : null),
+            new Column<>("transactionId", p -> p.getOnlinePaymentDetails() != null ? p.getOnlinePaymentDetails().getTransactionId() : null),
+            new Column<>("paymentSuccessful", p -> p.getOnlinePaymentDetails() != null ? p.getOnlinePaymentDetails().getPaymentSuccessful() : null)
+    );
+
+    private static final List<Column<Claim>> CLAIM_COLUMNS = List.of(
+            new Column<>("id", Claim::getId),
+            new Column<>("claimNumber", Claim::getClaimNumber),
+            new Column<>("userId", c -> c.getUser() != null ? c.getUser().getId() : null),
+            new Column<>("fullName", Claim::getFullName),
+            new Column<>("age", Claim::getAge),
+            new Column<>("nic", Claim::getNic),
+            new Column<>("phone", Claim::getPhone),
+            new Column<>("email", Claim::getEmail),
+            new Column<>("vehicleNumber", Claim::getVehicleNumber),
+            new Column<>("vehicleModel", Claim::getVehicleModel),
+            new Column<>("chassisNumber", Claim::getChassisNumber),
+            new Column<>("incidentDate", Claim::getIncidentDate),
+            new Column<>("incidentType", Claim::getIncidentType),
+            new Column<>("description", Claim::getDescription),
+            new Column<>("status", Claim::getStatus),
+            new Column<>("adminReason", Claim::getAdminReason),
+            new Column<>("submittedDate", Claim::getSubmittedDate),
+            new Column<>("processedDate", Claim::getProcessedDate),
+            new Column<>("isDuplicate", Claim::getIsDuplicate),
+            new Column<>("duplicateScore", Claim::getDuplicateScore),
+            new Column<>("duplicateOfId", Claim::getDuplicateOfId)
+    );
+
+    private static final List<Column<PolicyApplication>> APPLICATION_COLUMNS = List.of(
+            new Column<>("id", PolicyApplication::getId),
+            new Column<>("policyId", a -> a.getPolicy() != null ? a.getPolicy().getId() : null),
+            new Column<>("policyName", a -> a.getPolicy() != null ? a.getPolicy().getName() : null),
+            new Column<>("applicantName", PolicyApplication::getApplicantName),
+            new Column<>("age", PolicyApplication::getAge),
+            new Column<>("nic", PolicyApplication::getNic),
+            new Column<>("address", PolicyApplication::getAddress),
+            new Column<>("phone", PolicyApplication::getPhone),
+            new Column<>("email", PolicyApplication::getEmail),
+            new Column<>("vehicleDetails", PolicyApplication::getVehicleDetails),
+            new Column<>("additionalNotes", PolicyApplication::getAdditionalNotes),
+            new Column<>("applicationDate", PolicyApplication::getApplicationDate),
+            new Column<>("status", PolicyApplication::getStatus),
+            new Column<>("reviewedDate", PolicyApplication::getReviewedDate),
+            new Column<>("reviewNotes", PolicyApplication::getReviewNotes)
+    );
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private PolicyApplicationRepository policyApplicationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate readOnly;
+
+    public ExportService(PlatformTransactionManager transactionManager) {
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportPayments(PaymentStatus status, ExportFormat format, boolean gzip) {
+        return export("payments", PAYMENT_COLUMNS, () -> paymentRepository.streamForExport(status), format, gzip);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportClaims(Claim.ClaimStatus status, ExportFormat format, boolean gzip) {
+        return export("claims", CLAIM_COLUMNS, () -> claimRepository.streamForExport(status), format, gzip);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportApplications(ApplicationStatus status, ExportFormat format, boolean gzip) {
+        return export("policy-applications", APPLICATION_COLUMNS, () -> policyApplicationRepository.streamForExport(status), format, gzip);
+    }
+
+    // Builds the download response; the query only runs once the body is written, on the MVC async thread
+    private <T> ResponseEntity<StreamingResponseBody> export(String name, List<Column<T>> columns, Supplier<Stream<T>> rows,
+                                                             ExportFormat format, boolean gzip) {
+        String fileName = name + "-" + LocalDateTime.now().format(FILE_STAMP) + "." + format.getExtension();
+
+        StreamingResponseBody body = out -> {
+            long started = System.currentTimeMillis();
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+            long written;
+            try {
+                written = readOnly.execute(status -> writeRows(columns, rows, format, target));
+            } catch (UncheckedIOException e) {
+                // Usually the client went away; the cursor and transaction are already closed
+                logger.warn("Export of {} aborted: {}", name, e.getCause().getMessage());
+                throw e.getCause();
+            }
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            out.flush();
+            logger.info("Exported {} {} rows as {} in {} ms", written, name, format, System.currentTimeMillis() - started);
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fileName).build());
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    private <T> long writeRows(List<Column<T>> columns, Supplier<Stream<T>> rows, ExportFormat format, OutputStream out) {
+        try (Stream<T> stream = rows.get();
+             RowWriter<T> writer = format == ExportFormat.CSV
+                     ? new CsvRowWriter<>(columns, out)
+                     : new NdjsonRowWriter<>(columns, objectMapper, out)) {
+            long count = 0;
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                if (++count % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                }
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    private interface RowWriter<T> extends AutoCloseable {
+        void write(T row) throws IOException;
+
+        // Flushes buffered output; never closes the response stream itself
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter<T> implements RowWriter<T> {
+        private final List<Column<T>> columns;
+        private final Writer writer;
+
+        CsvRowWriter(List<Column<T>> columns, OutputStream out) throws IOException {
+            this.columns = columns;
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) writer.write(',');
+                writer.write(columns.get(i).name());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) writer.write(',');
+                Object value = columns.get(i).value().apply(row);
+                if (value != null) {
+                    writeCell(value);
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeCell(Object value) throws IOException {
+            String text = value.toString();
+            if (text.isEmpty()) {
+                return;
+            }
+            // Text starting with a formula character is prefixed so spreadsheets show it literally
+            boolean formula = value instanceof String && "=+-@\t\r".indexOf(text.charAt(0)) >= 0;
+            boolean quote = formula;
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            if (formula) {
+                writer.write('\'');
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') writer.write('"');
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class NdjsonRowWriter<T> implements RowWriter<T> {
+        private final List<Column<T>> columns;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(List<Column<T>> columns, ObjectMapper objectMapper, OutputStream out) throws IOException {
+            this.columns = columns;
+            this.generator = objectMapper.createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // One object per line; the newline is written explicitly after each row
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            generator.writeStartObject();
+            for (Column<T> column : columns) {
+                generator.writeFieldName(column.name());
+                generator.writeObject(column.value().apply(row));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+        }
+    }
+}
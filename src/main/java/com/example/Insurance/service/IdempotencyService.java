@@ -0,0 +1,268 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.cache.BoundedTtlCache;
+import com.example.Insurance.entity.IdempotencyRecord;
+import com.example.Insurance.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for retry-prone POST endpoints.
+ * <p>
+ * A key is first claimed with an IN_PROGRESS row (committed on its own, so a concurrent retry
+ * hits the unique constraint and gets 409). The endpoint's work then runs in one transaction
+ * with the row's completion, so either both the work and the stored response commit or neither
+ * does. Completed responses are replayed from a local LRU/TTL cache, falling back to the table
+ * so replays are correct across nodes. Only 2xx responses are stored; on an error the claim is
+ * released and the client may retry with the same key.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate requiresNew;
+    private final BoundedTtlCache<String, StoredResponse> completed;
+    private final long ttlHours;
+    private final long inProgressTimeoutSeconds;
+
+    public IdempotencyService(PlatformTransactionManager transactionManager,
+                              @Value("${app.idempotency.cache.max-size:10000}") int cacheMaxSize,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.in-progress-timeout-seconds:60}") long inProgressTimeoutSeconds) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttlHours = ttlHours;
+        this.inProgressTimeoutSeconds = inProgressTimeoutSeconds;
+        // The local cache never outlives the table's guarantee
+        this.completed = new BoundedTtlCache<>(cacheMaxSize, Math.min(ttlHours, 1) * 3_600_000L);
+    }
+
+    // Run action at most once per (scope, key). Without a key the action simply runs. requestBody is the
+    // raw body as received: hashing a deserialized entity would pick up server-side defaults (timestamps)
+    // and make byte-identical retries look like a different request.
+    public ResponseEntity<?> execute(String scope, String key, byte[] requestBody, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", HEADER + " must be at most " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String cacheKey = scope + ":" + key;
+        String requestHash = hash(requestBody);
+
+        StoredResponse cached = completed.get(cacheKey).orElse(null);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        Claim claim = claim(scope, key, requestHash);
+        if (claim.existing != null) {
+            IdempotencyRecord existing = claim.existing;
+            if (existing.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                StoredResponse stored = new StoredResponse(existing.getRequestHash(), existing.getResponseStatus(), existing.getResponseBody());
+                completed.put(cacheKey, stored);
+                return replay(stored, requestHash);
+            }
+            if (!existing.getRequestHash().equals(requestHash)) {
+                return keyReused();
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header("Retry-After", "1")
+                    .body(Map.of("error", "A request with this " + HEADER + " is still being processed"));
+        }
+
+        Long recordId = claim.recordId;
+        AtomicBoolean superseded = new AtomicBoolean();
+        try {
+            ResponseEntity<?> response = transactionTemplate.execute(tx -> {
+                ResponseEntity<?> result = action.get();
+                if (result.getStatusCode().is2xxSuccessful()) {
+                    int updated = idempotencyRecordRepository.complete(recordId, result.getStatusCode().value(), toJson(result.getBody()));
+                    if (updated != 1) {
+                        // Our claim went stale and another request took it over and completed first:
+                        // its work is the one that counts, so ours must not commit
+                        tx.setRollbackOnly();
+                        superseded.set(true);
+                        return superseded();
+                    }
+                } else {
+                    // Undo any partial work the failed request did
+                    tx.setRollbackOnly();
+                }
+                return result;
+            });
+            if (superseded.get()) {
+                // The claim belongs to the request that superseded us; leave it alone
+                return response;
+            }
+            if (response != null && response.getStatusCode().is2xxSuccessful()) {
+                completed.put(cacheKey, new StoredResponse(requestHash, response.getStatusCode().value(), toJson(response.getBody())));
+            } else {
+                releaseClaim(recordId);
+            }
+            return response;
+        } catch (RuntimeException e) {
+            releaseClaim(recordId);
+            throw e;
+        }
+    }
+
+    // Purge expired keys so the table stays bounded
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            Integer purged = requiresNew.execute(tx -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+            if (purged != null && purged > 0) {
+                logger.info("Purged {} expired idempotency keys", purged);
+            }
+        } catch (Exception e) {
+            logger.error("Idempotency key cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private Claim claim(String scope, String key, String requestHash) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                IdempotencyRecord record = requiresNew.execute(tx -> {
+                    IdempotencyRecord created = new IdempotencyRecord();
+                    created.setScope(scope);
+                    created.setIdempotencyKey(key);
+                    created.setRequestHash(requestHash);
+                    created.setStatus(IdempotencyRecord.Status.IN_PROGRESS);
+                    created.setCreatedAt(now);
+                    created.setExpiresAt(now.plusHours(ttlHours));
+                    return idempotencyRecordRepository.saveAndFlush(created);
+                });
+                return new Claim(record.getId(), null);
+            } catch (DataIntegrityViolationException e) {
+                IdempotencyRecord existing = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key).orElse(null);
+                if (existing == null) {
+                    continue; // Released between our insert and lookup
+                }
+                if (existing.getExpiresAt().isBefore(now)) {
+                    requiresNew.executeWithoutResult(tx -> idempotencyRecordRepository.deleteById(existing.getId()));
+                    continue;
+                }
+                if (existing.getStatus() == IdempotencyRecord.Status.IN_PROGRESS
+                        && existing.getRequestHash().equals(requestHash)
+                        && takeOverStale(existing.getId(), now)) {
+                    // The original holder died mid-request; its transaction never committed
+                    return new Claim(existing.getId(), null);
+                }
+                return new Claim(null, existing);
+            }
+        }
+        throw new IllegalStateException("Could not claim idempotency key " + key);
+    }
+
+    private boolean takeOverStale(Long id, LocalDateTime now) {
+        Integer updated = requiresNew.execute(tx ->
+                idempotencyRecordRepository.takeOverStale(id, now, now.minusSeconds(inProgressTimeoutSeconds)));
+        return updated != null && updated == 1;
+    }
+
+    private void releaseClaim(Long recordId) {
+        try {
+            requiresNew.executeWithoutResult(tx -> idempotencyRecordRepository.releaseClaim(recordId));
+        } catch (Exception e) {
+            // Expires via the in-progress timeout
+            logger.warn("Could not release idempotency claim {}: {}", recordId, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            return keyReused();
+        }
+        return ResponseEntity.status(stored.status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body);
+    }
+
+    private ResponseEntity<?> superseded() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("Retry-After", "1")
+                .body(Map.of("error", "A request with this " + HEADER + " was completed by a retry; repeat it to get that response"));
+    }
+
+    private ResponseEntity<?> keyReused() {
+        return ResponseEntity.unprocessableEntity()
+                .body(Map.of("error", HEADER + " was already used with a different request body"));
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response is not serializable for replay", e);
+        }
+    }
+
+    private String hash(byte[] requestBody) {
+        try {
+            byte[] bytes = requestBody == null ? new byte[0] : requestBody;
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request body", e);
+        }
+    }
+
+    private static class Claim {
+        final Long recordId;
+        final IdempotencyRecord existing;
+
+        Claim(Long recordId, IdempotencyRecord existing) {
+            this.recordId = recordId;
+            this.existing = existing;
+        }
+    }
+
+    private static class StoredResponse {
+        final String requestHash;
+        final int status;
+        final String body;
+
+        StoredResponse(String requestHash, int status, String body) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
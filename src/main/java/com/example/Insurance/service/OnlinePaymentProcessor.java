@@ -0,0 +1,132 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.gateway.ChargeRequest;
+import com.example.Insurance.gateway.ChargeResult;
+import com.example.Insurance.gateway.CircuitBreaker;
+import com.example.Insurance.gateway.GatewayUnavailableException;
+import com.example.Insurance.gateway.PaymentGateway;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs gateway charges off the request thread: a bounded executor for the (possibly blocking)
+ * gateway calls, a per-call timeout and a circuit breaker in front of the gateway. The completion
+ * callback runs on a separate small pool, so it may do database work.
+ * <p>
+ * A {@link GatewayUnavailableException} passed to the callback means the charge was never sent.
+ * Any other error (timeout, gateway failure) leaves the outcome unknown.
+ */
+@Service
+public class OnlinePaymentProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OnlinePaymentProcessor.class);
+
+    private final PaymentGateway gateway;
+    private final CircuitBreaker circuitBreaker;
+    private final long timeoutMillis;
+
+    private final ThreadPoolExecutor gatewayExecutor;
+    private final ThreadPoolExecutor completionExecutor;
+
+    public OnlinePaymentProcessor(PaymentGateway gateway,
+                                  @Value("${app.payments.gateway.threads:8}") int threads,
+                                  @Value("${app.payments.gateway.queue-capacity:200}") int queueCapacity,
+                                  @Value("${app.payments.gateway.timeout-ms:5000}") long timeoutMillis,
+                                  @Value("${app.payments.gateway.breaker.failure-threshold:5}") int failureThreshold,
+                                  @Value("${app.payments.gateway.breaker.open-ms:30000}") long openMillis) {
+        this.gateway = gateway;
+        this.timeoutMillis = timeoutMillis;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMillis);
+        // Fail fast when saturated rather than queueing without bound
+        this.gatewayExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("payment-gateway"), new ThreadPoolExecutor.AbortPolicy());
+        // Applies results to the database. Rejects rather than running on the caller, which after a timeout is
+        // the shared delayed scheduler thread; a rejected payment stays PROCESSING for the recovery sweeper.
+        this.completionExecutor = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("payment-gateway-completion"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<Void> submit(ChargeRequest request, BiConsumer<ChargeResult, Throwable> onComplete) {
+        CompletableFuture<ChargeResult> call;
+        try {
+            call = CompletableFuture.supplyAsync(() -> charge(request), gatewayExecutor);
+        } catch (RejectedExecutionException e) {
+            call = CompletableFuture.failedFuture(new GatewayUnavailableException("Payment gateway is busy"));
+        }
+
+        return call.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> recordOutcome(request, error))
+                .whenCompleteAsync((result, error) -> onComplete.accept(result, unwrap(error)), completionExecutor)
+                .handle((result, error) -> {
+                    if (unwrap(error) instanceof RejectedExecutionException) {
+                        logger.warn("Completion queue full; payment {} left in PROCESSING for the recovery sweeper",
+                                request.getPaymentId());
+                    }
+                    return null;
+                });
+    }
+
+    private ChargeResult charge(ChargeRequest request) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new GatewayUnavailableException("Payment gateway temporarily unavailable");
+        }
+        try {
+            return gateway.charge(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // Declines are a healthy gateway; only errors and timeouts count against the breaker
+    private void recordOutcome(ChargeRequest request, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause == null) {
+            circuitBreaker.onSuccess();
+        } else if (!(cause instanceof GatewayUnavailableException)) {
+            circuitBreaker.onFailure();
+            logger.warn("Gateway {} call for payment {} failed: {}", gateway.name(), request.getPaymentId(),
+                    cause instanceof TimeoutException ? "timed out after " + timeoutMillis + "ms" : cause.getMessage());
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("gateway", gateway.name());
+        status.put("circuitState", circuitBreaker.getState().name());
+        status.put("consecutiveFailures", circuitBreaker.getConsecutiveFailures());
+        status.put("activeCalls", gatewayExecutor.getActiveCount());
+        status.put("queuedCalls", gatewayExecutor.getQueue().size());
+        return status;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gatewayExecutor.shutdown();
+        completionExecutor.shutdown();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Finishes online payments left in PROCESSING - a gateway timeout, or a restart while a charge
+ * was in flight. Stalled charges are re-sent at most once per stall period (the gateway is
+ * idempotent per charge attempt); ones that stay unconfirmed past the give-up age are failed so the user can pay another way.
+ */
+@Service
+public class OnlinePaymentRecoverySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(OnlinePaymentRecoverySweeper.class);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Value("${app.payments.gateway.recovery.stall-after-ms:60000}")
+    private long stallAfterMillis;
+
+    @Value("${app.payments.gateway.recovery.give-up-after-ms:1800000}")
+    private long giveUpAfterMillis;
+
+    @Value("${app.payments.gateway.recovery.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.payments.gateway.recovery.interval-ms:30000}")
+    public void sweep() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> abandoned = paymentRepository.findStalledProcessingIds(PaymentStatus.PROCESSING,
+                    now.minusNanos(giveUpAfterMillis * 1_000_000L), PageRequest.of(0, batchSize));
+            abandoned.forEach(paymentService::abandonOnlinePayment);
+
+            LocalDateTime stallCutoff = now.minusNanos(stallAfterMillis * 1_000_000L);
+            List<Long> stalled = paymentRepository.findUnansweredChargeIds(PaymentStatus.PROCESSING,
+                    stallCutoff, PageRequest.of(0, batchSize));
+            stalled.forEach(id -> paymentService.resendOnlinePayment(id, stallCutoff));
+
+            if (!abandoned.isEmpty() || !stalled.isEmpty()) {
+                logger.info("Online payment recovery: {} abandoned, {} re-sent", abandoned.size(), stalled.size());
+            }
+        } catch (Exception e) {
+            logger.error("Online payment recovery failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.BulkApprovalReport;
+import com.example.Insurance.Enums.BulkApprovalOutcome;
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.cache.BoundedTtlCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Set-based bulk approval of pending payments.
+ * IDs are de-duplicated and sorted so concurrent bulk runs lock rows in the same order,
+ * then processed in chunks: one SELECT to classify the chunk, one JDBC batch of conditional
+ * UPDATE ... WHERE status = 'PENDING' statements, one transaction per chunk.
+ * Large requests run on a single background worker and can be polled by job ID.
+ */
+@Service
+public class PaymentBulkApprovalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentBulkApprovalService.class);
+
+    private static final String APPROVE_SQL =
+            "UPDATE payments SET status = 'APPROVED', approved_date = ?, admin_comments = ? " +
+            "WHERE payment_id = ? AND status = 'PENDING'";
+
+    private static final String CLASSIFY_SQL =
+            "SELECT payment_id, status, amount, policy_id, payment_month, submitted_date FROM payments WHERE payment_id IN (:ids)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
+    @Autowired
+    private PaymentCoverageService paymentCoverageService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    private final int chunkSize;
+    private final int backgroundThreshold;
+
+    // Queued and running jobs; never evicted, and bounded by the worker queue below
+    private final Map<String, BulkApprovalReport> activeJobs = new ConcurrentHashMap<>();
+
+    // Finished jobs stay pollable for an hour after they finish (at most 100 are kept)
+    private final BoundedTtlCache<String, BulkApprovalReport> finishedJobs = new BoundedTtlCache<>(100, TimeUnit.HOURS.toMillis(1));
+
+    private final ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(10), runnable -> {
+                Thread thread = new Thread(runnable, "bulk-payment-approval");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public PaymentBulkApprovalService(@Value("${app.payments.bulk.chunk-size:500}") int chunkSize,
+                                      @Value("${app.payments.bulk.background-threshold:1000}") int backgroundThreshold) {
+        this.chunkSize = chunkSize;
+        this.backgroundThreshold = backgroundThreshold;
+    }
+
+    public boolean shouldRunInBackground(Collection<Long> paymentIds) {
+        return paymentIds.size() > backgroundThreshold;
+    }
+
+    // Approve synchronously and return the per-ID report
+    public BulkApprovalReport approve(Collection<Long> paymentIds, String adminComments) {
+        BulkApprovalReport report = new BulkApprovalReport();
+        report.setState("RUNNING");
+        run(new TreeSet<>(paymentIds), adminComments, report);
+        return report;
+    }
+
+    // Queue a background approval and return its job ID
+    public String submit(Collection<Long> paymentIds, String adminComments) {
+        SortedSet<Long> ids = new TreeSet<>(paymentIds);
+        String jobId = UUID.randomUUID().toString();
+
+        BulkApprovalReport report = new BulkApprovalReport();
+        report.setJobId(jobId);
+        report.setState("QUEUED");
+        report.setTotalRequested(ids.size());
+        activeJobs.put(jobId, report);
+
+        try {
+            worker.execute(() -> {
+                try {
+                    run(ids, adminComments, report);
+                } finally {
+                    // Into the finished cache before leaving the active map, so polls never miss it
+                    finishedJobs.put(jobId, report);
+                    activeJobs.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(jobId);
+            throw new IllegalStateException("Too many bulk approval jobs queued, try again later");
+        }
+        return jobId;
+    }
+
+    // Progress snapshot of a background job; per-ID outcomes are included once it has finished
+    public Optional<BulkApprovalReport> getJob(String jobId) {
+        BulkApprovalReport active = activeJobs.get(jobId);
+        Optional<BulkApprovalReport> job = active != null ? Optional.of(active) : finishedJobs.get(jobId);
+        return job.map(report -> {
+            synchronized (report) {
+                BulkApprovalReport snapshot = new BulkApprovalReport();
+                snapshot.setJobId(report.getJobId());
+                snapshot.setState(report.getState());
+                snapshot.setTotalRequested(report.getTotalRequested());
+                snapshot.setProcessed(report.getProcessed());
+                snapshot.setApprovedCount(report.getApprovedCount());
+                snapshot.setAlreadyProcessedCount(report.getAlreadyProcessedCount());
+                snapshot.setNotFoundCount(report.getNotFoundCount());
+                snapshot.setError(report.getError());
+                if ("COMPLETED".equals(report.getState()) || "FAILED".equals(report.getState())) {
+                    snapshot.setOutcomes(new LinkedHashMap<>(report.getOutcomes()));
+                }
+                return snapshot;
+            }
+        });
+    }
+
+    private void run(SortedSet<Long> ids, String adminComments, BulkApprovalReport report) {
+        synchronized (report) {
+            report.setState("RUNNING");
+            report.setTotalRequested(ids.size());
+        }
+
+        try {
+            List<Long> sorted = new ArrayList<>(ids);
+            for (int from = 0; from < sorted.size(); from += chunkSize) {
+                List<Long> chunk = sorted.subList(from, Math.min(from + chunkSize, sorted.size()));
+                Map<Long, BulkApprovalOutcome> outcomes = transactionTemplate.execute(tx -> approveChunk(chunk, adminComments));
+                synchronized (report) {
+                    outcomes.forEach(report::record);
+                }
+                paymentService.evictCachedPayments(chunk);
+            }
+            synchronized (report) {
+                report.setState("COMPLETED");
+            }
+        } catch (Exception e) {
+            logger.error("Bulk payment approval failed: {}", e.getMessage(), e);
+            synchronized (report) {
+                report.setState("FAILED");
+                report.setError(e.getMessage());
+            }
+        }
+    }
+
+    private Map<Long, BulkApprovalOutcome> approveChunk(List<Long> chunk, String adminComments) {
+        // Classify the chunk with one query: missing IDs are NOT_FOUND, the rest carry their amount and covered month
+        Map<Long, BigDecimal> amounts = new HashMap<>();
+        Map<Long, PaymentCoverageService.CoveredMonth> months = new HashMap<>();
+        namedJdbcTemplate.query(CLASSIFY_SQL, new MapSqlParameterSource("ids", chunk), rs -> {
+            long paymentId = rs.getLong("payment_id");
+            amounts.put(paymentId, rs.getBigDecimal("amount"));
+            long policyId = rs.getLong("policy_id");
+            Long coveredPolicyId = rs.wasNull() ? null : policyId;
+            Timestamp submitted = rs.getTimestamp("submitted_date");
+            months.put(paymentId, new PaymentCoverageService.CoveredMonth(coveredPolicyId,
+                    rs.getString("payment_month"), submitted != null ? submitted.toLocalDateTime() : null));
+        });
+
+        List<Long> existing = new ArrayList<>();
+        for (Long id : chunk) {
+            if (amounts.containsKey(id)) {
+                existing.add(id);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(APPROVE_SQL, existing, existing.size(), (ps, id) -> {
+            ps.setTimestamp(1, now);
+            ps.setString(2, adminComments);
+            ps.setLong(3, id);
+        });
+
+        // Some drivers report SUCCESS_NO_INFO for batched rows; resolve those by reading back the row
+        Set<Long> resolvedApproved = new HashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        int position = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                Long id = existing.get(position++);
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unknown.add(id);
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", unknown).addValue("approvedDate", now);
+            resolvedApproved.addAll(namedJdbcTemplate.queryForList(
+                    "SELECT payment_id FROM payments WHERE payment_id IN (:ids) AND status = 'APPROVED' AND approved_date = :approvedDate",
+                    params, Long.class));
+        }
+
+        Map<Long, BulkApprovalOutcome> outcomes = new LinkedHashMap<>();
+        List<PaymentCoverageService.CoveredMonth> coveredMonths = new ArrayList<>();
+        int approved = 0;
+        BigDecimal approvedAmount = BigDecimal.ZERO;
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                Long id = existing.get(index++);
+                if (count > 0 || resolvedApproved.contains(id)) {
+                    outcomes.put(id, BulkApprovalOutcome.APPROVED);
+                    coveredMonths.add(months.get(id));
+                    approved++;
+                    BigDecimal amount = amounts.get(id);
+                    approvedAmount = approvedAmount.add(amount != null ? amount : BigDecimal.ZERO);
+                } else {
+                    outcomes.put(id, BulkApprovalOutcome.ALREADY_PROCESSED);
+                }
+            }
+        }
+        for (Long id : chunk) {
+            outcomes.putIfAbsent(id, BulkApprovalOutcome.NOT_FOUND);
+        }
+
+        paymentStatsService.recordBulkTransition(PaymentStatus.PENDING, PaymentStatus.APPROVED, approved, approvedAmount);
+        paymentCoverageService.recordApproved(coveredMonths);
+        return outcomes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.PolicyArrearsDTO;
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.Enums.PolicyStatus;
+import com.example.Insurance.entity.PaymentCoverage;
+import com.example.Insurance.repository.PaymentCoverageRepository;
+import com.example.Insurance.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps a 12-bit paid-month mask per policy and year in the payment_coverage table.
+ * <p>
+ * Approvals set the month's bit; rejecting an approved payment recomputes that one mask from
+ * the policy's remaining approved payments. Paid, pending and overdue months and the arrears
+ * query are answered from the masks without reading payments. A payment covers the month named
+ * in paymentMonth, in the year written after the month name if there is one and otherwise the
+ * year it was submitted. A month is overdue once it has ended unpaid.
+ * A periodic verification job rebuilds the masks from the payments table without locks and
+ * repairs drifted rows one at a time.
+ */
+@Service
+public class PaymentCoverageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentCoverageService.class);
+
+    private static final Pattern YEAR = Pattern.compile("\\b(\\d{4})\\b");
+    private static final String[] MONTH_NAMES = new String[12];
+
+    static {
+        for (Month month : Month.values()) {
+            MONTH_NAMES[month.ordinal()] = month.getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+        }
+    }
+
+    // Policy statuses that accept payments
+    private static final List<PolicyStatus> PAYABLE_POLICY_STATUSES = List.of(PolicyStatus.APPROVED, PolicyStatus.ACTIVE);
+
+    @Autowired
+    private PaymentCoverageRepository coverageRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate requiresNew;
+
+    public PaymentCoverageService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // A payment of the given policy and month was approved
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordApproved(Long policyId, String paymentMonth, LocalDateTime submittedDate) {
+        recordApproved(List.of(new CoveredMonth(policyId, paymentMonth, submittedDate)));
+    }
+
+    // Several payments were approved in one set-based update; each policy-year row is locked once, in key order
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordApproved(Collection<CoveredMonth> approved) {
+        SortedMap<CoverageKey, Integer> bits = new TreeMap<>();
+        for (CoveredMonth covered : approved) {
+            int month = monthIndex(covered.paymentMonth());
+            if (covered.policyId() == null || month < 0) {
+                logger.warn("Payment month '{}' of policy {} is not a month name; not counted as coverage",
+                        covered.paymentMonth(), covered.policyId());
+                continue;
+            }
+            CoverageKey key = new CoverageKey(covered.policyId(), coverageYear(covered.paymentMonth(), covered.submittedDate()));
+            bits.merge(key, 1 << month, (a, b) -> a | b);
+        }
+        bits.forEach((key, monthBits) -> {
+            PaymentCoverage coverage = lockCoverage(key.policyId(), key.year());
+            coverage.setPaidMask(coverage.getPaidMask() | monthBits);
+            coverageRepository.save(coverage);
+        });
+    }
+
+    // An approved payment of the given policy and month was rejected or removed. Its status must
+    // already be changed in this transaction; another approved payment may still cover the month.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUnapproved(Long policyId, String paymentMonth, LocalDateTime submittedDate) {
+        if (policyId == null || monthIndex(paymentMonth) < 0) {
+            return;
+        }
+        int year = coverageYear(paymentMonth, submittedDate);
+        PaymentCoverage coverage = lockCoverage(policyId, year);
+        coverage.setPaidMask(maskFromPayments(paymentRepository.findMonthsByPolicyIdAndStatus(policyId, PaymentStatus.APPROVED), year));
+        coverageRepository.save(coverage);
+    }
+
+    // Paid-month masks for many policies in one statement; policies without a row have paid nothing
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getPaidMasks(Collection<Long> policyIds, int year) {
+        Map<Long, Integer> masks = new HashMap<>();
+        if (policyIds.isEmpty()) {
+            return masks;
+        }
+        for (PaymentCoverage coverage : coverageRepository.findByYearAndPolicyIds(year, policyIds)) {
+            masks.put(coverage.getPolicyId(), coverage.getPaidMask());
+        }
+        return masks;
+    }
+
+    // Payable policies with an unpaid month that has ended in the given year as of the given date
+    @Transactional(readOnly = true)
+    public List<PolicyArrearsDTO> findArrears(int year, LocalDate asOf) {
+        int due = dueMask(year, asOf);
+        int dueMonths = Integer.bitCount(due);
+        List<PolicyArrearsDTO> result = new ArrayList<>();
+        if (dueMonths == 0) {
+            return result;
+        }
+        for (Object[] row : coverageRepository.findArrears(year, dueMonths, PAYABLE_POLICY_STATUSES)) {
+            Long policyId = (Long) row[0];
+            String policyNumber = row[2] != null && !row[2].toString().isEmpty() ? row[2].toString() : "POL-" + policyId;
+            int paidMask = row[3] != null ? ((Number) row[3]).intValue() : 0;
+            result.add(new PolicyArrearsDTO(policyId, policyNumber, (String) row[1], year, paidMask,
+                    monthNames(due & ~paidMask)));
+        }
+        return result;
+    }
+
+    // Seed the masks on startup so incremental updates and reads start from the payments table
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.error("Failed to initialize payment coverage: {}", e.getMessage());
+        }
+    }
+
+    // Periodic verification job - rebuild from the payments table and repair any drift
+    @Scheduled(fixedDelayString = "${app.payments.coverage.verify-interval-ms:900000}",
+            initialDelayString = "${app.payments.coverage.verify-interval-ms:900000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.error("Payment coverage verification failed: {}", e.getMessage());
+        }
+    }
+
+    // Returns the number of policy-year rows that had drifted and were repaired. The masks are
+    // snapshotted and rebuilt from payments without locks; only rows that differ are then locked,
+    // one per transaction, and rechecked before being rewritten.
+    public int reconcile() {
+        Map<CoverageKey, Integer> current = new HashMap<>();
+        for (PaymentCoverage coverage : coverageRepository.findAll()) {
+            current.put(new CoverageKey(coverage.getPolicyId(), coverage.getCoverageYear()), coverage.getPaidMask());
+        }
+
+        Map<CoverageKey, Integer> actual = new HashMap<>();
+        for (Object[] row : paymentRepository.findDistinctCoverageByStatus(PaymentStatus.APPROVED)) {
+            Long policyId = (Long) row[0];
+            String paymentMonth = (String) row[1];
+            int month = monthIndex(paymentMonth);
+            Integer year = explicitYear(paymentMonth);
+            if (year == null && row[2] != null) {
+                year = ((Number) row[2]).intValue();
+            }
+            if (month < 0 || year == null) {
+                continue;
+            }
+            actual.merge(new CoverageKey(policyId, year), 1 << month, (a, b) -> a | b);
+        }
+
+        int repaired = 0;
+        Set<CoverageKey> keys = new TreeSet<>(current.keySet());
+        keys.addAll(actual.keySet());
+        for (CoverageKey key : keys) {
+            Integer snapshot = current.get(key);
+            if (snapshot != null && snapshot == actual.getOrDefault(key, 0)) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(transactionTemplate.execute(tx -> repair(key, snapshot != null ? snapshot : 0)))) {
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    // Rebuild one row from its policy's approved payments. Payments are read before the row is locked,
+    // as approvals do; if the mask moved since the snapshot an approval committed in between and the
+    // row is left for the next run.
+    private boolean repair(CoverageKey key, int snapshot) {
+        int mask = maskFromPayments(paymentRepository.findMonthsByPolicyIdAndStatus(key.policyId(), PaymentStatus.APPROVED), key.year());
+        PaymentCoverage coverage = lockCoverage(key.policyId(), key.year());
+        if (coverage.getPaidMask() != snapshot || coverage.getPaidMask() == mask) {
+            return false;
+        }
+        logger.warn("Payment coverage drift for policy {} in {}: mask {} -> {}", key.policyId(), key.year(),
+                Integer.toBinaryString(coverage.getPaidMask()), Integer.toBinaryString(mask));
+        coverage.setPaidMask(mask);
+        coverage.setLastVerified(LocalDateTime.now());
+        coverageRepository.save(coverage);
+        return true;
+    }
+
+    // Lock the policy-year row, creating it first (in its own transaction, so a concurrent creator
+    // hitting the unique constraint does not fail the caller's transaction)
+    private PaymentCoverage lockCoverage(Long policyId, int year) {
+        Optional<PaymentCoverage> existing = coverageRepository.findForUpdate(policyId, year);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            requiresNew.executeWithoutResult(tx -> {
+                if (!coverageRepository.existsByPolicyIdAndCoverageYear(policyId, year)) {
+                    coverageRepository.saveAndFlush(new PaymentCoverage(policyId, year, 0));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently - lock the winner's row
+        }
+        return coverageRepository.findForUpdate(policyId, year)
+                .orElseThrow(() -> new IllegalStateException("Coverage row for policy " + policyId + " in " + year + " is missing"));
+    }
+
+    private static int maskFromPayments(List<Object[]> rows, int year) {
+        int mask = 0;
+        for (Object[] row : rows) {
+            String paymentMonth = (String) row[0];
+            int month = monthIndex(paymentMonth);
+            if (month >= 0 && coverageYear(paymentMonth, (LocalDateTime) row[1]) == year) {
+                mask |= 1 << month;
+            }
+        }
+        return mask;
+    }
+
+    // Zero-based month of a payment month such as "March", "MARCH" or "March 2025"; -1 if not a month name
+    public static int monthIndex(String paymentMonth) {
+        if (paymentMonth == null) {
+            return -1;
+        }
+        String name = paymentMonth.trim().split("[\\s\\-/]+", 2)[0];
+        for (int i = 0; i < MONTH_NAMES.length; i++) {
+            if (MONTH_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static int coverageYear(String paymentMonth, LocalDateTime submittedDate) {
+        Integer year = explicitYear(paymentMonth);
+        if (year != null) {
+            return year;
+        }
+        return submittedDate != null ? submittedDate.getYear() : LocalDate.now().getYear();
+    }
+
+    private static Integer explicitYear(String paymentMonth) {
+        if (paymentMonth == null) {
+            return null;
+        }
+        Matcher matcher = YEAR.matcher(paymentMonth);
+        return matcher.find() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+
+    // Months of the year that have ended as of the given date: all for past years, none for future ones
+    public static int dueMask(int year, LocalDate asOf) {
+        if (year < asOf.getYear()) {
+            return PaymentCoverage.ALL_MONTHS;
+        }
+        if (year > asOf.getYear()) {
+            return 0;
+        }
+        return (1 << (asOf.getMonthValue() - 1)) - 1;
+    }
+
+    // Month names of the set bits, January first
+    public static List<String> monthNames(int mask) {
+        List<String> names = new ArrayList<>(Integer.bitCount(mask & PaymentCoverage.ALL_MONTHS));
+        for (int bits = mask & PaymentCoverage.ALL_MONTHS; bits != 0; bits &= bits - 1) {
+            names.add(MONTH_NAMES[Integer.numberOfTrailingZeros(bits)]);
+        }
+        return names;
+    }
+
+    public record CoveredMonth(Long policyId, String paymentMonth, LocalDateTime submittedDate) {
+    }
+
+    private record CoverageKey(Long policyId, int year) implements Comparable<CoverageKey> {
+        @Override
+        public int compareTo(CoverageKey other) {
+            int byPolicy = policyId.compareTo(other.policyId);
+            return byPolicy != 0 ? byPolicy : Integer.compare(year, other.year);
+        }
+    }
+}
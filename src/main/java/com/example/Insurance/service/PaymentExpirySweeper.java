@@ -0,0 +1,100 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.entity.Payment;
+import com.example.Insurance.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background job that owns payment expiry so read paths never write.
+ * Each run backfills expiryTime on legacy rows and locks pending payments whose
+ * edit window has passed, in bounded batches of one transaction each.
+ */
+@Service
+public class PaymentExpirySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentExpirySweeper.class);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.payments.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.payments.expiry.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Scheduled(fixedDelayString = "${app.payments.expiry.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            int backfilled = backfillExpiryTimes();
+            int locked = lockExpiredPayments();
+            if (backfilled > 0 || locked > 0) {
+                logger.info("Payment expiry sweep: {} expiry times backfilled, {} payments locked", backfilled, locked);
+            }
+        } catch (Exception e) {
+            logger.error("Payment expiry sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Legacy rows created before expiryTime was mandatory
+    public int backfillExpiryTimes() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Payment> updated = transactionTemplate.execute(tx -> {
+                List<Payment> payments = paymentRepository.findMissingExpiryTime(PageRequest.of(0, batchSize));
+                for (Payment payment : payments) {
+                    LocalDateTime base = payment.getSubmittedDate() != null ? payment.getSubmittedDate() : LocalDateTime.now();
+                    payment.setExpiryTime(base.plusHours(PaymentService.EDIT_WINDOW_HOURS));
+                }
+                paymentRepository.saveAll(payments);
+                return payments;
+            });
+            int count = updated != null ? updated.size() : 0;
+            if (count > 0) {
+                paymentService.evictCachedPayments(updated.stream().map(Payment::getPaymentId).toList());
+            }
+            total += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // Pending payments past their edit window become read-only (still awaiting admin review)
+    public int lockExpiredPayments() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = paymentRepository.findExpiredUnlockedIds(PaymentStatus.PENDING, now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            // The UPDATE re-checks status and expiry, so payments approved in the meantime are left alone
+            Integer locked = transactionTemplate.execute(tx -> paymentRepository.lockEditing(ids, PaymentStatus.PENDING, now));
+            paymentService.evictCachedPayments(ids);
+            total += locked != null ? locked : 0;
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
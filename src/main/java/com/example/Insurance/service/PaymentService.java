@@ -1,25 +1,45 @@
 package com.example.Insurance.service;
 
+import com.example.Insurance.cache.BoundedTtlCache;
 import com.example.Insurance.entity.*;
 import com.example.Insurance.repository.PaymentRepository;
+import com.example.Insurance.repository.PaymentSpecifications;
 import com.example.Insurance.repository.PolicyRepository;
 import com.example.Insurance.DTO.UserPolicyPaymentDTO;
 import com.example.Insurance.DTO.PaymentHistoryDTO;
+import com.example.Insurance.DTO.PaymentHistoryPage;
+import com.example.Insurance.DTO.PaymentSearchCriteria;
+import com.example.Insurance.DTO.PolicySummaryDTO;
 import com.example.Insurance.DTO.PaymentUpdateDTO;
 import com.example.Insurance.Enums.PaymentMethod;
 import com.example.Insurance.Enums.PaymentStatus;
 import com.example.Insurance.Enums.PolicyStatus;
+import com.example.Insurance.gateway.ChargeRequest;
+import com.example.Insurance.gateway.ChargeResult;
+import com.example.Insurance.gateway.GatewayUnavailableException;
+import com.example.Insurance.id.BusinessIds;
+import com.example.Insurance.storage.ContentAddressedStore;
+import com.example.Insurance.storage.StoredFile;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,105 +55,158 @@ public class PaymentService {
     @Autowired
     private PolicyRepository policyRepository;
 
-    private final String UPLOAD_DIR = System.getProperty("user.dir") + "/uploads/bank-slips/";
+    @Autowired
+    private PaymentStatsService paymentStatsService;
 
-    // EMERGENCY FIX - Ultra simple payment history
-    public List<Payment> getPaymentHistory(Long userId) {
-        System.out.println("=== EMERGENCY FIX: Getting payments for user " + userId + " ===");
+    @Autowired
+    private PaymentCoverageService paymentCoverageService;
 
-        try {
-            List<Payment> allPayments = paymentRepository.findAll();
-            System.out.println("STEP 1 SUCCESS: Found " + allPayments.size() + " total payments");
+    @Autowired
+    private ContentAddressedStore contentStore;
 
-            if (allPayments.isEmpty()) {
-                System.out.println("DATABASE IS EMPTY - No payments exist!");
-                return new ArrayList<>();
-            }
+    @Autowired
+    private OnlinePaymentProcessor onlinePaymentProcessor;
 
-            List<Payment> result = new ArrayList<>();
-            for (Payment payment : allPayments) {
-                try {
-                    System.out.println("Checking payment: ID=" + payment.getPaymentId() + ", UserID=" + payment.getUserId());
-                    if (payment.getUserId() != null && payment.getUserId().equals(userId)) {
-                        if (payment.getStatus() == PaymentStatus.PENDING && payment.getExpiryTime() == null && payment.getSubmittedDate() != null) {
-                            payment.setExpiryTime(payment.getSubmittedDate().plusHours(12));
-                        }
-                        result.add(payment);
-                        System.out.println("✅ MATCHED: Added payment " + payment.getPaymentId());
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error processing payment: " + e.getMessage());
-                }
-            }
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
-            System.out.println("FINAL RESULT: " + result.size() + " payments for user " + userId);
-            return result;
+    public PaymentService(@Value("${app.payments.cache.max-size:10000}") int cacheMaxSize,
+                          @Value("${app.payments.cache.ttl-seconds:60}") long cacheTtlSeconds) {
+        this.paymentCache = new BoundedTtlCache<>(cacheMaxSize, cacheTtlSeconds * 1000L);
+    }
+
+    private final BoundedTtlCache<Long, Payment> paymentCache;
 
+    // Namespace of bank slip images in the content-addressed store
+    public static final String BANK_SLIP_NAMESPACE = "bank-slips";
+
+    // Hours a pending payment stays editable after submission
+    public static final long EDIT_WINDOW_HOURS = 12;
+
+    // Default and maximum page sizes for keyset-paginated payment history
+    public static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    public static final int MAX_HISTORY_PAGE_SIZE = 200;
+
+    // Get a user's payment history (newest first) - indexed lookup on userId, no full-table scan
+    public List<Payment> getPaymentHistory(Long userId) {
+        try {
+            return paymentRepository.findByUserIdOrderBySubmittedDateDesc(userId);
         } catch (Exception e) {
-            System.err.println("EMERGENCY ERROR: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Error getting payment history for user " + userId + ": " + e.getMessage());
             return new ArrayList<>();
         }
     }
 
-    // Get user's approved policies with payment information
-    public List<UserPolicyPaymentDTO> getUserPoliciesWithPayments(Long userId) {
-        try {
-            System.out.println("=== PaymentService: getUserPoliciesWithPayments called for user " + userId + " ===");
-
-            List<Policy> allPolicies = policyRepository.findAll();
-            System.out.println("Total policies in database: " + allPolicies.size());
-
-            List<Policy> eligiblePolicies = allPolicies.stream()
-                    .filter(policy -> policy.getStatus() == PolicyStatus.APPROVED || policy.getStatus() == PolicyStatus.ACTIVE)
-                    .collect(Collectors.toList());
-
-            System.out.println("Found " + eligiblePolicies.size() + " policies eligible for payments");
+    // Keyset-paginated payment history. Cursor is the opaque nextCursor of the previous page,
+    // status is optional (null = all statuses). Cost is O(limit) regardless of table size.
+    public PaymentHistoryPage getPaymentHistoryPage(Long userId, PaymentStatus status, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        // Fetch one extra row to learn whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Payment> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = status == null
+                    ? paymentRepository.findByUserIdOrderBySubmittedDateDesc(userId, pageable)
+                    : paymentRepository.findByUserIdAndStatusOrderBySubmittedDateDesc(userId, status, pageable);
+        } else {
+            HistoryCursor after = decodeCursor(cursor);
+            rows = status == null
+                    ? paymentRepository.findByUserIdBeforeCursor(userId, after.submittedDate(), after.paymentId(), pageable)
+                    : paymentRepository.findByUserIdAndStatusBeforeCursor(userId, status, after.submittedDate(), after.paymentId(), pageable);
+        }
 
-            List<UserPolicyPaymentDTO> result = new ArrayList<>();
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            Payment last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(last.getSubmittedDate(), last.getPaymentId());
+        }
 
-            for (Policy policy : eligiblePolicies) {
-                try {
-                    UserPolicyPaymentDTO dto = new UserPolicyPaymentDTO();
-                    dto.setPolicyId(policy.getId());
-                    dto.setPolicyNumber("POL-" + policy.getId());
-                    dto.setPolicyType(policy.getName());
-                    dto.setVehicle(policy.getVehicleType() + " - REG" + policy.getId());
-                    dto.setMonthlyPremium(BigDecimal.valueOf(policy.getPremiumAmount()));
-                    dto.setStatus("ACTIVE");
+        return new PaymentHistoryPage(rows, nextCursor);
+    }
 
-                    List<Payment> payments = getSimplePaymentsForPolicy(policy.getId());
+    private String encodeCursor(LocalDateTime submittedDate, Long paymentId) {
+        String raw = submittedDate + "|" + paymentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-                    List<String> paidMonths = payments.stream()
-                            .filter(p -> p.getStatus() == PaymentStatus.APPROVED)
-                            .map(Payment::getPaymentMonth)
-                            .collect(Collectors.toList());
+    // Every malformed cursor surfaces as IllegalArgumentException, which the controller answers with 400
+    private HistoryCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new HistoryCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid payment history cursor: " + cursor);
+        }
+    }
 
-                    List<String> allMonths = Arrays.asList("January", "February", "March", "April", "May", "June",
-                            "July", "August", "September", "October", "November", "December");
+    private record HistoryCursor(LocalDateTime submittedDate, Long paymentId) {
+    }
 
-                    List<String> pendingMonths = allMonths.stream()
-                            .filter(month -> !paidMonths.contains(month))
-                            .collect(Collectors.toList());
+    // Policy statuses that accept payments
+    private static final List<PolicyStatus> PAYABLE_POLICY_STATUSES = List.of(PolicyStatus.APPROVED, PolicyStatus.ACTIVE);
 
-                    dto.setPaidMonths(paidMonths);
-                    dto.setPendingMonths(pendingMonths);
+    // Get user's approved policies with payment information for the current year
+    @Transactional(readOnly = true)
+    public List<UserPolicyPaymentDTO> getUserPoliciesWithPayments(Long userId) {
+        return getUserPoliciesWithPayments(userId, LocalDate.now().getYear());
+    }
 
-                    List<PaymentHistoryDTO> paymentHistory = payments.stream()
-                            .map(this::convertToPaymentHistoryDTO)
-                            .collect(Collectors.toList());
+    // The user's payable policies with their payments. Three set-based statements (policy summaries, their
+    // payments, their coverage masks) regardless of policy or payment count. Paid, pending and overdue
+    // months come from the year's coverage mask.
+    @Transactional(readOnly = true)
+    public List<UserPolicyPaymentDTO> getUserPoliciesWithPayments(Long userId, int year) {
+        try {
+            List<PolicySummaryDTO> eligiblePolicies = policyRepository.findSummariesByUserIdAndStatusIn(userId, PAYABLE_POLICY_STATUSES);
+            if (eligiblePolicies.isEmpty()) {
+                return new ArrayList<>();
+            }
 
-                    dto.setPaymentHistory(paymentHistory);
-                    result.add(dto);
+            List<Long> policyIds = new ArrayList<>(eligiblePolicies.size());
+            for (PolicySummaryDTO policy : eligiblePolicies) {
+                policyIds.add(policy.getId());
+            }
+            Map<Long, Integer> paidMasks = paymentCoverageService.getPaidMasks(policyIds, year);
+            int dueMask = PaymentCoverageService.dueMask(year, LocalDate.now());
 
-                    System.out.println("Created DTO for policy: " + policy.getName());
+            // Group payments by policy in one pass; query order (newest first) is preserved per group
+            Map<Long, List<Payment>> paymentsByPolicy = new HashMap<>();
+            for (Payment payment : paymentRepository.findByPolicyIdIn(policyIds)) {
+                paymentsByPolicy.computeIfAbsent(payment.getPolicy().getId(), id -> new ArrayList<>()).add(payment);
+            }
 
-                } catch (Exception e) {
-                    System.err.println("Error processing policy " + policy.getId() + ": " + e.getMessage());
+            List<UserPolicyPaymentDTO> result = new ArrayList<>(eligiblePolicies.size());
+            for (PolicySummaryDTO policy : eligiblePolicies) {
+                List<Payment> payments = paymentsByPolicy.getOrDefault(policy.getId(), Collections.emptyList());
+
+                UserPolicyPaymentDTO dto = new UserPolicyPaymentDTO();
+                dto.setPolicyId(policy.getId());
+                dto.setPolicyNumber("POL-" + policy.getId());
+                dto.setPolicyType(policy.getName());
+                dto.setVehicle(policy.getVehicleType() + " - REG" + policy.getId());
+                dto.setMonthlyPremium(policy.getPremiumAmount() != null ? BigDecimal.valueOf(policy.getPremiumAmount()) : null);
+                dto.setStatus("ACTIVE");
+
+                List<PaymentHistoryDTO> paymentHistory = new ArrayList<>(payments.size());
+                for (Payment payment : payments) {
+                    paymentHistory.add(convertToPaymentHistoryDTO(payment));
                 }
+
+                int paidMask = paidMasks.getOrDefault(policy.getId(), 0);
+                dto.setCoverageYear(year);
+                dto.setPaidMonths(PaymentCoverageService.monthNames(paidMask));
+                dto.setPendingMonths(PaymentCoverageService.monthNames(~paidMask));
+                dto.setOverdueMonths(PaymentCoverageService.monthNames(dueMask & ~paidMask));
+                dto.setPaymentHistory(paymentHistory);
+                result.add(dto);
             }
 
-            System.out.println("=== Returning " + result.size() + " policy DTOs ===");
             return result;
 
         } catch (Exception e) {
@@ -143,25 +216,8 @@ public class PaymentService {
         }
     }
 
-    // SIMPLIFIED METHOD - Get payments for a specific policy
-    private List<Payment> getSimplePaymentsForPolicy(Long policyId) {
-        try {
-            List<Payment> allPayments = paymentRepository.findAll();
-            return allPayments.stream()
-                    .filter(p -> p.getPolicy() != null && p.getPolicy().getId().equals(policyId))
-                    .sorted((p1, p2) -> {
-                        if (p1.getSubmittedDate() == null) return 1;
-                        if (p2.getSubmittedDate() == null) return -1;
-                        return p2.getSubmittedDate().compareTo(p1.getSubmittedDate());
-                    })
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("Error getting payments for policy " + policyId + ": " + e.getMessage());
-            return new ArrayList<>();
-        }
-    }
-
     // Create new payment - ENHANCED with immediate verification
+    @Transactional
     public Payment createPayment(Payment payment) {
         try {
             System.out.println("=== PaymentService: Creating payment ===");
@@ -178,10 +234,12 @@ public class PaymentService {
             payment.setUserEmail("policyholder@example.com");
             payment.setStatus(PaymentStatus.PENDING);
             payment.setSubmittedDate(LocalDateTime.now());
-            payment.setExpiryTime(LocalDateTime.now().plusHours(12));
+            payment.setExpiryTime(payment.getSubmittedDate().plusHours(EDIT_WINDOW_HOURS));
+            payment.setEditLocked(false);
 
-            if (payment.getPaymentMethod() == PaymentMethod.ONLINE_PAYMENT) {
-                processOnlinePayment(payment);
+            boolean online = payment.getPaymentMethod() == PaymentMethod.ONLINE_PAYMENT;
+            if (online) {
+                startOnlinePayment(payment);
             }
 
             System.out.println("Saving payment with data: " +
@@ -190,6 +248,11 @@ public class PaymentService {
                     ", Amount=" + payment.getAmount());
 
             Payment savedPayment = paymentRepository.save(payment);
+            paymentStatsService.recordCreated(savedPayment.getStatus(), savedPayment.getAmount());
+            if (online) {
+                // Returned as PROCESSING; the gateway result is applied asynchronously
+                dispatchAfterCommit(toChargeRequest(savedPayment));
+            }
             System.out.println("=== PaymentService: Payment created with ID " + savedPayment.getPaymentId() + " ===");
 
             try {
@@ -212,46 +275,46 @@ public class PaymentService {
         }
     }
 
-    // FIXED - Get payment by ID with safer retrieval method
+    // Get payment by ID for read-only use. Primary-key lookup behind a bounded TTL cache;
+    // the returned instance may be shared, so callers must not mutate it.
     public Payment getPaymentById(Long paymentId) {
-        try {
-            System.out.println("=== PaymentService: Getting payment by ID " + paymentId + " ===");
+        return findPaymentById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment with ID " + paymentId + " not found"));
+    }
 
-            List<Payment> allPayments = paymentRepository.findAll();
-            System.out.println("Total payments in database: " + allPayments.size());
-
-            for (Payment payment : allPayments) {
-                if (payment.getPaymentId() != null && payment.getPaymentId().equals(paymentId)) {
-                    System.out.println("✅ Found payment: ID=" + payment.getPaymentId() +
-                            ", UserID=" + payment.getUserId() +
-                            ", Status=" + payment.getStatus() +
-                            ", Month=" + payment.getPaymentMonth());
-
-                    if (payment.getStatus() == PaymentStatus.PENDING && payment.getExpiryTime() == null && payment.getSubmittedDate() != null) {
-                        payment.setExpiryTime(payment.getSubmittedDate().plusHours(12));
-                        try {
-                            paymentRepository.save(payment);
-                            System.out.println("Updated expiry time for payment " + payment.getPaymentId());
-                        } catch (Exception saveError) {
-                            System.err.println("Error updating expiry time: " + saveError.getMessage());
-                        }
-                    }
-
-                    return payment;
-                }
-            }
+    public Optional<Payment> findPaymentById(Long paymentId) {
+        if (paymentId == null) {
+            return Optional.empty();
+        }
+        return paymentCache.getOrLoad(paymentId, id -> paymentRepository.findDetailedById(id).orElse(null));
+    }
 
-            System.err.println("❌ Payment " + paymentId + " not found. Available payment IDs:");
-            for (Payment p : allPayments) {
-                System.err.println("  - Payment ID: " + p.getPaymentId() + ", User: " + p.getUserId());
-            }
+    public Map<String, Object> getPaymentCacheStats() {
+        return paymentCache.stats();
+    }
 
-            throw new RuntimeException("Payment with ID " + paymentId + " not found in database");
+    // Load a payment for modification - always from the database, never the shared cached copy
+    private Payment loadPaymentForUpdate(Long paymentId) {
+        return paymentRepository.findDetailedById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment with ID " + paymentId + " not found"));
+    }
 
-        } catch (Exception e) {
-            System.err.println("❌ Error in getPaymentById: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Payment not found: " + e.getMessage());
+    // Evict payments changed outside this service's write paths (e.g. set-based bulk updates)
+    public void evictCachedPayments(Collection<Long> paymentIds) {
+        paymentIds.forEach(paymentCache::invalidate);
+    }
+
+    // Drop the cached copy now and again once the surrounding transaction commits,
+    // so a reader cannot re-cache the pre-commit row in between
+    private void evictCachedPayment(Long paymentId) {
+        paymentCache.invalidate(paymentId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    paymentCache.invalidate(paymentId);
+                }
+            });
         }
     }
 
@@ -259,12 +322,14 @@ public class PaymentService {
     @Transactional
     public Payment updatePayment(Long paymentId, PaymentUpdateDTO updateDTO) {
         try {
-            Payment existingPayment = getPaymentById(paymentId);
+            Payment existingPayment = loadPaymentForUpdate(paymentId);
 
             if (!canEditPayment(existingPayment)) {
                 throw new RuntimeException("Payment cannot be edited. Either expired or not pending.");
             }
 
+            BigDecimal previousAmount = existingPayment.getAmount();
+
             if (updateDTO.getPaymentMonth() != null && !updateDTO.getPaymentMonth().isEmpty()) {
                 existingPayment.setPaymentMonth(updateDTO.getPaymentMonth());
             }
@@ -288,7 +353,8 @@ public class PaymentService {
                 if (updateDTO.getBankSlipDetails().getDepositDate() != null) slip.setDepositDate(updateDTO.getBankSlipDetails().getDepositDate());
             }
 
-            if (updateDTO.getOnlinePaymentDetails() != null) {
+            boolean recharge = updateDTO.getOnlinePaymentDetails() != null;
+            if (recharge) {
                 OnlinePaymentDetails online = existingPayment.getOnlinePaymentDetails();
                 if (online == null) {
                     online = new OnlinePaymentDetails();
@@ -298,11 +364,17 @@ public class PaymentService {
                 if (updateDTO.getOnlinePaymentDetails().getCardNumber() != null) online.setCardNumber(updateDTO.getOnlinePaymentDetails().getCardNumber());
                 if (updateDTO.getOnlinePaymentDetails().getExpirationDate() != null) online.setExpirationDate(updateDTO.getOnlinePaymentDetails().getExpirationDate());
                 if (updateDTO.getOnlinePaymentDetails().getCvc() != null) online.setCvc(updateDTO.getOnlinePaymentDetails().getCvc());
-                processOnlinePayment(existingPayment);
+                startOnlinePayment(existingPayment);
             }
 
             existingPayment.setUpdatedDate(LocalDateTime.now());
             Payment updatedPayment = paymentRepository.save(existingPayment);
+            if (recharge) {
+                paymentStatsService.recordTransition(PaymentStatus.PENDING, PaymentStatus.PROCESSING, previousAmount);
+                dispatchAfterCommit(toChargeRequest(updatedPayment));
+            }
+            paymentStatsService.recordAmountChange(updatedPayment.getStatus(), previousAmount, updatedPayment.getAmount());
+            evictCachedPayment(paymentId);
             System.out.println("=== Service: Updated payment ID " + paymentId + " - New State: " + updatedPayment);
             return updatedPayment;
         } catch (Exception e) {
@@ -311,15 +383,21 @@ public class PaymentService {
         }
     }
 
+    @Transactional
     public void deletePayment(Long paymentId) {
         try {
-            Payment payment = getPaymentById(paymentId);
+            Payment payment = loadPaymentForUpdate(paymentId);
 
             if (!canEditPayment(payment)) {
                 throw new RuntimeException("Payment cannot be deleted. Either expired or not pending.");
             }
 
             paymentRepository.delete(payment);
+            paymentStatsService.recordDeleted(payment.getStatus(), payment.getAmount());
+            if (payment.getBankSlipDetails() != null) {
+                contentStore.release(BANK_SLIP_NAMESPACE, payment.getBankSlipDetails().getBankSlipSha256());
+            }
+            evictCachedPayment(paymentId);
             System.out.println("✅ Payment " + paymentId + " successfully deleted");
         } catch (Exception e) {
             System.err.println("Error deleting payment: " + e.getMessage());
@@ -327,80 +405,130 @@ public class PaymentService {
         }
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public void uploadBankSlip(Long paymentId, MultipartFile file) throws IOException {
         try {
-            Payment payment = getPaymentById(paymentId);
+            Payment payment = loadPaymentForUpdate(paymentId);
 
             if (payment.getPaymentMethod() != PaymentMethod.BANK_SLIP) {
                 throw new RuntimeException("Payment method is not bank slip");
             }
-
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            BankSlipDetails slip = payment.getBankSlipDetails();
+            if (slip == null) {
+                throw new RuntimeException("Bank slip details are missing for payment " + paymentId);
             }
 
-            String filename = paymentId + "_" + System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            Path filePath = uploadPath.resolve(filename);
-
-            Files.copy(file.getInputStream(), filePath);
+            // Streamed through SHA-256 into a hash-sharded path; identical slips share one file
+            StoredContent stored = contentStore.store(BANK_SLIP_NAMESPACE, file.getInputStream(), file.getContentType());
 
-            if (payment.getBankSlipDetails() != null) {
-                payment.getBankSlipDetails().setBankSlipImagePath(filename);
-                paymentRepository.save(payment);
+            String previousHash = slip.getBankSlipSha256();
+            slip.setBankSlipImagePath(stored.getRelativePath());
+            slip.setBankSlipSha256(stored.getSha256());
+            paymentRepository.save(payment);
+            if (previousHash != null) {
+                // store() added a reference for the new slip, so the replaced one (even if identical) gives one up
+                contentStore.release(BANK_SLIP_NAMESPACE, previousHash);
             }
+            evictCachedPayment(paymentId);
         } catch (Exception e) {
             System.err.println("Error uploading bank slip: " + e.getMessage());
             throw new IOException("Failed to upload bank slip: " + e.getMessage());
         }
     }
 
+    // Locate the stored slip image for download; the content hash doubles as a strong ETag
+    public StoredFile getBankSlipFile(Long paymentId) {
+        Payment payment = findPaymentById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment with ID " + paymentId + " not found"));
+        BankSlipDetails slip = payment.getBankSlipDetails();
+        if (slip == null || slip.getBankSlipImagePath() == null) {
+            throw new RuntimeException("No bank slip uploaded for payment " + paymentId);
+        }
+        String contentType = slip.getBankSlipSha256() == null ? null
+                : contentStore.find(BANK_SLIP_NAMESPACE, slip.getBankSlipSha256()).map(StoredContent::getContentType).orElse(null);
+        // Slips uploaded before content addressing live flat in the same directory, so resolve() finds them too
+        return new StoredFile(contentStore.resolve(BANK_SLIP_NAMESPACE, slip.getBankSlipImagePath()),
+                slip.getBankSlipSha256(), contentType, "bank-slip-" + paymentId);
+    }
+
+    // Pure check, no side effects: expiry backfill and locking are done by PaymentExpirySweeper
     public boolean canEditPayment(Payment payment) {
-        if (payment == null) {
+        if (payment == null || payment.getStatus() != PaymentStatus.PENDING || Boolean.TRUE.equals(payment.getEditLocked())) {
             return false;
         }
-
-        boolean isPending = payment.getStatus() == PaymentStatus.PENDING;
-        boolean hasExpiryTime = payment.getExpiryTime() != null;
-        boolean isNotExpired = hasExpiryTime && LocalDateTime.now().isBefore(payment.getExpiryTime());
-
-        System.out.println("CanEdit check for payment " + payment.getPaymentId() +
-                ": isPending=" + isPending +
-                ", hasExpiryTime=" + hasExpiryTime +
-                ", isNotExpired=" + isNotExpired);
-
-        return isPending && hasExpiryTime && isNotExpired;
+        // The sweeper may not have locked a just-expired payment yet
+        return payment.getExpiryTime() != null && LocalDateTime.now().isBefore(payment.getExpiryTime());
     }
 
+    @Transactional
     public Payment approvePayment(Long paymentId, String adminComments) {
-        try {
-            Payment payment = getPaymentById(paymentId);
+        return approvePayment(paymentId, adminComments, PaymentStatus.PENDING);
+    }
 
-            payment.setStatus(PaymentStatus.APPROVED);
-            payment.setApprovedDate(LocalDateTime.now());
-            payment.setAdminComments(adminComments);
+    // Compare-and-set on the status the admin decided from (PENDING unless correcting an earlier decision):
+    // of two admins deciding at once, the second gets a StatusConflictException
+    @Transactional
+    public Payment approvePayment(Long paymentId, String adminComments, PaymentStatus expectedStatus) {
+        try {
+            if (expectedStatus == PaymentStatus.APPROVED || expectedStatus == PaymentStatus.PROCESSING) {
+                throw new StatusConflictException("Payment " + paymentId + " cannot be approved from " + expectedStatus);
+            }
+            if (paymentRepository.approveIfStatus(paymentId, expectedStatus, LocalDateTime.now(), adminComments) == 0) {
+                throw statusConflict(paymentId, expectedStatus);
+            }
 
-            return paymentRepository.save(payment);
+            Payment saved = loadPaymentForUpdate(paymentId);
+            paymentStatsService.recordTransition(expectedStatus, PaymentStatus.APPROVED, saved.getAmount());
+            if (saved.getPolicy() != null) {
+                paymentCoverageService.recordApproved(saved.getPolicy().getId(), saved.getPaymentMonth(), saved.getSubmittedDate());
+            }
+            evictCachedPayment(paymentId);
+            return saved;
+        } catch (StatusConflictException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Error approving payment: " + e.getMessage());
             throw new RuntimeException("Failed to approve payment: " + e.getMessage());
         }
     }
 
+    @Transactional
     public Payment rejectPayment(Long paymentId, String adminComments) {
-        try {
-            Payment payment = getPaymentById(paymentId);
+        return rejectPayment(paymentId, adminComments, PaymentStatus.PENDING);
+    }
 
-            payment.setStatus(PaymentStatus.REJECTED);
-            payment.setAdminComments(adminComments);
+    @Transactional
+    public Payment rejectPayment(Long paymentId, String adminComments, PaymentStatus expectedStatus) {
+        try {
+            if (expectedStatus == PaymentStatus.REJECTED || expectedStatus == PaymentStatus.PROCESSING) {
+                throw new StatusConflictException("Payment " + paymentId + " cannot be rejected from " + expectedStatus);
+            }
+            if (paymentRepository.rejectIfStatus(paymentId, expectedStatus, adminComments) == 0) {
+                throw statusConflict(paymentId, expectedStatus);
+            }
 
-            return paymentRepository.save(payment);
+            Payment saved = loadPaymentForUpdate(paymentId);
+            paymentStatsService.recordTransition(expectedStatus, PaymentStatus.REJECTED, saved.getAmount());
+            if (expectedStatus == PaymentStatus.APPROVED && saved.getPolicy() != null) {
+                paymentCoverageService.recordUnapproved(saved.getPolicy().getId(), saved.getPaymentMonth(), saved.getSubmittedDate());
+            }
+            evictCachedPayment(paymentId);
+            return saved;
+        } catch (StatusConflictException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Error rejecting payment: " + e.getMessage());
             throw new RuntimeException("Failed to reject payment: " + e.getMessage());
         }
     }
 
+    // The conditional update matched nothing: either the payment is gone or it left the expected status
+    private StatusConflictException statusConflict(Long paymentId, PaymentStatus expectedStatus) {
+        PaymentStatus current = loadPaymentForUpdate(paymentId).getStatus();
+        return new StatusConflictException("Payment " + paymentId + " is " + current + ", not " + expectedStatus
+                + "; it was changed by another user, reload and try again");
+    }
+
     public List<Payment> getPendingPayments() {
         try {
             List<Payment> allPayments = paymentRepository.findAll();
@@ -453,23 +581,120 @@ public class PaymentService {
         }
     }
 
-    private void processOnlinePayment(Payment payment) {
-        try {
-            OnlinePaymentDetails details = payment.getOnlinePaymentDetails();
+    // Put an online payment into PROCESSING; the charge itself is sent by dispatchAfterCommit
+    private void startOnlinePayment(Payment payment) {
+        OnlinePaymentDetails details = payment.getOnlinePaymentDetails();
+        if (details == null) {
+            throw new RuntimeException("Online payment details are required");
+        }
+        details.setTransactionId(null);
+        details.setPaymentSuccessful(false);
+        payment.setStatus(PaymentStatus.PROCESSING);
+        payment.setProcessingStartedAt(LocalDateTime.now());
+        payment.setChargeSentAt(payment.getProcessingStartedAt());
+        // New attempt, new gateway key: the gateway must not replay an earlier attempt's decline
+        payment.setChargeAttemptId(BusinessIds.chargeAttemptId());
+    }
 
-            details.setTransactionId("TXN" + System.currentTimeMillis());
+    private ChargeRequest toChargeRequest(Payment payment) {
+        OnlinePaymentDetails details = payment.getOnlinePaymentDetails();
+        // Rows left PROCESSING before attempt ids existed fall back to the payment id
+        String attemptId = payment.getChargeAttemptId() != null ? payment.getChargeAttemptId() : String.valueOf(payment.getPaymentId());
+        return new ChargeRequest(payment.getPaymentId(), attemptId, payment.getAmount(), details.getCardholderName(),
+                details.getCardNumber(), details.getExpirationDate(), details.getCvc());
+    }
 
-            boolean success = Math.random() > 0.1;
-            details.setPaymentSuccessful(success);
+    // The gateway must never see a payment that was rolled back, so the charge goes out after commit
+    private void dispatchAfterCommit(ChargeRequest request) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(request);
+                }
+            });
+        } else {
+            dispatch(request);
+        }
+    }
+
+    private void dispatch(ChargeRequest request) {
+        onlinePaymentProcessor.submit(request, (result, error) -> completeOnlinePayment(request.getPaymentId(), result, error));
+    }
+
+    // Apply a gateway outcome. Runs on the gateway completion pool, in its own transaction.
+    void completeOnlinePayment(Long paymentId, ChargeResult result, Throwable error) {
+        if (result == null && !(error instanceof GatewayUnavailableException)) {
+            // Timeout or gateway error: the card may or may not have been charged. Stay PROCESSING;
+            // OnlinePaymentRecoverySweeper re-sends the (idempotent) charge to learn the outcome.
+            System.err.println("Online payment " + paymentId + " outcome unknown, will retry: "
+                    + (error != null ? error.getMessage() : "no result"));
+            return;
+        }
+        String failureMessage = result == null ? error.getMessage()
+                : result.isSuccessful() ? null : result.getMessage();
+        failOrCompleteOnlinePayment(paymentId, result, failureMessage);
+    }
+
+    // Give up on a payment whose gateway outcome could not be confirmed in time
+    void abandonOnlinePayment(Long paymentId) {
+        failOrCompleteOnlinePayment(paymentId, null, "Payment could not be confirmed with the gateway");
+    }
+
+    // Re-send the current attempt if it is still unanswered at cutoff. Stamping chargeSentAt first
+    // keeps the next sweep from re-sending it again until another stall period has passed.
+    void resendOnlinePayment(Long paymentId, LocalDateTime cutoff) {
+        ChargeRequest request = transactionTemplate.execute(tx -> {
+            if (paymentRepository.markChargeResent(paymentId, PaymentStatus.PROCESSING, cutoff, LocalDateTime.now()) == 0) {
+                return null;
+            }
+            return paymentRepository.findDetailedById(paymentId)
+                    .filter(p -> p.getOnlinePaymentDetails() != null)
+                    .map(this::toChargeRequest)
+                    .orElse(null);
+        });
+        if (request != null) {
+            dispatch(request);
+        }
+    }
 
-            if (!success) {
-                payment.setAdminComments("Online payment failed. Please try again or use bank slip method.");
+    private void failOrCompleteOnlinePayment(Long paymentId, ChargeResult result, String failureMessage) {
+        try {
+            Boolean applied = transactionTemplate.execute(tx -> {
+                // Only the first outcome wins; duplicates from retries find the payment already moved on
+                if (paymentRepository.transitionStatus(paymentId, PaymentStatus.PROCESSING, PaymentStatus.PENDING) == 0) {
+                    return false;
+                }
+                Payment payment = paymentRepository.findDetailedById(paymentId).orElse(null);
+                if (payment == null) {
+                    return false;
+                }
+                OnlinePaymentDetails details = payment.getOnlinePaymentDetails();
+                boolean success = result != null && result.isSuccessful();
+                if (details != null) {
+                    details.setTransactionId(result != null ? result.getTransactionId() : null);
+                    details.setPaymentSuccessful(success);
+                }
+                if (!success) {
+                    payment.setAdminComments("Online payment failed" + (failureMessage != null ? " (" + failureMessage + ")" : "")
+                            + ". Please try again or use bank slip method.");
+                }
+                paymentRepository.save(payment);
+                paymentStatsService.recordTransition(PaymentStatus.PROCESSING, PaymentStatus.PENDING, payment.getAmount());
+                return true;
+            });
+            if (Boolean.TRUE.equals(applied)) {
+                evictCachedPayment(paymentId);
             }
         } catch (Exception e) {
-            System.err.println("Error processing online payment: " + e.getMessage());
+            System.err.println("Error applying gateway result for payment " + paymentId + ": " + e.getMessage());
         }
     }
 
+    public Map<String, Object> getGatewayStatus() {
+        return onlinePaymentProcessor.getStatus();
+    }
+
     // Get all payments (admin only)
     public List<Payment> getAllPaymentsForAdmin() {
         try {
@@ -477,12 +702,6 @@ public class PaymentService {
 
             List<Payment> allPayments = paymentRepository.findAll();
 
-            for (Payment payment : allPayments) {
-                if (payment.getStatus() == PaymentStatus.PENDING && payment.getExpiryTime() == null && payment.getSubmittedDate() != null) {
-                    payment.setExpiryTime(payment.getSubmittedDate().plusHours(12));
-                }
-            }
-
             System.out.println("Found " + allPayments.size() + " total payments for admin");
             return allPayments;
 
@@ -493,6 +712,21 @@ public class PaymentService {
         }
     }
 
+    // Database-side admin search: filters become indexed SQL predicates, results are paged.
+    // A total count query is only issued when includeCount is set.
+    @Transactional(readOnly = true)
+    public Slice<Payment> searchPayments(PaymentSearchCriteria criteria, int page, int size, boolean includeCount) {
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(Math.max(0, page), pageSize,
+                Sort.by(Sort.Direction.DESC, "submittedDate").and(Sort.by(Sort.Direction.DESC, "paymentId")));
+
+        return paymentRepository.findBy(PaymentSpecifications.matching(criteria), query -> {
+            FluentQuery.FetchableFluentQuery<Payment> withAssociations =
+                    query.project("policy", "bankSlipDetails", "onlinePaymentDetails");
+            return includeCount ? withAssociations.page(pageable) : withAssociations.slice(pageable);
+        });
+    }
+
     // Get payments by status (admin)
     public List<Payment> getPaymentsByStatus(PaymentStatus status) {
         try {
@@ -519,6 +753,8 @@ public class PaymentService {
 
             return payment;
 
+        } catch (StatusConflictException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Error approving payment with notification: " + e.getMessage());
             throw new RuntimeException("Failed to approve payment: " + e.getMessage());
@@ -534,44 +770,18 @@ public class PaymentService {
 
             return payment;
 
+        } catch (StatusConflictException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Error rejecting payment with notification: " + e.getMessage());
             throw new RuntimeException("Failed to reject payment: " + e.getMessage());
         }
     }
 
-    // Get payment statistics
+    // Get payment statistics - served from the incrementally maintained summary rows
     public Map<String, Object> getPaymentStatistics() {
         try {
-            System.out.println("=== PaymentService: Calculating payment statistics ===");
-
-            List<Payment> allPayments = paymentRepository.findAll();
-
-            long pending = allPayments.stream().filter(p -> p.getStatus() == PaymentStatus.PENDING).count();
-            long approved = allPayments.stream().filter(p -> p.getStatus() == PaymentStatus.APPROVED).count();
-            long rejected = allPayments.stream().filter(p -> p.getStatus() == PaymentStatus.REJECTED).count();
-
-            double totalPendingAmount = allPayments.stream()
-                    .filter(p -> p.getStatus() == PaymentStatus.PENDING)
-                    .mapToDouble(p -> p.getAmount().doubleValue())
-                    .sum();
-
-            double totalApprovedAmount = allPayments.stream()
-                    .filter(p -> p.getStatus() == PaymentStatus.APPROVED)
-                    .mapToDouble(p -> p.getAmount().doubleValue())
-                    .sum();
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("pending", pending);
-            stats.put("approved", approved);
-            stats.put("rejected", rejected);
-            stats.put("total", allPayments.size());
-            stats.put("totalPendingAmount", totalPendingAmount);
-            stats.put("totalApprovedAmount", totalApprovedAmount);
-
-            System.out.println("Payment statistics calculated successfully");
-            return stats;
-
+            return paymentStatsService.getStatistics();
         } catch (Exception e) {
             System.err.println("Error calculating payment statistics: " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,223 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.entity.PaymentStatusSummary;
+import com.example.Insurance.repository.PaymentRepository;
+import com.example.Insurance.repository.PaymentStatusSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps per-status payment counts and amount totals in the payment_status_summary table.
+ * PaymentService reports every status transition here inside its own transaction; a periodic
+ * verification job recomputes the figures with one GROUP BY and repairs any drift
+ * (e.g. rows written outside PaymentService). The GROUP BY runs without holding summary
+ * locks; repairs are applied afterwards as short delta updates.
+ */
+@Service
+public class PaymentStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentStatsService.class);
+
+    @Autowired
+    private PaymentStatusSummaryRepository summaryRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // A new payment entered the given status
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(PaymentStatus status, BigDecimal amount) {
+        applyDelta(status, 1, amount);
+    }
+
+    // A payment moved from one status to another
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(PaymentStatus from, PaymentStatus to, BigDecimal amount) {
+        if (from == to) {
+            return;
+        }
+        applyDelta(from, -1, negate(amount));
+        applyDelta(to, 1, amount);
+    }
+
+    // Several payments moved between the same two statuses in one set-based update
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBulkTransition(PaymentStatus from, PaymentStatus to, long count, BigDecimal amount) {
+        if (from == to || count == 0) {
+            return;
+        }
+        applyDelta(from, -count, negate(amount));
+        applyDelta(to, count, amount);
+    }
+
+    // A payment's amount was edited without changing its status
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAmountChange(PaymentStatus status, BigDecimal oldAmount, BigDecimal newAmount) {
+        BigDecimal delta = nonNull(newAmount).subtract(nonNull(oldAmount));
+        if (delta.signum() != 0) {
+            applyDelta(status, 0, delta);
+        }
+    }
+
+    // A payment was removed
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(PaymentStatus status, BigDecimal amount) {
+        applyDelta(status, -1, negate(amount));
+    }
+
+    // Dashboard statistics served from the summary rows - constant cost regardless of payment volume
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStatistics() {
+        Map<PaymentStatus, PaymentStatusSummary> byStatus = new EnumMap<>(PaymentStatus.class);
+        for (PaymentStatusSummary summary : summaryRepository.findAll()) {
+            byStatus.put(summary.getStatus(), summary);
+        }
+
+        long total = 0;
+        Map<String, Object> stats = new HashMap<>();
+        for (PaymentStatus status : PaymentStatus.values()) {
+            PaymentStatusSummary summary = byStatus.get(status);
+            long count = summary != null ? summary.getPaymentCount() : 0;
+            BigDecimal amount = summary != null ? summary.getTotalAmount() : BigDecimal.ZERO;
+            String key = status.name().toLowerCase();
+            stats.put(key, count);
+            stats.put("total" + status.name().charAt(0) + key.substring(1) + "Amount", amount);
+            total += count;
+        }
+        stats.put("total", total);
+        return stats;
+    }
+
+    // Seed the summary rows on startup so incremental updates always have a row to hit
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.error("Failed to initialize payment statistics: {}", e.getMessage());
+        }
+    }
+
+    // Periodic verification job - recompute from the payments table and repair any drift
+    @Scheduled(fixedDelayString = "${app.payments.stats.verify-interval-ms:300000}",
+            initialDelayString = "${app.payments.stats.verify-interval-ms:300000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.error("Payment statistics verification failed: {}", e.getMessage());
+        }
+    }
+
+    // Returns the number of status rows that had drifted and were repaired.
+    // Summaries are read before and after the aggregate, all without locks. Every delta commits together
+    // with its payment change, so a status whose summary did not move in between is consistent with the
+    // aggregate; one that did move is left for the next run.
+    public int reconcile() {
+        Map<PaymentStatus, PaymentStatusSummary> before = readSummaries();
+        Map<PaymentStatus, Object[]> actual = new EnumMap<>(PaymentStatus.class);
+        for (Object[] row : paymentRepository.aggregateByStatus()) {
+            actual.put((PaymentStatus) row[0], row);
+        }
+        Map<PaymentStatus, PaymentStatusSummary> after = readSummaries();
+
+        int repaired = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (PaymentStatus status : PaymentStatus.values()) {
+            Object[] row = actual.get(status);
+            long count = row != null ? ((Number) row[1]).longValue() : 0;
+            BigDecimal amount = row != null ? toBigDecimal(row[2]) : BigDecimal.ZERO;
+
+            PaymentStatusSummary summary = after.get(status);
+            if (summary == null) {
+                seed(status, count, amount, now);
+                continue;
+            }
+            if (!sameFigures(before.get(status), summary)) {
+                logger.debug("Payment statistics for {} changed during verification; rechecking next run", status);
+                continue;
+            }
+            long countDelta = count - summary.getPaymentCount();
+            BigDecimal amountDelta = amount.subtract(summary.getTotalAmount());
+            if (countDelta != 0 || amountDelta.signum() != 0) {
+                logger.warn("Payment statistics drift for {}: count {} -> {}, amount {} -> {}",
+                        status, summary.getPaymentCount(), count, summary.getTotalAmount(), amount);
+                transactionTemplate.executeWithoutResult(tx -> summaryRepository.repair(status, countDelta, amountDelta, now));
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    private Map<PaymentStatus, PaymentStatusSummary> readSummaries() {
+        Map<PaymentStatus, PaymentStatusSummary> summaries = new EnumMap<>(PaymentStatus.class);
+        for (PaymentStatusSummary summary : summaryRepository.findAll()) {
+            summaries.put(summary.getStatus(), summary);
+        }
+        return summaries;
+    }
+
+    private void seed(PaymentStatus status, long count, BigDecimal amount, LocalDateTime now) {
+        try {
+            PaymentStatusSummary summary = new PaymentStatusSummary(status, count, amount);
+            summary.setLastVerified(now);
+            transactionTemplate.executeWithoutResult(tx -> summaryRepository.save(summary));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance seeded it first; the next run verifies that row
+            logger.debug("Payment statistics row for {} was seeded concurrently", status);
+        }
+    }
+
+    private static boolean sameFigures(PaymentStatusSummary a, PaymentStatusSummary b) {
+        return a != null && b != null && a.getPaymentCount() == b.getPaymentCount()
+                && a.getTotalAmount().compareTo(b.getTotalAmount()) == 0;
+    }
+
+    private void applyDelta(PaymentStatus status, long countDelta, BigDecimal amountDelta) {
+        if (status == null) {
+            return;
+        }
+        int updated = summaryRepository.applyDelta(status, countDelta, nonNull(amountDelta));
+        if (updated == 0) {
+            // Row not seeded yet - the next verification run will rebuild it from the payments table
+            logger.warn("No payment summary row for status {}; deferring to verification job", status);
+        }
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    private static BigDecimal nonNull(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static BigDecimal negate(BigDecimal value) {
+        return nonNull(value).negate();
+    }
+}
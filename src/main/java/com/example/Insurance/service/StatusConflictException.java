@@ -0,0 +1,9 @@
+package com.example.Insurance.service;
+
+// An admin decision lost a race: the payment or claim left the status it was read in before the
+// conditional update ran. Controllers answer 409 Conflict.
+public class StatusConflictException extends RuntimeException {
+    public StatusConflictException(String message) {
+        super(message);
+    }
+}
@@ -5,8 +5,8 @@ import com.example.Insurance.DTO.ClaimDTO;
 import com.example.Insurance.entity.Claim;
 import com.example.Insurance.entity.UserC;
 import com.example.Insurance.entity.UserClaimNotification;
+import com.example.Insurance.id.BusinessIds;
 import com.example.Insurance.repository.ClaimRepository;
-import com.example.Insurance.repository.UserClaimRepository;
 import com.example.Insurance.repository.UserClaimNotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -27,10 +27,19 @@ public class UserClaimService {
     private ClaimRepository claimRepository;
 
     @Autowired
-    private UserClaimRepository userClaimRepository;
+    private UserClaimNotificationRepository userClaimNotificationRepository;
 
     @Autowired
-    private UserClaimNotificationRepository userClaimNotificationRepository;
+    private ClaimDuplicateService claimDuplicateService;
+
+    @Autowired
+    private ClaimStatsService claimStatsService;
+
+    @Autowired
+    private ClaimNotificationService claimNotificationService;
+
+    @Autowired
+    private ClaimantService claimantService;
 
     // Submit new claim - COMPLETELY FIXED
     public ClaimDTO submitClaim(ClaimDTO claimDTO) {
@@ -38,7 +47,7 @@ public class UserClaimService {
             System.out.println("🚀 Starting claim submission for: " + claimDTO.getFullName());
 
             // STEP 1: Get or create user first
-            UserC user = getOrCreateUser(claimDTO);
+            UserC user = claimantService.upsert(claimDTO);
             System.out.println("✅ User obtained/created: " + user.getId() + " - " + user.getFullName());
 
             // STEP 2: Create claim
@@ -59,7 +68,7 @@ public class UserClaimService {
             claim.setUser(user);
 
             // Generate unique claim number
-            claim.setClaimNumber(generateClaimNumber());
+            claim.setClaimNumber(BusinessIds.claimNumber());
             claim.setSubmittedDate(LocalDateTime.now());
             claim.setStatus(Claim.ClaimStatus.PENDING);
             claim.setIsDuplicate(false);
@@ -68,12 +77,10 @@ public class UserClaimService {
 
             // STEP 3: Check for duplicates BEFORE saving
             try {
-                List<Claim> potentialDuplicates = claimRepository.findPotentialDuplicates(
-                        claim.getNic(), claim.getVehicleNumber()
-                );
-                if (!potentialDuplicates.isEmpty()) {
-                    claim.setIsDuplicate(true);
-                    System.out.println("⚠️ Potential duplicate detected!");
+                claimDuplicateService.assess(claim);
+                if (Boolean.TRUE.equals(claim.getIsDuplicate())) {
+                    System.out.println("⚠️ Potential duplicate detected! Similar to claim " + claim.getDuplicateOfId()
+                            + " (score " + claim.getDuplicateScore() + ")");
                 }
             } catch (Exception e) {
                 System.err.println("⚠️ Error checking duplicates (non-critical): " + e.getMessage());
@@ -82,6 +89,8 @@ public class UserClaimService {
 
             // STEP 4: Save claim
             Claim savedClaim = claimRepository.save(claim);
+            claimDuplicateService.claimChanged(savedClaim, null);
+            claimStatsService.claimsChanged();
             System.out.println("💾 Claim saved successfully with ID: " + savedClaim.getId());
 
             // STEP 5: Create notification (non-critical - don't fail if this breaks)
@@ -90,7 +99,7 @@ public class UserClaimService {
                         "Claim Submitted Successfully",
                         "Your claim #" + savedClaim.getClaimNumber() + " has been submitted and is being reviewed.",
                         UserClaimNotification.NotificationType.CLAIM_SUBMITTED);
-                System.out.println("📧 Notification sent to user");
+                System.out.println("📧 Notification queued for user");
             } catch (Exception e) {
                 System.err.println("⚠️ Failed to create notification (non-critical): " + e.getMessage());
                 // Don't fail the entire operation for notification issues
@@ -112,7 +121,7 @@ public class UserClaimService {
     // Get user claims by NIC
     public List<ClaimDTO> getUserClaimsByNic(String nic) {
         try {
-            Optional<UserC> userOpt = userClaimRepository.findByNic(nic);
+            Optional<UserC> userOpt = claimantService.findByNic(nic);
             if (!userOpt.isPresent()) {
                 System.out.println("⚠️ User not found with NIC: " + nic);
                 return List.of(); // Return empty list if user not found
@@ -134,7 +143,7 @@ public class UserClaimService {
     // Get user claims by status
     public List<ClaimDTO> getUserClaimsByStatus(String nic, Claim.ClaimStatus status) {
         try {
-            Optional<UserC> userOpt = userClaimRepository.findByNic(nic);
+            Optional<UserC> userOpt = claimantService.findByNic(nic);
             if (!userOpt.isPresent()) {
                 return List.of();
             }
@@ -153,24 +162,7 @@ public class UserClaimService {
     // Get user claim statistics
     public Map<String, Long> getUserClaimStatistics(String nic) {
         try {
-            Optional<UserC> userOpt = userClaimRepository.findByNic(nic);
-            Map<String, Long> stats = new HashMap<>();
-
-            if (!userOpt.isPresent()) {
-                stats.put("pending", 0L);
-                stats.put("approved", 0L);
-                stats.put("rejected", 0L);
-                stats.put("total", 0L);
-                return stats;
-            }
-
-            UserC user = userOpt.get();
-            stats.put("pending", claimRepository.countByUserIdAndStatus(user.getId(), Claim.ClaimStatus.PENDING));
-            stats.put("approved", claimRepository.countByUserIdAndStatus(user.getId(), Claim.ClaimStatus.APPROVED));
-            stats.put("rejected", claimRepository.countByUserIdAndStatus(user.getId(), Claim.ClaimStatus.REJECTED));
-            stats.put("total", claimRepository.countByUserId(user.getId()));
-
-            return stats;
+            return claimStatsService.getUserClaimStatistics(nic);
         } catch (Exception e) {
             System.err.println("❌ Error getting user statistics: " + e.getMessage());
             Map<String, Long> emptyStats = new HashMap<>();
@@ -185,7 +177,7 @@ public class UserClaimService {
     // Get user notifications
     public List<UserClaimNotification> getUserClaimNotifications(String nic) {
         try {
-            Optional<UserC> userOpt = userClaimRepository.findByNic(nic);
+            Optional<UserC> userOpt = claimantService.findByNic(nic);
             if (!userOpt.isPresent()) {
                 return List.of();
             }
@@ -216,82 +208,10 @@ public class UserClaimService {
         }
     }
 
-    // FIXED Helper method - proper user creation with validation
-    private UserC getOrCreateUser(ClaimDTO claimDTO) {
-        try {
-            // Try to find existing user by NIC
-            Optional<UserC> existingUser = userClaimRepository.findByNic(claimDTO.getNic());
-
-            if (existingUser.isPresent()) {
-                UserC user = existingUser.get();
-                System.out.println("🔍 Found existing user: " + user.getFullName() + " (ID: " + user.getId() + ")");
-
-                // Update user information if needed
-                boolean updated = false;
-                if (!user.getEmail().equals(claimDTO.getEmail())) {
-                    user.setEmail(claimDTO.getEmail());
-                    updated = true;
-                }
-                if (!user.getFullName().equals(claimDTO.getFullName())) {
-                    user.setFullName(claimDTO.getFullName());
-                    updated = true;
-                }
-                if (!user.getPhone().equals(claimDTO.getPhone())) {
-                    user.setPhone(claimDTO.getPhone());
-                    updated = true;
-                }
-                if (user.getAge() == null || !user.getAge().equals(claimDTO.getAge())) {
-                    user.setAge(claimDTO.getAge());
-                    updated = true;
-                }
-
-                if (updated) {
-                    user = userClaimRepository.save(user);
-                    System.out.println("🔄 Updated existing user information");
-                }
-
-                return user;
-            }
-
-            // Create new user
-            UserC newUser = new UserC();
-            newUser.setFullName(claimDTO.getFullName());
-            newUser.setEmail(claimDTO.getEmail());
-            newUser.setNic(claimDTO.getNic());
-            newUser.setPhone(claimDTO.getPhone());
-            newUser.setAge(claimDTO.getAge());
-            newUser.setCreatedDate(LocalDateTime.now());
-
-            UserC savedUser = userClaimRepository.save(newUser);
-            System.out.println("✨ Created new user: " + savedUser.getFullName() + " (ID: " + savedUser.getId() + ")");
-
-            return savedUser;
-
-        } catch (Exception e) {
-            System.err.println("❌ CRITICAL ERROR creating/finding user: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to create or find user: " + e.getMessage(), e);
-        }
-    }
-
     // FIXED Notification creation
     public void createUserClaimNotification(UserC user, Claim claim, String title, String message, UserClaimNotification.NotificationType type) {
-        try {
-            UserClaimNotification notification = new UserClaimNotification();
-            notification.setUser(user);
-            notification.setClaim(claim);
-            notification.setTitle(title);
-            notification.setMessage(message);
-            notification.setType(type);
-            notification.setIsRead(false);
-            notification.setCreatedDate(LocalDateTime.now());
-
-            userClaimNotificationRepository.save(notification);
-            System.out.println("📧 Notification created for user: " + user.getFullName() + " - " + title);
-        } catch (Exception e) {
-            System.err.println("❌ Error creating notification: " + e.getMessage());
-            // Don't throw exception - notifications are not critical
-        }
+        // Written after commit by the notification writer, batched with others
+        claimNotificationService.notifyUser(user, claim, title, message, type);
     }
 
     // Convert claim to DTO
@@ -315,11 +235,8 @@ public class UserClaimService {
         dto.setSubmittedDate(claim.getSubmittedDate());
         dto.setProcessedDate(claim.getProcessedDate());
         dto.setIsDuplicate(claim.getIsDuplicate());
+        dto.setDuplicateScore(claim.getDuplicateScore());
+        dto.setDuplicateOfId(claim.getDuplicateOfId());
         return dto;
     }
-
-    // Generate unique claim number
-    private String generateClaimNumber() {
-        return "CLM" + System.currentTimeMillis();
-    }
 }
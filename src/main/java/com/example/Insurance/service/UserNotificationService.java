@@ -1,18 +1,38 @@
 package com.example.Insurance.service;
 
 import com.example.Insurance.DTO.UserNotificationDTO;
+import com.example.Insurance.entity.AdminNotification;
 import com.example.Insurance.entity.UserNotification;
+import com.example.Insurance.entity.UserNotificationState;
+import com.example.Insurance.repository.AdminNotificationRepository;
 import com.example.Insurance.repository.UserNotificationRepository;
+import com.example.Insurance.repository.UserNotificationStateRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * A user's inbox: direct notifications (user_notifications rows) merged with broadcasts.
+ * A broadcast is an AdminNotification stored once and read by every user it targets; a user
+ * only gets a user_notification_states row once they read, archive or delete it. Broadcast
+ * items are listed with id = -adminNotificationId, so the read/archive/delete calls that take
+ * an inbox item's id work for both kinds.
+ */
 @Service
 @Transactional
 public class UserNotificationService {
@@ -20,10 +40,21 @@ public class UserNotificationService {
     @Autowired
     private UserNotificationRepository userNotificationRepository;
 
+    @Autowired
+    private AdminNotificationRepository adminNotificationRepository;
+
+    @Autowired
+    private UserNotificationStateRepository userNotificationStateRepository;
+
+    // Newest first, as the repository queries order direct notifications
+    private static final Comparator<UserNotificationDTO> NEWEST_FIRST =
+            Comparator.comparing(UserNotificationDTO::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
     // Get notification statistics for a user
     public NotificationStatistics getNotificationStatistics(Long userId) {
         try {
-            List<UserNotification> allNotifications = userNotificationRepository.findByUserIdAndActiveOrderByCreatedAtDesc(userId);
+            List<UserNotificationDTO> allNotifications = inbox(userId,
+                    userNotificationRepository.findByUserIdAndActiveOrderByCreatedAtDesc(userId), n -> true);
 
             Long total = (long) allNotifications.size();
             Long unread = allNotifications.stream().mapToLong(n -> n.getIsRead() ? 0 : 1).sum();
@@ -50,10 +81,7 @@ public class UserNotificationService {
     // Get all active notifications for a user
     public List<UserNotificationDTO> getAllNotificationsByUserId(Long userId) {
         try {
-            List<UserNotification> notifications = userNotificationRepository.findByUserIdAndActiveOrderByCreatedAtDesc(userId);
-            return notifications.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return inbox(userId, userNotificationRepository.findByUserIdAndActiveOrderByCreatedAtDesc(userId), n -> true);
         } catch (Exception e) {
             System.err.println("Error getting all notifications for user " + userId + ": " + e.getMessage());
             e.printStackTrace();
@@ -64,10 +92,7 @@ public class UserNotificationService {
     // Get unread notifications for a user
     public List<UserNotificationDTO> getUnreadNotificationsByUserId(Long userId) {
         try {
-            List<UserNotification> notifications = userNotificationRepository.findByUserIdAndUnreadOrderByCreatedAtDesc(userId);
-            return notifications.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return inbox(userId, userNotificationRepository.findByUserIdAndUnreadOrderByCreatedAtDesc(userId), n -> !Boolean.TRUE.equals(n.getIsRead()));
         } catch (Exception e) {
             System.err.println("Error getting unread notifications for user " + userId + ": " + e.getMessage());
             e.printStackTrace();
@@ -78,10 +103,7 @@ public class UserNotificationService {
     // Get read notifications for a user
     public List<UserNotificationDTO> getReadNotificationsByUserId(Long userId) {
         try {
-            List<UserNotification> notifications = userNotificationRepository.findByUserIdAndReadOrderByCreatedAtDesc(userId);
-            return notifications.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return inbox(userId, userNotificationRepository.findByUserIdAndReadOrderByCreatedAtDesc(userId), n -> Boolean.TRUE.equals(n.getIsRead()));
         } catch (Exception e) {
             System.err.println("Error getting read notifications for user " + userId + ": " + e.getMessage());
             e.printStackTrace();
@@ -92,10 +114,7 @@ public class UserNotificationService {
     // Get notifications by priority for a user
     public List<UserNotificationDTO> getNotificationsByUserIdAndPriority(Long userId, UserNotification.PriorityLevel priority) {
         try {
-            List<UserNotification> notifications = userNotificationRepository.findByUserIdAndPriorityOrderByCreatedAtDesc(userId, priority);
-            return notifications.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return inbox(userId, userNotificationRepository.findByUserIdAndPriorityOrderByCreatedAtDesc(userId, priority), n -> n.getPriority() == priority);
         } catch (Exception e) {
             System.err.println("Error getting notifications by priority for user " + userId + ": " + e.getMessage());
             e.printStackTrace();
@@ -106,10 +125,7 @@ public class UserNotificationService {
     // Get notifications by type for a user
     public List<UserNotificationDTO> getNotificationsByUserIdAndType(Long userId, UserNotification.NotificationType type) {
         try {
-            List<UserNotification> notifications = userNotificationRepository.findByUserIdAndTypeOrderByCreatedAtDesc(userId, type);
-            return notifications.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return inbox(userId, userNotificationRepository.findByUserIdAndTypeOrderByCreatedAtDesc(userId, type), n -> n.getType() == type);
         } catch (Exception e) {
             System.err.println("Error getting notifications by type for user " + userId + ": " + e.getMessage());
             e.printStackTrace();
@@ -120,10 +136,7 @@ public class UserNotificationService {
     // Search notifications for a user
     public List<UserNotificationDTO> searchNotificationsByUserId(Long userId, String keyword) {
         try {
-            List<UserNotification> notifications = userNotificationRepository.searchByUserIdAndKeyword(userId, keyword);
-            return notifications.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return inbox(userId, userNotificationRepository.searchByUserIdAndKeyword(userId, keyword), n -> contains(n.getTitle(), keyword) || contains(n.getMessage(), keyword));
         } catch (Exception e) {
             System.err.println("Error searching notifications for user " + userId + ": " + e.getMessage());
             e.printStackTrace();
@@ -134,6 +147,9 @@ public class UserNotificationService {
     // Get notification by ID for a user
     public Optional<UserNotificationDTO> getNotificationByIdAndUserId(Long id, Long userId) {
         try {
+            if (isBroadcastItem(id)) {
+                return broadcasts(userId).stream().filter(n -> n.getId().equals(id)).findFirst();
+            }
             Optional<UserNotification> notification = userNotificationRepository.findByIdAndUserIdAndActive(id, userId);
             return notification.map(this::convertToDTO);
         } catch (Exception e) {
@@ -159,6 +175,9 @@ public class UserNotificationService {
     // Mark notification as read
     public boolean markAsRead(Long id, Long userId) {
         try {
+            if (isBroadcastItem(id)) {
+                return updateBroadcastState(id, userId, state -> state.setIsRead(true));
+            }
             userNotificationRepository.markAsRead(id, userId, LocalDateTime.now());
             return true;
         } catch (Exception e) {
@@ -171,6 +190,9 @@ public class UserNotificationService {
     // Mark notification as unread
     public boolean markAsUnread(Long id, Long userId) {
         try {
+            if (isBroadcastItem(id)) {
+                return updateBroadcastState(id, userId, state -> state.setIsRead(false));
+            }
             userNotificationRepository.markAsUnread(id, userId);
             return true;
         } catch (Exception e) {
@@ -184,6 +206,7 @@ public class UserNotificationService {
     public boolean markAllAsRead(Long userId) {
         try {
             userNotificationRepository.markAllAsReadByUserId(userId, LocalDateTime.now());
+            updateBroadcastStates(userId, n -> !Boolean.TRUE.equals(n.getIsRead()), state -> state.setIsRead(true));
             return true;
         } catch (Exception e) {
             System.err.println("Error marking all notifications as read: " + e.getMessage());
@@ -195,6 +218,10 @@ public class UserNotificationService {
     // Hard delete notification
     public boolean deleteNotification(Long id, Long userId) {
         try {
+            // A broadcast is shared, so it is only hidden from this user
+            if (isBroadcastItem(id)) {
+                return updateBroadcastState(id, userId, state -> state.setIsDeleted(true));
+            }
             if (userNotificationRepository.findByIdAndUserIdAndActive(id, userId).isPresent()) {
                 userNotificationRepository.deleteByIdAndUserId(id, userId);
                 return true;
@@ -211,6 +238,7 @@ public class UserNotificationService {
     public boolean deleteAllNotifications(Long userId) {
         try {
             userNotificationRepository.deleteAllByUserId(userId);
+            updateBroadcastStates(userId, n -> true, state -> state.setIsDeleted(true));
             return true;
         } catch (Exception e) {
             System.err.println("Error deleting all notifications: " + e.getMessage());
@@ -222,6 +250,9 @@ public class UserNotificationService {
     // Archive notification
     public boolean archiveNotification(Long id, Long userId) {
         try {
+            if (isBroadcastItem(id)) {
+                return updateBroadcastState(id, userId, state -> state.setIsArchived(true));
+            }
             userNotificationRepository.archiveByIdAndUserId(id, userId, LocalDateTime.now());
             return true;
         } catch (Exception e) {
@@ -234,10 +265,10 @@ public class UserNotificationService {
     // Get archived notifications for a user
     public List<UserNotificationDTO> getArchivedNotificationsByUserId(Long userId) {
         try {
-            List<UserNotification> notifications = userNotificationRepository.findByUserIdAndArchivedOrderByArchivedAtDesc(userId);
-            return notifications.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            List<UserNotificationDTO> notifications = inbox(userId,
+                    userNotificationRepository.findByUserIdAndArchivedOrderByArchivedAtDesc(userId), n -> Boolean.TRUE.equals(n.getIsArchived()));
+            notifications.sort(Comparator.comparing(UserNotificationDTO::getArchivedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+            return notifications;
         } catch (Exception e) {
             System.err.println("Error getting archived notifications: " + e.getMessage());
             e.printStackTrace();
@@ -248,10 +279,7 @@ public class UserNotificationService {
     // Get notifications by date range
     public List<UserNotificationDTO> getNotificationsByDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
         try {
-            List<UserNotification> notifications = userNotificationRepository.findByUserIdAndDateRange(userId, startDate, endDate);
-            return notifications.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return inbox(userId, userNotificationRepository.findByUserIdAndDateRange(userId, startDate, endDate), n -> n.getCreatedAt() != null && !n.getCreatedAt().isBefore(startDate) && !n.getCreatedAt().isAfter(endDate));
         } catch (Exception e) {
             System.err.println("Error getting notifications by date range: " + e.getMessage());
             e.printStackTrace();
@@ -263,7 +291,8 @@ public class UserNotificationService {
     public Long getUnreadCount(Long userId) {
         try {
             Long count = userNotificationRepository.countUnreadByUserId(userId);
-            return count != null ? count : 0L;
+            Long broadcasts = adminNotificationRepository.countUnreadBroadcastsForUser(userId, audiencesOf(userId), LocalDateTime.now());
+            return (count != null ? count : 0L) + (broadcasts != null ? broadcasts : 0L);
         } catch (Exception e) {
             System.err.println("Error getting unread count: " + e.getMessage());
             e.printStackTrace();
@@ -271,35 +300,109 @@ public class UserNotificationService {
         }
     }
 
-    // Send notification to specific users
-    public void sendNotificationToUsers(List<Long> userIds, Long adminNotificationId, String title, String message,
-                                        UserNotification.NotificationType type, UserNotification.PriorityLevel priority,
-                                        String sentBy, LocalDateTime expiryDate) {
+    // Send an admin notification to specific users: it stays a single broadcast, and each user
+    // without a state for it gets one (unread), which puts it in their inbox whatever its audience
+    public void sendNotificationToUsers(List<Long> userIds, Long adminNotificationId) {
         try {
-            for (Long userId : userIds) {
-                Optional<UserNotification> existingNotification =
-                        userNotificationRepository.findByAdminNotificationIdAndUserId(adminNotificationId, userId);
-
-                if (existingNotification.isEmpty()) {
-                    UserNotification notification = new UserNotification();
-                    notification.setUserId(userId);
-                    notification.setAdminNotificationId(adminNotificationId);
-                    notification.setTitle(title);
-                    notification.setMessage(message);
-                    notification.setType(type);
-                    notification.setPriority(priority);
-                    notification.setSentBy(sentBy);
-                    notification.setExpiryDate(expiryDate);
-
-                    userNotificationRepository.save(notification);
-                }
+            Set<Long> pending = new HashSet<>(userIds);
+            if (pending.isEmpty()) {
+                return;
+            }
+            pending.removeAll(userNotificationStateRepository.findUserIdsByAdminNotificationIdAndUserIdIn(adminNotificationId, pending));
+            List<UserNotificationState> states = new ArrayList<>(pending.size());
+            for (Long userId : pending) {
+                states.add(new UserNotificationState(userId, adminNotificationId));
             }
+            userNotificationStateRepository.saveAll(states);
         } catch (Exception e) {
             System.err.println("Error sending notification to users: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    // Direct notifications (already filtered and ordered by the repository) merged with the
+    // user's broadcasts that pass the same filter, newest first
+    private List<UserNotificationDTO> inbox(Long userId, List<UserNotification> direct, Predicate<UserNotificationDTO> filter) {
+        List<UserNotificationDTO> notifications = direct.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toCollection(ArrayList::new));
+        broadcasts(userId).stream().filter(filter).forEach(notifications::add);
+        notifications.sort(NEWEST_FIRST);
+        return notifications;
+    }
+
+    private List<UserNotificationDTO> broadcasts(Long userId) {
+        List<UserNotificationDTO> broadcasts = new ArrayList<>();
+        for (Object[] row : adminNotificationRepository.findBroadcastsForUser(userId, audiencesOf(userId), LocalDateTime.now())) {
+            broadcasts.add(convertToDTO((AdminNotification) row[0], (UserNotificationState) row[1], userId));
+        }
+        return broadcasts;
+    }
+
+    // Apply a change to the user's state for a broadcast in their inbox, creating the state on first use
+    private boolean updateBroadcastState(Long id, Long userId, Consumer<UserNotificationState> change) {
+        Long adminNotificationId = -id;
+        boolean visible = broadcasts(userId).stream().anyMatch(n -> n.getAdminNotificationId().equals(adminNotificationId));
+        if (!visible) {
+            return false;
+        }
+        UserNotificationState state = userNotificationStateRepository
+                .findByUserIdAndAdminNotificationId(userId, adminNotificationId)
+                .orElseGet(() -> new UserNotificationState(userId, adminNotificationId));
+        change.accept(state);
+        userNotificationStateRepository.save(state);
+        return true;
+    }
+
+    // Apply a change to the user's states for every broadcast in their inbox that matches
+    private void updateBroadcastStates(Long userId, Predicate<UserNotificationDTO> filter,
+                                       Consumer<UserNotificationState> change) {
+        List<Long> adminNotificationIds = broadcasts(userId).stream()
+                .filter(filter)
+                .map(UserNotificationDTO::getAdminNotificationId)
+                .toList();
+        if (adminNotificationIds.isEmpty()) {
+            return;
+        }
+        Map<Long, UserNotificationState> states = userNotificationStateRepository
+                .findByUserIdAndAdminNotificationIdIn(userId, adminNotificationIds).stream()
+                .collect(Collectors.toMap(UserNotificationState::getAdminNotificationId, Function.identity()));
+        List<UserNotificationState> changed = new ArrayList<>(adminNotificationIds.size());
+        for (Long adminNotificationId : adminNotificationIds) {
+            UserNotificationState state = states.getOrDefault(adminNotificationId, new UserNotificationState(userId, adminNotificationId));
+            change.accept(state);
+            changed.add(state);
+        }
+        userNotificationStateRepository.saveAll(changed);
+    }
+
+    private static boolean isBroadcastItem(Long id) {
+        return id != null && id < 0;
+    }
+
+    // Audiences a user belongs to. Everyone is in ALL; the rest is the same fixed membership the
+    // per-user fan-out used until user segments are stored.
+    private static Set<AdminNotification.TargetAudience> audiencesOf(Long userId) {
+        Set<AdminNotification.TargetAudience> audiences = EnumSet.of(AdminNotification.TargetAudience.ALL);
+        if (userId == 1L || userId == 2L || userId == 3L) {
+            audiences.add(AdminNotification.TargetAudience.ACTIVE);
+        }
+        if (userId == 4L || userId == 5L) {
+            audiences.add(AdminNotification.TargetAudience.INACTIVE);
+        }
+        if (userId == 1L || userId == 3L) {
+            audiences.add(AdminNotification.TargetAudience.PREMIUM);
+        }
+        if (userId == 5L) {
+            audiences.add(AdminNotification.TargetAudience.NEW);
+        }
+        return audiences;
+    }
+
+    private static boolean contains(String text, String keyword) {
+        return text != null && text.toLowerCase().contains(keyword.toLowerCase());
+    }
+
     // Convert Entity to DTO
     private UserNotificationDTO convertToDTO(UserNotification notification) {
         UserNotificationDTO dto = new UserNotificationDTO();
@@ -317,7 +420,35 @@ public class UserNotificationService {
         dto.setReceivedAt(notification.getReceivedAt());
         dto.setExpiryDate(notification.getExpiryDate());
         dto.setIsArchived(notification.getIsArchived());
+        dto.setArchivedAt(notification.getArchivedAt());
         dto.setIsDeleted(notification.getIsDeleted());
+        dto.setBroadcast(false);
+        return dto;
+    }
+
+    // Convert a broadcast and the user's state for it (null if none yet) to an inbox item
+    private UserNotificationDTO convertToDTO(AdminNotification notification, UserNotificationState state, Long userId) {
+        LocalDateTime sent = notification.getSentDate() != null ? notification.getSentDate() : notification.getCreated();
+        UserNotificationDTO dto = new UserNotificationDTO();
+        dto.setId(-notification.getId());
+        dto.setUserId(userId);
+        dto.setAdminNotificationId(notification.getId());
+        dto.setTitle(notification.getTitle());
+        dto.setMessage(notification.getMessage());
+        dto.setType(notification.getType() != null ? UserNotification.NotificationType.valueOf(notification.getType().name())
+                : UserNotification.NotificationType.GENERAL);
+        dto.setPriority(notification.getPriority() != null ? UserNotification.PriorityLevel.valueOf(notification.getPriority().name())
+                : UserNotification.PriorityLevel.MEDIUM);
+        dto.setIsRead(state != null && state.getIsRead());
+        dto.setSentBy(notification.getCreatedBy());
+        dto.setReadAt(state != null ? state.getReadAt() : null);
+        dto.setCreatedAt(sent);
+        dto.setReceivedAt(sent);
+        dto.setExpiryDate(notification.getExpiryDate());
+        dto.setIsArchived(state != null && state.getIsArchived());
+        dto.setArchivedAt(state != null ? state.getArchivedAt() : null);
+        dto.setIsDeleted(false);
+        dto.setBroadcast(true);
         return dto;
     }
 
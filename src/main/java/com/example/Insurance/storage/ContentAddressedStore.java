@@ -0,0 +1,222 @@
+package com.example.Insurance.storage;
+
+import com.example.Insurance.entity.StoredContent;
+import com.example.Insurance.repository.StoredContentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Content-addressed file store shared by upload features (bank slips, claim photos).
+ * Uploads are streamed through a SHA-256 digest into a temp file with NIO channels, then
+ * moved to {root}/{namespace}/{h0h1}/{h2h3}/{sha256}. Identical content is kept once and
+ * reference-counted in the stored_content table; the file is deleted when the last
+ * reference is released.
+ */
+@Component
+public class ContentAddressedStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentAddressedStore.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private StoredContentRepository storedContentRepository;
+
+    private final Path root;
+    private final TransactionTemplate requiresNew;
+
+    // Serialises store/delete of the same hash on this node so a file is never removed under a new reference
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+
+    public ContentAddressedStore(@Value("${app.storage.root:${user.dir}/uploads}") String root,
+                                 PlatformTransactionManager transactionManager) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Stream the content into the store and add one reference to it
+    public StoredContent store(String namespace, InputStream content, String contentType) throws IOException {
+        Path namespaceDir = namespaceDir(namespace);
+        Path tempDir = namespaceDir.resolve(".tmp");
+        Files.createDirectories(tempDir);
+        Path temp = tempDir.resolve(UUID.randomUUID() + ".part");
+
+        try {
+            long copied = 0;
+            MessageDigest digest = newDigest();
+            try (ReadableByteChannel in = Channels.newChannel(content);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        copied += out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                out.force(false);
+            }
+            long size = copied;
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+
+            String relativePath = shardedPath(sha256);
+            Path target = namespaceDir.resolve(relativePath);
+
+            ReentrantLock lock = lockFor(sha256);
+            lock.lock();
+            try {
+                StoredContent stored;
+                try {
+                    stored = requiresNew.execute(tx -> addReference(namespace, sha256, relativePath, size, contentType));
+                } catch (DataIntegrityViolationException e) {
+                    // Another node inserted the same content first; the row now exists, so take a reference to it
+                    stored = requiresNew.execute(tx -> addReference(namespace, sha256, relativePath, size, contentType));
+                }
+                if (Files.exists(target)) {
+                    Files.deleteIfExists(temp);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                undoOnRollback(namespace, sha256);
+                return stored;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Drop one reference. Runs in the caller's transaction; the file itself is only deleted
+    // after that transaction commits and no reference remains.
+    public void release(String namespace, String sha256) {
+        if (sha256 == null || sha256.isBlank()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            storedContentRepository.decrementRefCount(namespace, sha256);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteIfUnreferenced(namespace, sha256);
+                }
+            });
+        } else {
+            requiresNew.executeWithoutResult(tx -> storedContentRepository.decrementRefCount(namespace, sha256));
+            deleteIfUnreferenced(namespace, sha256);
+        }
+    }
+
+    // The reference is committed on its own; give it back if the caller's transaction does not commit
+    private void undoOnRollback(String namespace, String sha256) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    requiresNew.executeWithoutResult(tx -> storedContentRepository.decrementRefCount(namespace, sha256));
+                    deleteIfUnreferenced(namespace, sha256);
+                }
+            }
+        });
+    }
+
+    public Optional<StoredContent> find(String namespace, String sha256) {
+        return storedContentRepository.findByNamespaceAndSha256(namespace, sha256);
+    }
+
+    // Resolve a stored relative path, refusing anything that escapes the namespace directory
+    public Path resolve(String namespace, String relativePath) {
+        Path namespaceDir = namespaceDir(namespace);
+        Path resolved = namespaceDir.resolve(relativePath).normalize();
+        if (!resolved.startsWith(namespaceDir)) {
+            throw new IllegalArgumentException("Invalid stored path: " + relativePath);
+        }
+        return resolved;
+    }
+
+    private StoredContent addReference(String namespace, String sha256, String relativePath, long size, String contentType) {
+        if (storedContentRepository.incrementRefCount(namespace, sha256) == 0) {
+            StoredContent stored = new StoredContent();
+            stored.setNamespace(namespace);
+            stored.setSha256(sha256);
+            stored.setRelativePath(relativePath);
+            stored.setSizeBytes(size);
+            stored.setContentType(contentType);
+            stored.setRefCount(1);
+            stored.setCreatedAt(LocalDateTime.now());
+            return storedContentRepository.saveAndFlush(stored);
+        }
+        return storedContentRepository.findByNamespaceAndSha256(namespace, sha256)
+                .orElseThrow(() -> new IllegalStateException("Stored content vanished: " + sha256));
+    }
+
+    private void deleteIfUnreferenced(String namespace, String sha256) {
+        ReentrantLock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            Integer deleted = requiresNew.execute(tx -> storedContentRepository.deleteUnreferenced(namespace, sha256));
+            if (deleted != null && deleted > 0) {
+                Files.deleteIfExists(namespaceDir(namespace).resolve(shardedPath(sha256)));
+            }
+        } catch (Exception e) {
+            logger.warn("Could not remove unreferenced content {}/{}: {}", namespace, sha256, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Path namespaceDir(String namespace) {
+        return root.resolve(namespace);
+    }
+
+    // Two levels of 256-way sharding keep directories small even at millions of files
+    private static String shardedPath(String sha256) {
+        return sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    private ReentrantLock lockFor(String sha256) {
+        return stripes[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
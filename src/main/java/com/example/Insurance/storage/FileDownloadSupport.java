@@ -0,0 +1,226 @@
+package com.example.Insurance.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves stored files over HTTP: single byte ranges (206/416), strong ETags with
+ * If-None-Match/304 and If-Range, and a cap on concurrent copied transfers (503 when saturated).
+ * <p>
+ * When the connector supports sendfile (Tomcat NIO/NIO2/APR set {@value #SENDFILE_SUPPORT}), bodies of
+ * at least {@code app.storage.download.sendfile-min-bytes} are handed to Tomcat through the sendfile
+ * request attributes and written by the kernel without passing through the JVM. Those transfers are
+ * NOT covered by the cap: Tomcat writes them after this class returns and gives no completion signal
+ * to release a permit on, so they are bounded only by the connector's connection limits. Set the
+ * threshold above the largest stored file to send everything through the capped path instead.
+ * <p>
+ * Otherwise the body is copied through the servlet output stream while holding a permit; that stream
+ * is not a file-descriptor channel, so the copy goes through a small reused heap buffer.
+ */
+@Component
+public class FileDownloadSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDownloadSupport.class);
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Semaphore transferPermits;
+    private final long acquireTimeoutMillis;
+    private final long sendfileMinBytes;
+
+    public FileDownloadSupport(@Value("${app.storage.download.max-concurrent:32}") int maxConcurrent,
+                               @Value("${app.storage.download.acquire-timeout-ms:2000}") long acquireTimeoutMillis,
+                               @Value("${app.storage.download.sendfile-min-bytes:49152}") long sendfileMinBytes) {
+        this.transferPermits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.sendfileMinBytes = sendfileMinBytes;
+    }
+
+    public void send(StoredFile file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file.getPath(), BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Stored file is missing");
+            return;
+        }
+        long length = attributes.size();
+        String etag = etagFor(file, attributes);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Revalidate every time; the ETag makes that a cheap 304
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(file.getContentType() != null ? file.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(count);
+        if (file.getDownloadName() != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.inline().filename(file.getDownloadName(), StandardCharsets.UTF_8).build().toString());
+        }
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        // Tomcat writes the file after this method returns, on its own poller, with no completion callback:
+        // no permit could be released at the right time, so sendfile transfers are uncapped
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getPath().toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            // Exclusive
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        if (!acquirePermit()) {
+            response.reset();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many concurrent downloads");
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.getPath(), StandardOpenOption.READ)) {
+            // Wraps the servlet stream, so transferTo copies through a buffer rather than zero-copy
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        } catch (IOException e) {
+            // Usually the client went away mid-transfer (e.g. a viewer cancelling a range request)
+            logger.debug("Download of {} aborted: {}", file.getPath(), e.getMessage());
+        } finally {
+            transferPermits.release();
+        }
+    }
+
+    private boolean acquirePermit() {
+        try {
+            return transferPermits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Content-addressed files use their hash; anything else falls back to size + modification time
+    static String etagFor(StoredFile file, BasicFileAttributes attributes) {
+        if (file.getSha256() != null && !file.getSha256().isBlank()) {
+            return "\"" + file.getSha256() + "\"";
+        }
+        return "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+    }
+
+    static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            // If-None-Match uses weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a single "bytes=" range. Returns {start, end} (inclusive), an empty array when the
+     * header should be ignored (other units or multiple ranges - the full body is sent), or null
+     * when the range cannot be satisfied.
+     */
+    static long[] parseRange(String header, long length) {
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (start >= length || end < start) {
+                    return null;
+                }
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
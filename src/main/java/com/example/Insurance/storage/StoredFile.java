@@ -0,0 +1,24 @@
+package com.example.Insurance.storage;
+
+import java.nio.file.Path;
+
+// A file on disk ready to be served, with the content hash when it is known
+public class StoredFile {
+    private final Path path;
+    private final String sha256;
+    private final String contentType;
+    private final String downloadName;
+
+    public StoredFile(Path path, String sha256, String contentType, String downloadName) {
+        this.path = path;
+        this.sha256 = sha256;
+        this.contentType = contentType;
+        this.downloadName = downloadName;
+    }
+
+    // Getters
+    public Path getPath() { return path; }
+    public String getSha256() { return sha256; }
+    public String getContentType() { return contentType; }
+    public String getDownloadName() { return downloadName; }
+}
@@ -0,0 +1,69 @@
+package com.example.Insurance.benchmark;
+
+import com.example.Insurance.id.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the Snowflake generator with 1, 4 and 16 threads contending on one instance,
+ * next to the old "CLM" + System.currentTimeMillis() scheme (which is fast but not unique).
+ * <p>
+ * Not part of the unit test run. Start {@link #main} from the IDE, or:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.Insurance.benchmark.IdGeneratorBenchmark
+ * </pre>
+ * A single generator tops out at 4096 IDs per millisecond of wall clock on average; above
+ * that it runs ahead of the clock rather than blocking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+
+    @Benchmark
+    @Threads(1)
+    public long snowflake1Thread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long snowflake4Threads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long snowflake16Threads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String claimNumber4Threads() {
+        return "CLM" + generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String legacyMillis4Threads() {
+        return "CLM" + System.currentTimeMillis();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(IdGeneratorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.Insurance.benchmark;
+
+import com.example.Insurance.DTO.AdminPaymentResponse;
+import com.example.Insurance.DTO.UserPaymentResponse;
+import com.example.Insurance.Enums.PaymentMethod;
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.entity.BankSlipDetails;
+import com.example.Insurance.entity.OnlinePaymentDetails;
+import com.example.Insurance.entity.Payment;
+import com.example.Insurance.entity.Policy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Converts and serializes a 10k-payment response the old way (a HashMap per payment, nested
+ * maps, in-memory re-sort for /all) and with the record-based response types.
+ * <p>
+ * Not part of the unit test run. Start {@link #main} from the IDE, or:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.Insurance.benchmark.PaymentResponseBenchmark
+ * </pre>
+ * The GC profiler's gc.alloc.rate.norm divided by the row count gives bytes allocated per payment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentResponseBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private List<Payment> payments;
+    private ObjectMapper objectMapper;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        // Same settings Spring Boot applies to the MVC ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        now = LocalDateTime.now();
+
+        List<Policy> policies = new ArrayList<>();
+        for (long i = 1; i <= 50; i++) {
+            Policy policy = new Policy();
+            policy.setId(i);
+            policy.setName("Comprehensive " + i);
+            policy.setVehicleType(i % 2 == 0 ? "Car" : "Van");
+            policies.add(policy);
+        }
+
+        // Newest first, as the database now returns them
+        payments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Payment payment = new Payment(policies.get(i % policies.size()), "January", BigDecimal.valueOf(15000 + i));
+            payment.setPaymentId((long) (rows - i));
+            payment.setSubmittedDate(now.minusMinutes(i));
+            payment.setExpiryTime(payment.getSubmittedDate().plusHours(12));
+            payment.setStatus(i % 3 == 0 ? PaymentStatus.APPROVED : PaymentStatus.PENDING);
+            payment.setEditLocked(false);
+            if (i % 2 == 0) {
+                payment.setPaymentMethod(PaymentMethod.BANK_SLIP);
+                BankSlipDetails slip = new BankSlipDetails();
+                slip.setBankName("Commercial Bank");
+                slip.setBranch("Colombo 03");
+                slip.setDepositDate(LocalDate.now());
+                slip.setReferenceNumber("REF" + i);
+                slip.setDepositorName("Depositor " + i);
+                payment.setBankSlipDetails(slip);
+            } else {
+                payment.setPaymentMethod(PaymentMethod.ONLINE_PAYMENT);
+                OnlinePaymentDetails online = new OnlinePaymentDetails();
+                online.setCardholderName("Holder " + i);
+                online.setCardNumber("4111111111111111");
+                online.setExpirationDate("12/30");
+                online.setTransactionId("TXN" + i);
+                online.setPaymentSuccessful(true);
+                payment.setOnlinePaymentDetails(online);
+            }
+            payments.add(payment);
+        }
+    }
+
+    @Benchmark
+    public byte[] adminListMaps() throws Exception {
+        List<Map<String, Object>> body = payments.stream()
+                .map(this::legacyAdminMap)
+                .sorted((p1, p2) -> {
+                    LocalDateTime date1 = (LocalDateTime) p1.get("submittedDate");
+                    LocalDateTime date2 = (LocalDateTime) p2.get("submittedDate");
+                    if (date1 == null) return 1;
+                    if (date2 == null) return -1;
+                    return date2.compareTo(date1);
+                })
+                .collect(Collectors.toList());
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] adminListRecords() throws Exception {
+        List<AdminPaymentResponse> body = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            body.add(AdminPaymentResponse.from(payment, canEdit(payment), now));
+        }
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] userListMaps() throws Exception {
+        List<Map<String, Object>> body = new ArrayList<>();
+        for (Payment payment : payments) {
+            body.add(legacyUserMap(payment));
+        }
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] userListRecords() throws Exception {
+        List<UserPaymentResponse> body = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            body.add(UserPaymentResponse.from(payment));
+        }
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    private boolean canEdit(Payment payment) {
+        return payment.getStatus() == PaymentStatus.PENDING && !Boolean.TRUE.equals(payment.getEditLocked())
+                && payment.getExpiryTime() != null && now.isBefore(payment.getExpiryTime());
+    }
+
+    // The conversion AdminPaymentController used before the typed responses
+    private Map<String, Object> legacyAdminMap(Payment payment) {
+        Map<String, Object> dto = new HashMap<>();
+        try {
+            dto.put("paymentId", payment.getPaymentId());
+            dto.put("userId", payment.getUserId());
+            dto.put("userName", payment.getUserName());
+            dto.put("userEmail", payment.getUserEmail());
+            if (payment.getPolicy() != null) {
+                Map<String, Object> policyInfo = new HashMap<>();
+                policyInfo.put("id", payment.getPolicy().getId());
+                policyInfo.put("policyNumber", "POL-" + payment.getPolicy().getId());
+                policyInfo.put("name", payment.getPolicy().getName());
+                policyInfo.put("vehicleType", payment.getPolicy().getVehicleType());
+                dto.put("policy", policyInfo);
+            } else {
+                dto.put("policy", null);
+            }
+            dto.put("paymentMonth", payment.getPaymentMonth());
+            dto.put("amount", payment.getAmount());
+            dto.put("paymentMethod", payment.getPaymentMethod());
+            dto.put("status", payment.getStatus());
+            dto.put("submittedDate", payment.getSubmittedDate());
+            dto.put("approvedDate", payment.getApprovedDate());
+            dto.put("expiryTime", payment.getExpiryTime());
+            dto.put("adminComments", payment.getAdminComments());
+            if (payment.getBankSlipDetails() != null) {
+                Map<String, Object> bankSlip = new HashMap<>();
+                bankSlip.put("bankName", payment.getBankSlipDetails().getBankName());
+                bankSlip.put("branch", payment.getBankSlipDetails().getBranch());
+                bankSlip.put("depositDate", payment.getBankSlipDetails().getDepositDate());
+                bankSlip.put("referenceNumber", payment.getBankSlipDetails().getReferenceNumber());
+                bankSlip.put("depositorName", payment.getBankSlipDetails().getDepositorName());
+                dto.put("bankSlipDetails", bankSlip);
+            }
+            if (payment.getOnlinePaymentDetails() != null) {
+                Map<String, Object> onlinePayment = new HashMap<>();
+                onlinePayment.put("cardholderName", payment.getOnlinePaymentDetails().getCardholderName());
+                onlinePayment.put("cardNumber", "****" + payment.getOnlinePaymentDetails().getCardNumber().substring(Math.max(0, payment.getOnlinePaymentDetails().getCardNumber().length() - 4)));
+                onlinePayment.put("transactionId", payment.getOnlinePaymentDetails().getTransactionId());
+                onlinePayment.put("paymentSuccessful", payment.getOnlinePaymentDetails().getPaymentSuccessful());
+                dto.put("onlinePaymentDetails", onlinePayment);
+            }
+            dto.put("canEdit", canEdit(payment));
+            dto.put("isPending", payment.getStatus() == PaymentStatus.PENDING);
+            dto.put("timeRemaining", canEdit(payment) ? legacyTimeRemaining(payment.getExpiryTime()) : "Expired");
+        } catch (Exception e) {
+            dto.put("error", "Error processing payment data");
+        }
+        return dto;
+    }
+
+    private String legacyTimeRemaining(LocalDateTime expiryTime) {
+        if (expiryTime == null) return "N/A";
+        LocalDateTime current = LocalDateTime.now();
+        if (current.isAfter(expiryTime)) return "Expired";
+        Duration duration = Duration.between(current, expiryTime);
+        return String.format("%02d:%02d:%02d", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+
+    // The conversion UserPaymentController used before the typed responses
+    private Map<String, Object> legacyUserMap(Payment payment) {
+        Map<String, Object> map = new HashMap<>();
+        try {
+            map.put("paymentId", payment.getPaymentId());
+            map.put("userId", payment.getUserId() != null ? payment.getUserId() : null);
+            try {
+                map.put("userName", payment.getUserName() != null ? payment.getUserName() : "N/A");
+            } catch (Exception e) {
+                map.put("userName", "N/A");
+            }
+            try {
+                map.put("userEmail", payment.getUserEmail() != null ? payment.getUserEmail() : "N/A");
+            } catch (Exception e) {
+                map.put("userEmail", "N/A");
+            }
+            map.put("paymentMonth", payment.getPaymentMonth());
+            map.put("amount", payment.getAmount());
+            map.put("status", payment.getStatus() != null ? payment.getStatus().toString() : "UNKNOWN");
+            try {
+                map.put("paymentMethod", payment.getPaymentMethod() != null ? payment.getPaymentMethod().toString() : "UNKNOWN");
+            } catch (Exception e) {
+                map.put("paymentMethod", "UNKNOWN");
+            }
+            map.put("submittedDate", payment.getSubmittedDate() != null ? payment.getSubmittedDate().toString() : null);
+            map.put("expiryTime", payment.getExpiryTime() != null ? payment.getExpiryTime().toString() : null);
+            try {
+                map.put("adminComments", payment.getAdminComments() != null ? payment.getAdminComments() : null);
+            } catch (Exception e) {
+                map.put("adminComments", null);
+            }
+            try {
+                map.put("approvedDate", payment.getApprovedDate() != null ? payment.getApprovedDate().toString() : null);
+            } catch (Exception e) {
+                map.put("approvedDate", null);
+            }
+            try {
+                if (payment.getPolicy() != null && payment.getPolicy().getId() != null) {
+                    Map<String, Object> policyInfo = new HashMap<>();
+                    policyInfo.put("id", payment.getPolicy().getId());
+                    policyInfo.put("policyNumber", "POL-" + payment.getPolicy().getId());
+                    map.put("policy", policyInfo);
+                } else {
+                    map.put("policy", Map.of("id", null, "policyNumber", "N/A"));
+                }
+            } catch (Exception e) {
+                map.put("policy", Map.of("id", null, "policyNumber", "N/A"));
+            }
+            try {
+                if (payment.getBankSlipDetails() != null) {
+                    Map<String, Object> bankDetails = new HashMap<>();
+                    bankDetails.put("depositorName", payment.getBankSlipDetails().getDepositorName());
+                    bankDetails.put("depositDate", payment.getBankSlipDetails().getDepositDate());
+                    bankDetails.put("referenceNumber", payment.getBankSlipDetails().getReferenceNumber());
+                    bankDetails.put("bankName", payment.getBankSlipDetails().getBankName());
+                    bankDetails.put("branch", payment.getBankSlipDetails().getBranch());
+                    map.put("bankSlipDetails", bankDetails);
+                }
+            } catch (Exception e) {
+                // ignored, as before
+            }
+            try {
+                if (payment.getOnlinePaymentDetails() != null) {
+                    Map<String, Object> onlineDetails = new HashMap<>();
+                    onlineDetails.put("cardholderName", payment.getOnlinePaymentDetails().getCardholderName());
+                    onlineDetails.put("cardNumber", payment.getOnlinePaymentDetails().getCardNumber());
+                    onlineDetails.put("expirationDate", payment.getOnlinePaymentDetails().getExpirationDate());
+                    map.put("onlinePaymentDetails", onlineDetails);
+                }
+            } catch (Exception e) {
+                // ignored, as before
+            }
+        } catch (Exception e) {
+            map.put("error", "Serialization failed: " + e.getMessage());
+        }
+        return map;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(PaymentResponseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
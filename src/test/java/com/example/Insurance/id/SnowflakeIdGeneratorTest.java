@@ -0,0 +1,88 @@
+package com.example.Insurance.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void idsAreUniqueAndIncreasingPerThreadAcrossConcurrentCallers() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        ConcurrentHashMap.KeySetView<Long, Boolean> seen = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long previous = -1;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        long id = generator.nextId();
+                        assertTrue(id > previous, "IDs must increase within a thread");
+                        assertTrue(seen.add(id), "duplicate ID " + id);
+                        assertEquals(7, SnowflakeIdGenerator.nodeIdOf(id));
+                        previous = id;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, seen.size());
+    }
+
+    @Test
+    void sequenceOverflowAndBackwardClockBorrowTheNextMillisecond() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, now::get);
+
+        long previous = -1;
+        for (int i = 0; i < 4096 * 3; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        // Three milliseconds' worth of sequence numbers were issued within one: the generator ran ahead
+        assertEquals(SnowflakeIdGenerator.EPOCH + 1_002, SnowflakeIdGenerator.timestampOf(previous).toEpochMilli());
+
+        now.addAndGet(-500);
+        long afterStepBack = generator.nextId();
+        assertTrue(afterStepBack > previous);
+
+        now.addAndGet(10_000);
+        long caughtUp = generator.nextId();
+        assertEquals(now.get(), SnowflakeIdGenerator.timestampOf(caughtUp).toEpochMilli());
+        assertEquals(0, SnowflakeIdGenerator.sequenceOf(caughtUp));
+    }
+
+    @Test
+    void generatorsOnDifferentNodesNeverCollide() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH + 5_000);
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, now::get);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, now::get);
+        for (int i = 0; i < 10_000; i++) {
+            assertNotEquals(first.nextId(), second.nextId());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+}
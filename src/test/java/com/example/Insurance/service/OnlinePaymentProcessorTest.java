@@ -0,0 +1,119 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.gateway.ChargeRequest;
+import com.example.Insurance.gateway.ChargeResult;
+import com.example.Insurance.gateway.GatewayUnavailableException;
+import com.example.Insurance.gateway.StubPaymentGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OnlinePaymentProcessorTest {
+
+    private OnlinePaymentProcessor processor;
+
+    @AfterEach
+    void shutdown() {
+        if (processor != null) {
+            processor.shutdown();
+        }
+    }
+
+    @Test
+    void approvedChargeCompletesWithResult() throws Exception {
+        processor = new OnlinePaymentProcessor(new StubPaymentGateway(5, 5, 0.0, 0.0), 2, 10, 1000, 3, 60000);
+
+        Outcome outcome = charge(1L);
+
+        assertNull(outcome.error.get());
+        assertTrue(outcome.result.get().isSuccessful());
+        assertNotNull(outcome.result.get().getTransactionId());
+    }
+
+    @Test
+    void slowGatewayTimesOutAndOpensCircuit() throws Exception {
+        processor = new OnlinePaymentProcessor(new StubPaymentGateway(500, 500, 0.0, 0.0), 4, 10, 50, 2, 60000);
+
+        assertInstanceOf(TimeoutException.class, charge(1L).error.get());
+        assertInstanceOf(TimeoutException.class, charge(2L).error.get());
+
+        // Threshold reached: further charges are refused without calling the gateway
+        Outcome refused = charge(3L);
+        assertInstanceOf(GatewayUnavailableException.class, refused.error.get());
+        assertEquals("OPEN", processor.getStatus().get("circuitState"));
+    }
+
+    @Test
+    void declinesDoNotOpenCircuit() throws Exception {
+        processor = new OnlinePaymentProcessor(new StubPaymentGateway(1, 1, 1.0, 0.0), 2, 10, 1000, 2, 60000);
+
+        for (long id = 1; id <= 5; id++) {
+            assertFalse(charge(id).result.get().isSuccessful());
+        }
+        assertEquals("CLOSED", processor.getStatus().get("circuitState"));
+    }
+
+    @Test
+    void fullCompletionQueueRejectsInsteadOfBlockingTheTimeoutThread() throws Exception {
+        processor = new OnlinePaymentProcessor(new StubPaymentGateway(500, 500, 0.0, 0.0), 4, 1, 20, 100, 60000);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> callbackThreads = ConcurrentHashMap.newKeySet();
+        AtomicInteger callbacks = new AtomicInteger();
+
+        // Two completion threads block and one callback queues; the rest must be rejected
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            done.add(processor.submit(request(id), (result, error) -> {
+                callbackThreads.add(Thread.currentThread().getName());
+                callbacks.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (CompletableFuture<Void> future : done.subList(3, 5)) {
+            future.get(2, TimeUnit.SECONDS);
+        }
+        assertEquals(2, callbacks.get());
+        assertTrue(callbackThreads.stream().allMatch(name -> name.startsWith("payment-gateway-completion")), callbackThreads.toString());
+
+        release.countDown();
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(3, callbacks.get());
+    }
+
+    private Outcome charge(Long paymentId) throws Exception {
+        Outcome outcome = new Outcome();
+        CompletableFuture<Void> done = processor.submit(request(paymentId),
+                (result, error) -> {
+                    outcome.result.set(result);
+                    outcome.error.set(error);
+                });
+        done.get(5, TimeUnit.SECONDS);
+        return outcome;
+    }
+
+    private static ChargeRequest request(Long paymentId) {
+        return new ChargeRequest(paymentId, "attempt-" + paymentId, BigDecimal.TEN, "Test Holder", "4111111111111111", "12/30", "123");
+    }
+
+    private static class Outcome {
+        final AtomicReference<ChargeResult> result = new AtomicReference<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.PaymentHistoryPage;
+import com.example.Insurance.DTO.UserPaymentResponse;
+import com.example.Insurance.Enums.PaymentMethod;
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.Enums.PolicyStatus;
+import com.example.Insurance.entity.BankSlipDetails;
+import com.example.Insurance.entity.Payment;
+import com.example.Insurance.entity.Policy;
+import com.example.Insurance.gateway.StubPaymentGateway;
+import com.example.Insurance.repository.PaymentRepository;
+import com.example.Insurance.repository.PolicyRepository;
+import com.example.Insurance.storage.ContentAddressedStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Pages are converted by the controller after the session has closed (open-in-view is off), so these
+// tests run without the usual test transaction.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentHistoryPageTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Configuration
+    @EntityScan(basePackages = "com.example.Insurance")
+    @EnableJpaRepositories(basePackageClasses = PaymentRepository.class)
+    @Import({PaymentService.class, PolicyService.class, PaymentStatsService.class, PaymentCoverageService.class,
+            ContentAddressedStore.class, OnlinePaymentProcessor.class, StubPaymentGateway.class})
+    static class Config {
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PolicyRepository policyRepository;
+
+    @AfterEach
+    void cleanUp() {
+        paymentRepository.deleteAll();
+        policyRepository.deleteAll();
+    }
+
+    @Test
+    void bankSlipPaymentsConvertOutsideTheSession() {
+        Policy policy = policy();
+        Payment slip = bankSlipPayment(policy, LocalDateTime.now());
+
+        List<UserPaymentResponse> history = convert(paymentService.getPaymentHistoryPage(USER_ID, null, null, 10));
+        List<UserPaymentResponse> pending = convert(paymentService.getPaymentHistoryPage(USER_ID, PaymentStatus.PENDING, null, 10));
+
+        assertEquals(List.of(slip.getPaymentId()), history.stream().map(UserPaymentResponse::paymentId).toList());
+        assertEquals(history, pending);
+        UserPaymentResponse response = history.get(0);
+        assertEquals("Bank of Ceylon", response.bankSlipDetails().bankName());
+        assertEquals(policy.getId(), response.policy().id());
+    }
+
+    @Test
+    void pagesAfterACursorAlsoFetchTheirAssociations() {
+        Policy policy = policy();
+        bankSlipPayment(policy, LocalDateTime.now());
+        Payment older = bankSlipPayment(policy, LocalDateTime.now().minusDays(1));
+
+        PaymentHistoryPage first = paymentService.getPaymentHistoryPage(USER_ID, PaymentStatus.PENDING, null, 1);
+        assertTrue(first.hasMore());
+        List<UserPaymentResponse> second = convert(paymentService.getPaymentHistoryPage(USER_ID, PaymentStatus.PENDING,
+                first.getNextCursor(), 1));
+
+        assertEquals(List.of(older.getPaymentId()), second.stream().map(UserPaymentResponse::paymentId).toList());
+        assertNotNull(second.get(0).bankSlipDetails());
+    }
+
+    private static List<UserPaymentResponse> convert(PaymentHistoryPage page) {
+        return page.getPayments().stream().map(UserPaymentResponse::from).toList();
+    }
+
+    private Policy policy() {
+        Policy policy = new Policy();
+        policy.setName("Comprehensive");
+        policy.setDescription("Test policy");
+        policy.setPremiumAmount(15000.0);
+        policy.setCoverageAmount(1000000.0);
+        policy.setVehicleType("Car");
+        policy.setStatus(PolicyStatus.ACTIVE);
+        policy.setApplicantId(USER_ID);
+        return policyRepository.save(policy);
+    }
+
+    private Payment bankSlipPayment(Policy policy, LocalDateTime submittedDate) {
+        BankSlipDetails details = new BankSlipDetails();
+        details.setBankName("Bank of Ceylon");
+        details.setBranch("Colombo");
+        details.setDepositDate(LocalDate.now());
+        details.setReferenceNumber("REF-" + submittedDate.getNano());
+        details.setDepositorName("Test User");
+
+        Payment payment = new Payment(policy, "January", BigDecimal.valueOf(15000));
+        payment.setPaymentMethod(PaymentMethod.BANK_SLIP);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setSubmittedDate(submittedDate);
+        payment.setBankSlipDetails(details);
+        return paymentRepository.save(payment);
+    }
+}
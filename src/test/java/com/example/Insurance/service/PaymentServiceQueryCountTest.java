@@ -0,0 +1,128 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.UserPolicyPaymentDTO;
+import com.example.Insurance.Enums.PaymentMethod;
+import com.example.Insurance.Enums.PaymentStatus;
+import com.example.Insurance.Enums.PolicyStatus;
+import com.example.Insurance.entity.Payment;
+import com.example.Insurance.entity.Policy;
+import com.example.Insurance.repository.PaymentRepository;
+import com.example.Insurance.gateway.StubPaymentGateway;
+import com.example.Insurance.storage.ContentAddressedStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class PaymentServiceQueryCountTest {
+
+    @Configuration
+    @EntityScan(basePackages = "com.example.Insurance")
+    @EnableJpaRepositories(basePackageClasses = PaymentRepository.class)
+    @Import({PaymentService.class, PolicyService.class, PaymentStatsService.class, PaymentCoverageService.class,
+            ContentAddressedStore.class, OnlinePaymentProcessor.class, StubPaymentGateway.class})
+    static class Config {
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void policiesWithPaymentsUsesConstantNumberOfStatements() {
+        seed(2, 3);
+        long smallCount = countStatements(2, 6);
+
+        seed(8, 5);
+        long largeCount = countStatements(10, 46);
+
+        // Policy summaries, their payments, their coverage masks
+        assertEquals(3, smallCount);
+        assertEquals(smallCount, largeCount);
+    }
+
+    private long countStatements(int expectedPolicies, int expectedPayments) {
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<UserPolicyPaymentDTO> result = paymentService.getUserPoliciesWithPayments(1L);
+
+        assertEquals(expectedPolicies, result.size());
+        assertEquals(expectedPayments, result.stream().mapToInt(dto -> dto.getPaymentHistory().size()).sum());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seed(int policies, int paymentsPerPolicy) {
+        for (int i = 0; i < policies; i++) {
+            Policy policy = new Policy();
+            policy.setName("Comprehensive " + i);
+            policy.setDescription("Test policy");
+            policy.setPremiumAmount(15000.0);
+            policy.setCoverageAmount(1000000.0);
+            policy.setVehicleType("Car");
+            policy.setStatus(i % 2 == 0 ? PolicyStatus.APPROVED : PolicyStatus.ACTIVE);
+            policy.setBenefits(List.of("Accident cover", "Roadside assistance"));
+            policy.setApplicantId(1L);
+            entityManager.persist(policy);
+
+            for (int m = 0; m < paymentsPerPolicy; m++) {
+                Payment payment = new Payment(policy, "January", BigDecimal.valueOf(15000));
+                payment.setPaymentMethod(PaymentMethod.BANK_SLIP);
+                payment.setStatus(m == 0 ? PaymentStatus.APPROVED : PaymentStatus.PENDING);
+                payment.setSubmittedDate(LocalDateTime.now().minusDays(m));
+                entityManager.persist(payment);
+            }
+        }
+
+        // A policy that does not accept payments must not be returned
+        Policy inactive = new Policy();
+        inactive.setName("Expired");
+        inactive.setDescription("Test policy");
+        inactive.setPremiumAmount(1000.0);
+        inactive.setCoverageAmount(10000.0);
+        inactive.setVehicleType("Bike");
+        inactive.setStatus(PolicyStatus.INACTIVE);
+        inactive.setApplicantId(1L);
+        entityManager.persist(inactive);
+
+        // Nor may another user's policy or its payments
+        Policy otherUsers = new Policy();
+        otherUsers.setName("Someone else's");
+        otherUsers.setDescription("Test policy");
+        otherUsers.setPremiumAmount(15000.0);
+        otherUsers.setCoverageAmount(1000000.0);
+        otherUsers.setVehicleType("Van");
+        otherUsers.setStatus(PolicyStatus.ACTIVE);
+        otherUsers.setApplicantId(2L);
+        entityManager.persist(otherUsers);
+        Payment otherPayment = new Payment(otherUsers, "January", BigDecimal.valueOf(15000));
+        otherPayment.setPaymentMethod(PaymentMethod.BANK_SLIP);
+        otherPayment.setSubmittedDate(LocalDateTime.now());
+        entityManager.persist(otherPayment);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.Insurance.service;
+
+import com.example.Insurance.DTO.UserNotificationDTO;
+import com.example.Insurance.entity.AdminNotification;
+import com.example.Insurance.entity.UserNotification;
+import com.example.Insurance.entity.UserNotificationState;
+import com.example.Insurance.repository.UserNotificationRepository;
+import com.example.Insurance.repository.UserNotificationStateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class UserNotificationServiceTest {
+
+    // User 1 is in ALL, ACTIVE and PREMIUM; user 4 in ALL and INACTIVE
+    private static final Long PREMIUM_USER = 1L;
+    private static final Long INACTIVE_USER = 4L;
+
+    @Configuration
+    @EntityScan(basePackages = "com.example.Insurance")
+    @EnableJpaRepositories(basePackageClasses = UserNotificationRepository.class)
+    @Import(UserNotificationService.class)
+    static class Config {
+    }
+
+    @Autowired
+    private UserNotificationService userNotificationService;
+
+    @Autowired
+    private UserNotificationStateRepository userNotificationStateRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void broadcastIsVisibleToItsAudienceOnly() {
+        AdminNotification premium = broadcast(AdminNotification.TargetAudience.PREMIUM, AdminNotification.NotificationStatus.SENT);
+
+        assertEquals(List.of(-premium.getId()), ids(userNotificationService.getAllNotificationsByUserId(PREMIUM_USER)));
+        assertTrue(userNotificationService.getAllNotificationsByUserId(INACTIVE_USER).isEmpty());
+    }
+
+    @Test
+    void unsentNotificationsStayHiddenEvenWhenAddressedToTheUser() {
+        AdminNotification draft = broadcast(AdminNotification.TargetAudience.ALL, AdminNotification.NotificationStatus.DRAFT);
+        AdminNotification scheduled = broadcast(AdminNotification.TargetAudience.ALL, AdminNotification.NotificationStatus.SCHEDULED);
+        userNotificationService.sendNotificationToUsers(List.of(INACTIVE_USER), draft.getId());
+        userNotificationService.sendNotificationToUsers(List.of(INACTIVE_USER), scheduled.getId());
+
+        assertTrue(userNotificationService.getAllNotificationsByUserId(INACTIVE_USER).isEmpty());
+        assertEquals(0L, userNotificationService.getUnreadCount(INACTIVE_USER));
+    }
+
+    @Test
+    void readArchiveAndDeleteOfABroadcastShareOneStateRow() {
+        AdminNotification notification = broadcast(AdminNotification.TargetAudience.ALL, AdminNotification.NotificationStatus.SENT);
+        Long itemId = -notification.getId();
+
+        assertTrue(userNotificationService.markAsRead(itemId, PREMIUM_USER));
+        assertTrue(userNotificationService.archiveNotification(itemId, PREMIUM_USER));
+        assertTrue(userNotificationService.deleteNotification(itemId, PREMIUM_USER));
+
+        List<UserNotificationState> states = userNotificationStateRepository
+                .findByUserIdAndAdminNotificationIdIn(PREMIUM_USER, List.of(notification.getId()));
+        assertEquals(1, states.size());
+        UserNotificationState state = states.get(0);
+        assertTrue(state.getIsRead());
+        assertTrue(state.getIsArchived());
+        assertTrue(state.getIsDeleted());
+
+        // Hidden from the user who deleted it, still shown to everyone else
+        assertTrue(userNotificationService.getAllNotificationsByUserId(PREMIUM_USER).isEmpty());
+        assertEquals(List.of(itemId), ids(userNotificationService.getAllNotificationsByUserId(INACTIVE_USER)));
+        assertTrue(userNotificationStateRepository.findByUserIdAndAdminNotificationIdIn(INACTIVE_USER, List.of(notification.getId())).isEmpty());
+    }
+
+    @Test
+    void broadcastIsHiddenWhenTheUserHasALegacyCopy() {
+        AdminNotification notification = broadcast(AdminNotification.TargetAudience.ALL, AdminNotification.NotificationStatus.SENT);
+        UserNotification copy = direct(PREMIUM_USER, notification.getId());
+
+        assertEquals(List.of(copy.getId()), ids(userNotificationService.getAllNotificationsByUserId(PREMIUM_USER)));
+        assertEquals(List.of(-notification.getId()), ids(userNotificationService.getAllNotificationsByUserId(INACTIVE_USER)));
+    }
+
+    @Test
+    void unreadCountCoversDirectNotificationsAndBroadcasts() {
+        direct(PREMIUM_USER, 0L);
+        AdminNotification unread = broadcast(AdminNotification.TargetAudience.ALL, AdminNotification.NotificationStatus.SENT);
+        AdminNotification read = broadcast(AdminNotification.TargetAudience.PREMIUM, AdminNotification.NotificationStatus.SENT);
+        broadcast(AdminNotification.TargetAudience.INACTIVE, AdminNotification.NotificationStatus.SENT);
+        assertTrue(userNotificationService.markAsRead(-read.getId(), PREMIUM_USER));
+
+        assertEquals(2L, userNotificationService.getUnreadCount(PREMIUM_USER));
+        assertEquals(List.of(-unread.getId()), ids(userNotificationService.getUnreadNotificationsByUserId(PREMIUM_USER)).stream()
+                .filter(id -> id < 0).toList());
+    }
+
+    private AdminNotification broadcast(AdminNotification.TargetAudience target, AdminNotification.NotificationStatus status) {
+        AdminNotification notification = new AdminNotification("Notice", "Message", AdminNotification.NotificationType.GENERAL,
+                AdminNotification.PriorityLevel.MEDIUM, target);
+        notification.setStatus(status);
+        if (status == AdminNotification.NotificationStatus.SENT) {
+            notification.setSentDate(LocalDateTime.now());
+        }
+        return entityManager.persistFlushFind(notification);
+    }
+
+    private UserNotification direct(Long userId, Long adminNotificationId) {
+        return entityManager.persistFlushFind(new UserNotification(userId, adminNotificationId, "Direct", "Message",
+                UserNotification.NotificationType.GENERAL, UserNotification.PriorityLevel.MEDIUM));
+    }
+
+    private static List<Long> ids(List<UserNotificationDTO> notifications) {
+        return notifications.stream().map(UserNotificationDTO::getId).toList();
+    }
+}